@@ -0,0 +1,55 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hudson.plugins.analysis.util.model.AnnotationContainer;
+import hudson.plugins.analysis.util.model.DefaultAnnotationContainer;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Measures {@link AnnotationContainer#addAnnotations(java.util.Collection)},
+ * i.e. the creation of the module, package, file, category and type
+ * hierarchy of a result.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnnotationContainerBenchmark {
+    /** The number of warnings. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private List<FileAnnotation> annotations;
+
+    /**
+     * Creates the annotations.
+     */
+    @Setup
+    public void createAnnotations() {
+        annotations = new AnnotationGenerator(Scale.files(warnings), Scale.SEED).createAnnotations(warnings);
+    }
+
+    /**
+     * Adds all annotations to a new container.
+     *
+     * @return the container
+     */
+    @Benchmark
+    public AnnotationContainer addAnnotations() {
+        DefaultAnnotationContainer container = new DefaultAnnotationContainer();
+        container.addAnnotations(annotations);
+        return container;
+    }
+}
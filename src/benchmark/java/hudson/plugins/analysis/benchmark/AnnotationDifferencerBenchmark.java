@@ -0,0 +1,73 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hudson.plugins.analysis.core.AnnotationDifferencer;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Measures the computation of new and fixed warnings with
+ * {@link AnnotationDifferencer}. The previous build contains the same
+ * warnings as the current build, except for a small number of warnings that
+ * have been fixed or added.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnnotationDifferencerBenchmark {
+    private static final int CHANGED_PERCENTAGE = 5;
+
+    /** The number of warnings. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private Set<FileAnnotation> current;
+    private Set<FileAnnotation> previous;
+
+    /**
+     * Creates the annotations of both builds.
+     */
+    @Setup
+    public void createAnnotations() {
+        int changed = warnings * CHANGED_PERCENTAGE / 100;
+        List<FileAnnotation> all = new AnnotationGenerator(Scale.files(warnings), Scale.SEED)
+                .createAnnotations(warnings + changed);
+
+        current = new HashSet<FileAnnotation>(all.subList(changed, all.size()));
+        previous = new HashSet<FileAnnotation>(all.subList(0, warnings));
+    }
+
+    /**
+     * Computes the new warnings.
+     *
+     * @return the new warnings
+     */
+    @Benchmark
+    public Set<FileAnnotation> newAnnotations() {
+        return AnnotationDifferencer.getNewAnnotations(current, previous);
+    }
+
+    /**
+     * Computes the fixed warnings.
+     *
+     * @return the fixed warnings
+     */
+    @Benchmark
+    public Set<FileAnnotation> fixedAnnotations() {
+        return AnnotationDifferencer.getFixedAnnotations(current, previous);
+    }
+}
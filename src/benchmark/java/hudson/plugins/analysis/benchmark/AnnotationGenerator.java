@@ -0,0 +1,167 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang.StringUtils;
+
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Generates synthetic annotations with a realistic distribution of file names:
+ * the workspace consists of several modules with nested packages, and a few
+ * files contain most of the warnings. The generated annotations depend only
+ * on the seed, so two generators with the same seed create equal annotations.
+ *
+ * @author Ulli Hafner
+ */
+public class AnnotationGenerator {
+    /** The root of the generated file names. */
+    public static final String WORKSPACE = "/var/lib/jenkins/workspace/job";
+
+    private static final int FILES_PER_PACKAGE = 20;
+    private static final int PACKAGES_PER_MODULE = 25;
+    private static final int MAX_PACKAGE_DEPTH = 4;
+    private static final int MAX_LINE = 2000;
+    private static final String[] CATEGORIES = {"Naming", "Design", "Coding", "Imports", "Javadoc", "Size"};
+    private static final String[] TYPES = {"UnusedImport", "MagicNumber", "LineLength", "FinalParameters",
+            "HiddenField", "JavadocMethod", "NPathComplexity", "EmptyBlock"};
+
+    private final Random random;
+    private final String[] files;
+    private final String[] modules;
+    private final String[] packages;
+
+    /**
+     * Creates a new instance of {@link AnnotationGenerator}.
+     *
+     * @param numberOfFiles
+     *            the number of files that contain warnings
+     * @param seed
+     *            the seed of the random generator
+     */
+    public AnnotationGenerator(final int numberOfFiles, final long seed) {
+        random = new Random(seed);
+        files = new String[numberOfFiles];
+        modules = new String[numberOfFiles];
+        packages = new String[numberOfFiles];
+
+        int numberOfModules = Math.max(1, numberOfFiles / (FILES_PER_PACKAGE * PACKAGES_PER_MODULE));
+        for (int file = 0; file < numberOfFiles; file++) {
+            int packageIndex = file / FILES_PER_PACKAGE;
+            int module = packageIndex % numberOfModules;
+
+            modules[file] = "module-" + module;
+            packages[file] = createPackageName(module, packageIndex);
+            files[file] = WORKSPACE + "/" + modules[file] + "/src/main/java/"
+                    + packages[file].replace('.', '/') + "/Class" + file + ".java";
+        }
+    }
+
+    private String createPackageName(final int module, final int packageIndex) {
+        StringBuilder name = new StringBuilder("com.example.module").append(module);
+        int depth = 1 + packageIndex % MAX_PACKAGE_DEPTH;
+        for (int level = 0; level < depth; level++) {
+            name.append(".p").append((packageIndex + level) % PACKAGES_PER_MODULE);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Returns the absolute names of all files.
+     *
+     * @return the file names
+     */
+    public String[] getFiles() {
+        return files.clone();
+    }
+
+    /**
+     * Returns the module names of all files.
+     *
+     * @return the module names, the index corresponds to the index of
+     *         {@link #getFiles()}
+     */
+    public String[] getModules() {
+        return modules.clone();
+    }
+
+    /**
+     * Creates the specified number of annotations. The number of warnings per
+     * file follows a Zipf like distribution.
+     *
+     * @param numberOfAnnotations
+     *            the number of annotations to create
+     * @return the annotations
+     */
+    public List<FileAnnotation> createAnnotations(final int numberOfAnnotations) {
+        List<FileAnnotation> annotations = new ArrayList<FileAnnotation>(numberOfAnnotations);
+        for (int i = 0; i < numberOfAnnotations; i++) {
+            annotations.add(createAnnotation(i));
+        }
+        return annotations;
+    }
+
+    private FileAnnotation createAnnotation(final int index) {
+        int file = selectFile();
+        int line = 1 + random.nextInt(MAX_LINE);
+        String type = TYPES[random.nextInt(TYPES.length)];
+
+        GeneratedAnnotation annotation = new GeneratedAnnotation(Priority.values()[random.nextInt(3)],
+                type + " violation number " + index, line, line + random.nextInt(3),
+                CATEGORIES[random.nextInt(CATEGORIES.length)], type);
+        annotation.setFileName(files[file]);
+        annotation.setModuleName(modules[file]);
+        annotation.setPackageName(packages[file]);
+        annotation.setContextHashCode(31L * index + file);
+        return annotation;
+    }
+
+    /**
+     * Selects a file so that the probability of file <code>n</code> is
+     * proportional to <code>1 / (n + 1)</code>.
+     */
+    private int selectFile() {
+        double harmonic = Math.log(files.length) + 0.5772;
+        double value = random.nextDouble() * harmonic;
+        int file = (int)Math.exp(value) - 1;
+
+        return Math.min(Math.max(file, 0), files.length - 1);
+    }
+
+    /**
+     * A concrete annotation.
+     */
+    public static class GeneratedAnnotation extends AbstractAnnotation {
+        private static final long serialVersionUID = -2416393718532964218L;
+
+        /**
+         * Creates a new instance of {@link GeneratedAnnotation}.
+         *
+         * @param priority
+         *            the priority
+         * @param message
+         *            the message of the warning
+         * @param start
+         *            the first line of the line range
+         * @param end
+         *            the last line of the line range
+         * @param category
+         *            the category of the annotation
+         * @param type
+         *            the type of the annotation
+         */
+        public GeneratedAnnotation(final Priority priority, final String message, final int start, final int end,
+                final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Compares the JSON results of two benchmark runs and reports the benchmarks
+ * that became slower by more than a given percentage. The exit code is 1 if a
+ * regression has been found.
+ * <p>
+ * Usage: <code>BaselineComparison baseline.json current.json [percentage]</code>
+ * </p>
+ *
+ * @author Ulli Hafner
+ */
+public final class BaselineComparison {
+    private static final double DEFAULT_THRESHOLD = 10.0;
+    private static final double PERCENT = 100.0;
+
+    /**
+     * Compares the specified benchmark results.
+     *
+     * @param args
+     *            the baseline results, the current results, and optionally the
+     *            allowed slowdown in percent
+     * @throws IOException
+     *             if the results could not be read
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison baseline.json current.json [percentage]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        Map<String, Double> baseline = read(new File(args[0]));
+        Map<String, Double> current = read(new File(args[1]));
+
+        boolean hasRegression = false;
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.format("%-100s %12.3f (new)%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+            double change = (entry.getValue() - before) / before * PERCENT;
+            boolean isRegression = change > threshold;
+            System.out.format("%-100s %12.3f %12.3f %+8.1f%% %s%n", entry.getKey(), before, entry.getValue(), change,
+                    isRegression ? "REGRESSION" : "");
+            hasRegression |= isRegression;
+        }
+        System.exit(hasRegression ? 1 : 0);
+    }
+
+    /**
+     * Reads the scores of a JMH result file, mapped by the benchmark name and
+     * its parameters. All benchmarks are expected to measure the average time.
+     */
+    private static Map<String, Double> read(final File file) throws IOException {
+        Map<String, Double> scores = new TreeMap<String, Double>();
+
+        JSONArray results = JSONArray.fromObject(FileUtils.readFileToString(file, "UTF-8"));
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+
+            StringBuilder name = new StringBuilder(result.getString("benchmark"));
+            JSONObject params = result.optJSONObject("params");
+            if (params != null && !params.isNullObject()) {
+                for (Iterator<?> keys = new TreeMap<Object, Object>(params).keySet().iterator(); keys.hasNext();) {
+                    Object key = keys.next();
+                    name.append(' ').append(key).append('=').append(params.get(key));
+                }
+            }
+            scores.put(name.toString(), result.getJSONObject("primaryMetric").getDouble("score"));
+        }
+        return scores;
+    }
+
+    private BaselineComparison() {
+        // prevents instantiation
+    }
+}
@@ -0,0 +1,77 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import hudson.XmlFile;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.util.model.AnnotationStream;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Measures loading the annotations of a build from the XML file. The file is
+ * written and read in the same way as {@link BuildResult#getDataFile()} does,
+ * i.e. with an unconfigured {@link AnnotationStream}.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DataFileBenchmark {
+    /** The number of warnings. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private File file;
+
+    /**
+     * Writes the data file.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Setup
+    public void writeDataFile() throws IOException {
+        List<FileAnnotation> annotations = new AnnotationGenerator(Scale.files(warnings), Scale.SEED)
+                .createAnnotations(warnings);
+
+        file = File.createTempFile("analysis-benchmark", ".xml");
+        new XmlFile(new AnnotationStream(), file).write(annotations.toArray(new FileAnnotation[annotations.size()]));
+    }
+
+    /**
+     * Deletes the data file.
+     */
+    @TearDown
+    public void deleteDataFile() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Reads the annotations from the data file.
+     *
+     * @return the annotations
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Benchmark
+    public FileAnnotation[] read() throws IOException {
+        return (FileAnnotation[])new XmlFile(new AnnotationStream(), file).read();
+    }
+}
@@ -0,0 +1,93 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hudson.plugins.analysis.util.model.LineRange;
+import hudson.plugins.analysis.util.model.LineRangeList;
+
+/**
+ * Measures the variable length encoding and decoding of {@link LineRangeList}.
+ * Each warning has a list of one to three line ranges.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LineRangeListBenchmark {
+    private static final int MAX_LINE = 5000;
+
+    /** The number of warnings. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private LineRange[][] ranges;
+    private LineRangeList[] lists;
+
+    /**
+     * Creates the line ranges.
+     */
+    @Setup
+    public void createRanges() {
+        Random random = new Random(Scale.SEED);
+        ranges = new LineRange[warnings][];
+        lists = new LineRangeList[warnings];
+        for (int i = 0; i < warnings; i++) {
+            ranges[i] = new LineRange[1 + random.nextInt(3)];
+            for (int j = 0; j < ranges[i].length; j++) {
+                int start = 1 + random.nextInt(MAX_LINE);
+                ranges[i][j] = new LineRange(start, start + random.nextInt(10));
+            }
+            lists[i] = encode(ranges[i]);
+        }
+    }
+
+    private static LineRangeList encode(final LineRange[] values) {
+        LineRangeList list = new LineRangeList();
+        for (LineRange range : values) {
+            list.add(range);
+        }
+        list.trim();
+        return list;
+    }
+
+    /**
+     * Encodes the line ranges of all warnings.
+     *
+     * @return the encoded lists
+     */
+    @Benchmark
+    public LineRangeList[] encode() {
+        LineRangeList[] result = new LineRangeList[warnings];
+        for (int i = 0; i < warnings; i++) {
+            result[i] = encode(ranges[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the line ranges of all warnings.
+     *
+     * @return the sum of all start lines
+     */
+    @Benchmark
+    public long decode() {
+        long sum = 0;
+        for (LineRangeList list : lists) {
+            for (LineRange range : list) {
+                sum += range.getStart();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,30 @@
+package hudson.plugins.analysis.benchmark;
+
+/**
+ * Defines the relation between the number of warnings and the size of the
+ * workspace of the benchmarks.
+ *
+ * @author Ulli Hafner
+ */
+public final class Scale {
+    /** The seed of all generators, so that all runs use the same data. */
+    public static final long SEED = 4711;
+    /** The average number of warnings per file. */
+    private static final int WARNINGS_PER_FILE = 10;
+
+    /**
+     * Returns the number of files that contain the specified number of
+     * warnings.
+     *
+     * @param warnings
+     *            the number of warnings
+     * @return the number of files
+     */
+    public static int files(final int warnings) {
+        return Math.max(1, warnings / WARNINGS_PER_FILE);
+    }
+
+    private Scale() {
+        // prevents instantiation
+    }
+}
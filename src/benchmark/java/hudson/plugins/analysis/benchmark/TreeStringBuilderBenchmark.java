@@ -0,0 +1,60 @@
+package hudson.plugins.analysis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hudson.plugins.analysis.util.TreeStringBuilder;
+
+/**
+ * Measures {@link TreeStringBuilder#intern(String)} for the file names of a
+ * workspace. Each file name is interned as often as the file contains
+ * warnings on average.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TreeStringBuilderBenchmark {
+    /** The number of warnings. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private String[] fileNames;
+
+    /**
+     * Creates the file names.
+     */
+    @Setup
+    public void createFileNames() {
+        String[] files = new AnnotationGenerator(Scale.files(warnings), Scale.SEED).getFiles();
+
+        fileNames = new String[warnings];
+        for (int i = 0; i < warnings; i++) {
+            fileNames[i] = new String(files[i % files.length]); // NOPMD: simulate strings of different parsers
+        }
+    }
+
+    /**
+     * Interns all file names and deduplicates the tree.
+     *
+     * @return the builder
+     */
+    @Benchmark
+    public TreeStringBuilder intern() {
+        TreeStringBuilder builder = new TreeStringBuilder();
+        for (String fileName : fileNames) {
+            builder.intern(fileName);
+        }
+        builder.dedup();
+        return builder;
+    }
+}
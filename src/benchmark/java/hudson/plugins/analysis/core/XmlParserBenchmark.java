@@ -0,0 +1,294 @@
+package hudson.plugins.analysis.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.digester3.Digester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.xml.sax.SAXException;
+
+import hudson.plugins.analysis.benchmark.AnnotationGenerator;
+import hudson.plugins.analysis.benchmark.AnnotationGenerator.GeneratedAnnotation;
+import hudson.plugins.analysis.benchmark.Scale;
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Compares {@link AbstractXmlAnnotationParser} with a parser that builds a
+ * digester object tree of the whole report before the annotations are
+ * created. The report uses the Checkstyle format. Run with
+ * <code>-prof gc</code> to compare the allocation rates.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class XmlParserBenchmark {
+    private static final String MODULE = "module";
+
+    /** The number of warnings in the report. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private byte[] report;
+    private final StaxParser staxParser = new StaxParser();
+    private final DigesterParser digesterParser = new DigesterParser();
+
+    /**
+     * Creates the report.
+     *
+     * @throws IOException
+     *             if the report could not be encoded
+     */
+    @Setup
+    public void createReport() throws IOException {
+        AnnotationGenerator generator = new AnnotationGenerator(Scale.files(warnings), Scale.SEED);
+        Map<String, List<FileAnnotation>> annotationsByFile = new TreeMap<String, List<FileAnnotation>>();
+        for (FileAnnotation annotation : generator.createAnnotations(warnings)) {
+            List<FileAnnotation> annotations = annotationsByFile.get(annotation.getFileName());
+            if (annotations == null) {
+                annotations = new ArrayList<FileAnnotation>();
+                annotationsByFile.put(annotation.getFileName(), annotations);
+            }
+            annotations.add(annotation);
+        }
+
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<checkstyle version=\"5.7\">\n");
+        for (Map.Entry<String, List<FileAnnotation>> file : annotationsByFile.entrySet()) {
+            xml.append("<file name=\"").append(file.getKey()).append("\">\n");
+            for (FileAnnotation annotation : file.getValue()) {
+                xml.append("<error line=\"").append(annotation.getPrimaryLineNumber())
+                        .append("\" severity=\"").append(toSeverity(annotation.getPriority()))
+                        .append("\" message=\"").append(annotation.getMessage())
+                        .append("\" source=\"").append(annotation.getCategory()).append('.').append(annotation.getType())
+                        .append("\"/>\n");
+            }
+            xml.append("</file>\n");
+        }
+        xml.append("</checkstyle>\n");
+        report = xml.toString().getBytes("UTF-8");
+    }
+
+    private String toSeverity(final Priority priority) {
+        switch (priority) {
+            case HIGH:
+                return "error";
+            case LOW:
+                return "info";
+            default:
+                return "warning";
+        }
+    }
+
+    /**
+     * Parses the report with the StAX based parser, annotations are counted
+     * as soon as they are created.
+     *
+     * @return the number of annotations
+     * @throws InvocationTargetException
+     *             if the report could not be parsed
+     */
+    @Benchmark
+    public int parseWithStax() throws InvocationTargetException {
+        final int[] count = new int[1];
+        staxParser.parse(new ByteArrayInputStream(report), MODULE, new AnnotationSink() {
+            public void add(final FileAnnotation annotation) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Parses the report with the digester based parser.
+     *
+     * @return the number of annotations
+     * @throws InvocationTargetException
+     *             if the report could not be parsed
+     */
+    @Benchmark
+    public int parseWithDigester() throws InvocationTargetException {
+        return digesterParser.parse(new ByteArrayInputStream(report), MODULE).size();
+    }
+
+    /**
+     * Maps the elements of a Checkstyle report.
+     */
+    private static class StaxParser extends AbstractXmlAnnotationParser {
+        private static final long serialVersionUID = 1290532475862730593L;
+
+        StaxParser() {
+            super("UTF-8", new XmlElementMapping("error")
+                    .fileName("../@name")
+                    .line("@line")
+                    .priority("@severity")
+                    .priority("error", Priority.HIGH)
+                    .priority("warning", Priority.NORMAL)
+                    .priority("info", Priority.LOW)
+                    .message("@message")
+                    .category("@source")
+                    .type("@source"));
+        }
+
+        @Override
+        protected AbstractAnnotation createAnnotation(final Priority priority, final String message, final int start,
+                final int end, final String category, final String type) {
+            return new GeneratedAnnotation(priority, message, start, end, category, type);
+        }
+    }
+
+    /**
+     * Creates the object tree of a Checkstyle report with a digester and
+     * converts it to annotations afterwards.
+     */
+    private static class DigesterParser extends AbstractAnnotationParser {
+        private static final long serialVersionUID = -3218794370521834569L;
+
+        DigesterParser() {
+            super("UTF-8");
+        }
+
+        @Override
+        public Collection<FileAnnotation> parse(final InputStream file, final String moduleName) throws InvocationTargetException {
+            try {
+                Digester digester = new Digester();
+                digester.setValidating(false);
+                digester.setClassLoader(DigesterParser.class.getClassLoader());
+
+                digester.addObjectCreate("checkstyle", Report.class);
+                digester.addObjectCreate("checkstyle/file", ReportFile.class);
+                digester.addSetProperties("checkstyle/file");
+                digester.addSetNext("checkstyle/file", "addFile", ReportFile.class.getName());
+                digester.addObjectCreate("checkstyle/file/error", ReportError.class);
+                digester.addSetProperties("checkstyle/file/error");
+                digester.addSetNext("checkstyle/file/error", "addError", ReportError.class.getName());
+
+                Report report = digester.parse(file);
+
+                List<FileAnnotation> annotations = new ArrayList<FileAnnotation>();
+                for (ReportFile reportFile : report.getFiles()) {
+                    for (ReportError error : reportFile.getErrors()) {
+                        GeneratedAnnotation annotation = new GeneratedAnnotation(toPriority(error.getSeverity()),
+                                error.getMessage(), error.getLine(), error.getLine(), error.getSource(), error.getSource());
+                        annotation.setFileName(reportFile.getName());
+                        annotation.setModuleName(moduleName);
+                        annotations.add(annotation);
+                    }
+                }
+                return annotations;
+            }
+            catch (IOException exception) {
+                throw new InvocationTargetException(exception);
+            }
+            catch (SAXException exception) {
+                throw new InvocationTargetException(exception);
+            }
+        }
+
+        private Priority toPriority(final String severity) {
+            if ("error".equals(severity)) {
+                return Priority.HIGH;
+            }
+            else if ("info".equals(severity)) {
+                return Priority.LOW;
+            }
+            return Priority.NORMAL;
+        }
+    }
+
+    // CHECKSTYLE:OFF
+
+    /** Root of the digester object tree. */
+    public static class Report {
+        private final List<ReportFile> files = new ArrayList<ReportFile>();
+
+        public void addFile(final ReportFile file) {
+            files.add(file);
+        }
+
+        public List<ReportFile> getFiles() {
+            return files;
+        }
+    }
+
+    /** A file of the digester object tree. */
+    public static class ReportFile {
+        private String name;
+        private final List<ReportError> errors = new ArrayList<ReportError>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public void addError(final ReportError error) {
+            errors.add(error);
+        }
+
+        public List<ReportError> getErrors() {
+            return errors;
+        }
+    }
+
+    /** An error of the digester object tree. */
+    public static class ReportError {
+        private int line;
+        private String severity;
+        private String message;
+        private String source;
+
+        public int getLine() {
+            return line;
+        }
+
+        public void setLine(final int line) {
+            this.line = line;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public void setSeverity(final String severity) {
+            this.severity = severity;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(final String message) {
+            this.message = message;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public void setSource(final String source) {
+            this.source = source;
+        }
+    }
+
+    // CHECKSTYLE:ON
+}
@@ -0,0 +1,86 @@
+package hudson.plugins.analysis.graph;
+
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+import org.jfree.chart.JFreeChart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hudson.model.AbstractBuild;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Measures the construction of the series and the data set of a
+ * {@link CategoryBuildResultGraph}. The build history is created with mocks,
+ * so the absolute numbers contain the overhead of the mock invocations.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CategoryBuildResultGraphBenchmark {
+    /** The number of builds in the history. */
+    @Param({"100", "1000"})
+    public int builds;
+
+    private ResultAction<BuildResult> action;
+    private GraphConfiguration configuration;
+    private CategoryBuildResultGraph graph;
+
+    /**
+     * Creates the build history.
+     */
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void createHistory() {
+        System.setProperty("java.awt.headless", "true");
+
+        BuildResult previous = null;
+        for (int number = 1; number <= builds; number++) {
+            BuildResult result = mock(BuildResult.class);
+            when(result.getNumberOfAnnotations(Priority.HIGH)).thenReturn(number % 17);
+            when(result.getNumberOfAnnotations(Priority.NORMAL)).thenReturn(number % 101);
+            when(result.getNumberOfAnnotations(Priority.LOW)).thenReturn(number % 313);
+            when(result.hasPreviousResult()).thenReturn(previous != null);
+            when(result.getPreviousResult()).thenReturn(previous);
+
+            AbstractBuild build = mock(AbstractBuild.class);
+            when(build.getTimestamp()).thenReturn(new GregorianCalendar(2010, 0, 1 + number));
+            when(build.getNumber()).thenReturn(number);
+            when(build.getDisplayName()).thenReturn("#" + number);
+            when(result.getOwner()).thenReturn(build);
+
+            previous = result;
+        }
+
+        action = mock(ResultAction.class);
+        when(action.getResult()).thenReturn(previous);
+
+        configuration = new GraphConfiguration(new ArrayList<BuildResultGraph>());
+        graph = new PriorityGraph();
+    }
+
+    /**
+     * Creates the chart of the priority graph.
+     *
+     * @return the chart
+     */
+    @Benchmark
+    public JFreeChart createChart() {
+        return graph.createChart(configuration, action);
+    }
+}
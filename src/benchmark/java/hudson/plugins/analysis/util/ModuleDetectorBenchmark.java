@@ -0,0 +1,88 @@
+package hudson.plugins.analysis.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hudson.plugins.analysis.benchmark.AnnotationGenerator;
+import hudson.plugins.analysis.benchmark.Scale;
+
+/**
+ * Measures {@link ModuleDetector#guessModuleName(String)} for the files of all
+ * warnings. The workspace contains a pom.xml in the root and in each module.
+ * The module descriptors are provided by an in memory factory, so only the
+ * lookup is measured.
+ *
+ * @author Ulli Hafner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModuleDetectorBenchmark {
+    private static final String POM = "/pom.xml";
+
+    /** The number of warnings. */
+    @Param({"10000", "100000", "1000000"})
+    public int warnings;
+
+    private String[] fileNames;
+    private ModuleDetector detector;
+
+    /**
+     * Creates the detector and the file names.
+     */
+    @Setup
+    public void createDetector() {
+        AnnotationGenerator generator = new AnnotationGenerator(Scale.files(warnings), Scale.SEED);
+        String[] files = generator.getFiles();
+        fileNames = new String[warnings];
+        for (int i = 0; i < warnings; i++) {
+            fileNames[i] = files[i % files.length];
+        }
+
+        final Set<String> poms = new LinkedHashSet<String>();
+        poms.add("pom.xml");
+        for (String module : generator.getModules()) {
+            poms.add(module + POM);
+        }
+        detector = new ModuleDetector(new File(AnnotationGenerator.WORKSPACE), new FileInputStreamFactory() {
+            public InputStream create(final String fileName) {
+                String name = fileName.substring(0, fileName.length() - POM.length());
+                return new ByteArrayInputStream(("<project><name>" + name.substring(name.lastIndexOf('/') + 1)
+                        + "</name></project>").getBytes());
+            }
+
+            public String[] find(final File root, final String pattern) {
+                return poms.toArray(new String[poms.size()]);
+            }
+        });
+    }
+
+    /**
+     * Guesses the module names of all files.
+     *
+     * @return the number of files with a module
+     */
+    @Benchmark
+    public int guessModuleNames() {
+        int count = 0;
+        for (String fileName : fileNames) {
+            if (detector.guessModuleName(fileName).length() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -389,7 +389,9 @@ public abstract class AbstractProjectAction<T extends ResultAction<?>> implement
     }
 
     /**
-     * Returns the last finished build.
+     * Returns the last finished build. The build is cached in the
+     * {@link LastFinishedBuildCache}, so the builds of the project need to be
+     * visited only after a newer build has been completed.
      *
      * @return the last finished build or <code>null</code> if there is no
      *         such build
@@ -399,11 +401,19 @@ public abstract class AbstractProjectAction<T extends ResultAction<?>> implement
         if (project == null) {
             return null;
         }
-        AbstractBuild<?, ?> lastBuild = project.getLastBuild();
-        while (lastBuild != null && (lastBuild.isBuilding() || getResultAction(lastBuild) == null)) {
-            lastBuild = lastBuild.getPreviousBuild();
-        }
-        return lastBuild;
+        return LastFinishedBuildCache.getLastFinishedBuild(this);
+    }
+
+    /**
+     * Returns whether the specified build is finished and has a result of
+     * this action.
+     *
+     * @param build
+     *            the build to check
+     * @return <code>true</code> if the build is finished and has a result
+     */
+    boolean isFinishedWithResult(final AbstractBuild<?, ?> build) {
+        return !build.isBuilding() && getResultAction(build) != null;
     }
 
     /**
@@ -39,6 +39,12 @@ public abstract class AbstractResultAction<T extends BuildResult> implements Sta
     private final AbstractHealthDescriptor healthDescriptor;
     /** The actual result of this action. */
     private T result;
+    /**
+     * The health of the result, computed when the result has been set.
+     *
+     * @since 1.55
+     */
+    private HealthSnapshot healthSnapshot;
 
     /**
      * Creates a new instance of <code>AbstractResultAction</code>.
@@ -54,6 +60,8 @@ public abstract class AbstractResultAction<T extends BuildResult> implements Sta
         this.owner = owner;
         this.result = result;
         this.healthDescriptor = healthDescriptor;
+
+        updateHealthSnapshot();
     }
 
     /**
@@ -82,9 +90,34 @@ public abstract class AbstractResultAction<T extends BuildResult> implements Sta
         return getDescriptor().getPluginResultUrlName();
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The health report is created from the health snapshot that has been
+     * computed when the result has been set. The snapshot is recomputed only
+     * if the health configuration has been changed afterwards.
+     * </p>
+     */
     public final HealthReport getBuildHealth() {
-        return new HealthReportBuilder(getHealthDescriptor()).computeHealth(getResult());
+        AbstractHealthDescriptor descriptor = getHealthDescriptor();
+        HealthSnapshot snapshot = healthSnapshot;
+        if (snapshot == null || !snapshot.isValidFor(descriptor)) {
+            snapshot = updateHealthSnapshot();
+            if (snapshot == null) {
+                return null;
+            }
+        }
+        return snapshot.createHealthReport(descriptor, getResult());
+    }
+
+    private HealthSnapshot updateHealthSnapshot() {
+        if (result == null) {
+            healthSnapshot = null;
+        }
+        else {
+            healthSnapshot = new HealthReportBuilder(getHealthDescriptor()).computeSnapshot(result);
+        }
+        return healthSnapshot;
     }
 
     /** {@inheritDoc} */
@@ -119,6 +152,8 @@ public abstract class AbstractResultAction<T extends BuildResult> implements Sta
     /** {@inheritDoc} */
     public final void setResult(final T result) {
         this.result = result;
+
+        updateHealthSnapshot();
     }
 
     /** {@inheritDoc} */
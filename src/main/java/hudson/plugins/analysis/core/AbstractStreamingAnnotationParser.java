@@ -0,0 +1,93 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * A base class for parsers that work on files and push the found annotations
+ * into an {@link AnnotationSink}. Clients of the collection based
+ * {@link AnnotationParser} contract still get all annotations as a
+ * collection.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public abstract class AbstractStreamingAnnotationParser extends AbstractAnnotationParser
+        implements StreamingAnnotationParser {
+    private static final long serialVersionUID = 2938156738364071547L;
+
+    /**
+     * Creates a new instance of {@link AbstractStreamingAnnotationParser}.
+     *
+     * @param defaultEncoding
+     *            the default encoding to be used when reading and parsing files
+     */
+    protected AbstractStreamingAnnotationParser(final String defaultEncoding) {
+        super(defaultEncoding);
+    }
+
+    /** {@inheritDoc} */
+    public void parse(final File file, final String moduleName, final AnnotationSink sink) throws InvocationTargetException {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            parse(input, moduleName, sink);
+        }
+        catch (FileNotFoundException exception) {
+            throw new InvocationTargetException(exception);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Returns the annotations found in the specified file. The annotations are
+     * collected from {@link #parse(InputStream, String, AnnotationSink)}.
+     *
+     * @param file
+     *            the file to parse
+     * @param moduleName
+     *            name of the maven module
+     * @return the found annotations
+     * @throws InvocationTargetException
+     *             if the file could not be parsed
+     */
+    @Override
+    public Collection<FileAnnotation> parse(final InputStream file, final String moduleName) throws InvocationTargetException {
+        final List<FileAnnotation> annotations = new ArrayList<FileAnnotation>();
+        parse(file, moduleName, new AnnotationSink() {
+            public void add(final FileAnnotation annotation) {
+                annotations.add(annotation);
+            }
+        });
+        return annotations;
+    }
+
+    /**
+     * Parses the specified file and adds the found annotations to the
+     * specified sink.
+     *
+     * @param file
+     *            the file to parse
+     * @param moduleName
+     *            name of the maven module
+     * @param sink
+     *            the sink to add the annotations to
+     * @throws InvocationTargetException
+     *             if the file could not be parsed (wrap your exception in
+     *             this exception)
+     */
+    public abstract void parse(final InputStream file, final String moduleName, final AnnotationSink sink)
+            throws InvocationTargetException;
+}
@@ -0,0 +1,210 @@
+package hudson.plugins.analysis.core;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang.StringUtils;
+
+import hudson.plugins.analysis.util.XmlStreams;
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * A base class for parsers of XML reports. The report is read with a StAX
+ * reader, the elements that should be mapped to annotations are described by
+ * {@link XmlElementMapping}s. Each annotation is added to the sink as soon as
+ * its element is closed. Only the attributes of the open elements and the
+ * children of the currently mapped element are kept in memory, so the memory
+ * used while parsing is bounded by the size of an element rather than the size
+ * of the report.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public abstract class AbstractXmlAnnotationParser extends AbstractStreamingAnnotationParser {
+    private static final long serialVersionUID = -6213419325960475620L;
+
+    private final Map<String, XmlElementMapping> mappings = new HashMap<String, XmlElementMapping>();
+
+    /**
+     * Creates a new instance of {@link AbstractXmlAnnotationParser}.
+     *
+     * @param defaultEncoding
+     *            the default encoding to be used when reading and parsing files
+     * @param elementMappings
+     *            the mappings of the elements that are converted to annotations
+     */
+    protected AbstractXmlAnnotationParser(final String defaultEncoding, final XmlElementMapping... elementMappings) {
+        super(defaultEncoding);
+
+        for (XmlElementMapping mapping : elementMappings) {
+            mappings.put(mapping.getElement(), mapping);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void parse(final InputStream file, final String moduleName, final AnnotationSink sink) throws InvocationTargetException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XmlStreams.createReader(file);
+            Element current = null;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        current = new Element(reader, current, mappings.get(reader.getLocalName()));
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (current != null) {
+                            current.append(reader);
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (current.mapping != null) {
+                            AbstractAnnotation annotation = createAnnotation(current, moduleName);
+                            if (annotation != null) {
+                                sink.add(annotation);
+                            }
+                        }
+                        else if (current.parent != null) {
+                            current.parent.addChild(current);
+                        }
+                        current = current.parent;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        catch (XMLStreamException exception) {
+            throw new InvocationTargetException(exception);
+        }
+        finally {
+            XmlStreams.closeQuietly(reader);
+        }
+    }
+
+    private AbstractAnnotation createAnnotation(final Element element, final String moduleName) {
+        XmlElementMapping mapping = element.mapping;
+        String fileName = element.resolve(mapping.getFileName());
+        if (StringUtils.isBlank(fileName)) {
+            return null;
+        }
+        int start = toLine(element.resolve(mapping.getLine()));
+        int end = mapping.getEndLine() == null ? start : toLine(element.resolve(mapping.getEndLine()));
+
+        AbstractAnnotation annotation = createAnnotation(
+                mapping.toPriority(element.resolve(mapping.getPriority())),
+                StringUtils.defaultString(element.resolve(mapping.getMessage())), start, end,
+                StringUtils.defaultString(element.resolve(mapping.getCategory())),
+                StringUtils.defaultString(element.resolve(mapping.getType())));
+        annotation.setFileName(fileName.trim());
+        annotation.setModuleName(moduleName);
+        String packageName = element.resolve(mapping.getPackageName());
+        if (StringUtils.isNotBlank(packageName)) {
+            annotation.setPackageName(packageName.trim());
+        }
+        return annotation;
+    }
+
+    private int toLine(final String value) {
+        try {
+            return value == null ? 0 : Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException exception) {
+            return 0;
+        }
+    }
+
+    /**
+     * Creates a new annotation for a mapped element. File, module and package
+     * names are set by this parser.
+     *
+     * @param priority
+     *            the priority
+     * @param message
+     *            the message of the warning
+     * @param start
+     *            the first line of the line range
+     * @param end
+     *            the last line of the line range
+     * @param category
+     *            the category of the annotation
+     * @param type
+     *            the type of the annotation
+     * @return the annotation
+     */
+    protected abstract AbstractAnnotation createAnnotation(Priority priority, String message, int start, int end,
+            String category, String type);
+
+    /**
+     * An open element of the report. The text and the children are only
+     * recorded for mapped elements and their direct children.
+     */
+    private static final class Element {
+        private final String name;
+        private final Element parent;
+        private final XmlElementMapping mapping;
+        private final Map<String, String> attributes;
+        private StringBuilder text;
+        private Map<String, Element> children;
+
+        Element(final XMLStreamReader reader, final Element parent, final XmlElementMapping mapping) {
+            name = reader.getLocalName();
+            this.parent = parent;
+            this.mapping = mapping;
+
+            int count = reader.getAttributeCount();
+            attributes = new HashMap<String, String>(count * 2);
+            for (int i = 0; i < count; i++) {
+                attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+            if (mapping != null || parent != null && parent.mapping != null) {
+                text = new StringBuilder();
+            }
+        }
+
+        void append(final XMLStreamReader reader) {
+            if (text != null) {
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+
+        void addChild(final Element child) {
+            if (mapping != null) {
+                if (children == null) {
+                    children = new HashMap<String, Element>();
+                }
+                if (!children.containsKey(child.name)) {
+                    children.put(child.name, child);
+                }
+            }
+        }
+
+        String resolve(final String path) {
+            if (path == null) {
+                return null;
+            }
+            if (path.startsWith("../")) {
+                return parent == null ? null : parent.resolve(path.substring(3));
+            }
+            if (path.charAt(0) == '@') {
+                return attributes.get(path.substring(1));
+            }
+            if ("text()".equals(path)) {
+                return text == null ? null : text.toString().trim();
+            }
+            int separator = path.indexOf('/');
+            Element child = children == null ? null : children.get(path.substring(0, separator));
+
+            return child == null ? null : child.resolve(path.substring(separator + 1));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package hudson.plugins.analysis.core;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Immutable number of annotations, in total and for each priority. Used to
+ * evaluate the thresholds of a build without iterating the annotations.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public final class AnnotationCounts implements Serializable {
+    private static final long serialVersionUID = 2946358221480212593L;
+
+    private final int total;
+    private final int high;
+    private final int normal;
+    private final int low;
+
+    /**
+     * Creates a new instance of {@link AnnotationCounts}.
+     *
+     * @param total
+     *            the total number of annotations
+     * @param high
+     *            the number of annotations with priority high
+     * @param normal
+     *            the number of annotations with priority normal
+     * @param low
+     *            the number of annotations with priority low
+     */
+    public AnnotationCounts(final int total, final int high, final int normal, final int low) {
+        this.total = total;
+        this.high = high;
+        this.normal = normal;
+        this.low = low;
+    }
+
+    /**
+     * Counts the specified annotations in a single pass. Duplicates are
+     * counted only once, just like {@link ParserResult} does.
+     *
+     * @param annotations
+     *            the annotations to count
+     * @return the counts of the annotations
+     */
+    public static AnnotationCounts count(final Collection<? extends FileAnnotation> annotations) {
+        Collection<? extends FileAnnotation> unique = annotations;
+        if (!(annotations instanceof Set)) {
+            unique = new HashSet<FileAnnotation>(annotations);
+        }
+
+        int high = 0;
+        int normal = 0;
+        int low = 0;
+        for (FileAnnotation annotation : unique) {
+            if (annotation.getPriority() == Priority.HIGH) {
+                high++;
+            }
+            else if (annotation.getPriority() == Priority.NORMAL) {
+                normal++;
+            }
+            else if (annotation.getPriority() == Priority.LOW) {
+                low++;
+            }
+        }
+        return new AnnotationCounts(high + normal + low, high, normal, low);
+    }
+
+    /**
+     * Returns the total number of annotations.
+     *
+     * @return the total number of annotations
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the number of annotations of the specified priority.
+     *
+     * @param priority
+     *            the priority
+     * @return the number of annotations of the specified priority
+     */
+    public int get(final Priority priority) {
+        if (priority == Priority.HIGH) {
+            return high;
+        }
+        else if (priority == Priority.NORMAL) {
+            return normal;
+        }
+        else {
+            return low;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d (high: %d, normal: %d, low: %d)", total, high, normal, low);
+    }
+}
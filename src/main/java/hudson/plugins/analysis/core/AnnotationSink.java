@@ -0,0 +1,20 @@
+package hudson.plugins.analysis.core;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Receives the annotations of a {@link StreamingAnnotationParser} one by one,
+ * as soon as they have been parsed.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public interface AnnotationSink {
+    /**
+     * Adds the specified annotation.
+     *
+     * @param annotation
+     *            the parsed annotation
+     */
+    void add(FileAnnotation annotation);
+}
@@ -13,6 +13,9 @@ import hudson.remoting.VirtualChannel;
 /**
  * Reads the content of each file with warnings and creates a unique hash code
  * of the warning to enable a more flexible new and fixed warnings detection.
+ * Note that the whole result is transferred to the agent and back. Use
+ * {@link ContextHashCalculator#assign(hudson.FilePath, ParserResult, String)}
+ * to transfer only the lines of the warnings and the hash codes.
  *
  * @author Ulli Hafner
  */
@@ -39,6 +42,7 @@ public class AnnotationsClassifier implements FileCallable<ParserResult> {
 
     /** {@inheritDoc} */
     public ParserResult invoke(final File workspace, final VirtualChannel channel) throws IOException {
+        long start = System.nanoTime();
         ContextHashCode contextHashCode = new ContextHashCode();
         for (FileAnnotation annotation : result.getAnnotations()) {
             try {
@@ -49,6 +53,8 @@ public class AnnotationsClassifier implements FileCallable<ParserResult> {
                 // ignore and continue
             }
         }
+        result.getTimings().record(PhaseTimings.CONTEXT_HASHING, start, result.getNumberOfAnnotations());
+
         return result;
     }
 }
\ No newline at end of file
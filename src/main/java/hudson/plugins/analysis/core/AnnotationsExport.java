@@ -0,0 +1,320 @@
+package hudson.plugins.analysis.core;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServletResponse;
+
+import net.sf.json.util.JSONUtils;
+
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.plugins.analysis.util.model.AnnotationsFile;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Exports the annotations of a build page by page as JSON or CSV. The
+ * annotations are read from the data file of the build and written one by
+ * one, so neither the {@link hudson.plugins.analysis.util.model.JavaProject}
+ * of the build nor the response are held in memory. The following request
+ * parameters are supported:
+ * <ul>
+ * <li><code>format</code>: <code>json</code> (default) or <code>csv</code></li>
+ * <li><code>cursor</code>: the position of the first annotation in the data
+ * file of the build, the annotations before this position are skipped. The
+ * JSON response contains the cursor of the next page or
+ * <code>null</code> if there are no more annotations. Unfiltered CSV exports
+ * could be paged by adding the limit to the cursor; filtered exports need the
+ * cursor of the JSON response.</li>
+ * <li><code>limit</code>: the maximum number of annotations of a page</li>
+ * <li><code>priority</code>, <code>module</code>, <code>package</code>,
+ * <code>file</code>, <code>category</code>, and <code>type</code>: only
+ * annotations with the specified property are exported</li>
+ * </ul>
+ * If the annotations could not be read, then the response has the status 500.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class AnnotationsExport {
+    /** The number of annotations of a page if no limit is given. */
+    static final int DEFAULT_LIMIT = 100;
+    /** The maximum number of annotations of a page. */
+    static final int MAX_LIMIT = 10000;
+
+    private static final String[] COLUMNS = {"key", "priority", "fileName", "primaryLineNumber",
+        "moduleName", "packageName", "category", "type", "message"};
+    private static final int KEY = 0;
+    private static final int LINE = 3;
+
+    private final BuildResult result;
+
+    /**
+     * Creates a new instance of {@link AnnotationsExport}.
+     *
+     * @param result
+     *            the result to export the annotations of
+     */
+    public AnnotationsExport(final BuildResult result) {
+        this.result = result;
+    }
+
+    /**
+     * Writes the requested page of annotations to the response.
+     *
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             if the response could not be written
+     */
+    public void doIndex(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        Filter filter = new Filter(request.getParameter("priority"), request.getParameter("module"),
+                request.getParameter("package"), request.getParameter("file"),
+                request.getParameter("category"), request.getParameter("type"));
+        int cursor = Math.max(0, toInt(request.getParameter("cursor"), 0));
+        int limit = Math.min(MAX_LIMIT, Math.max(1, toInt(request.getParameter("limit"), DEFAULT_LIMIT)));
+        boolean isCsv = "csv".equalsIgnoreCase(request.getParameter("format"));
+
+        response.setContentType(isCsv ? "text/csv;charset=UTF-8" : "application/json;charset=UTF-8");
+        PrintWriter writer = response.getWriter();
+        try {
+            PageWriter page = isCsv ? new CsvPageWriter(writer) : new JsonPageWriter(writer);
+            result.visitAnnotations(new PageVisitor(filter, cursor, limit, page), cursor);
+            page.finish();
+        }
+        catch (IOException exception) {
+            if (response.isCommitted()) {
+                throw exception; // the client will see an incomplete page
+            }
+            response.resetBuffer();
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    "Can't read the annotations of the build: " + exception.getMessage());
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static int toInt(final String value, final int defaultValue) {
+        try {
+            return StringUtils.isBlank(value) ? defaultValue : Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException exception) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Selects the annotations that match all of the specified properties.
+     * Properties that are <code>null</code> or empty match all annotations.
+     */
+    static class Filter {
+        private final Priority priority;
+        private final String module;
+        private final String packageName;
+        private final String file;
+        private final String category;
+        private final String type;
+
+        // CHECKSTYLE:OFF
+        Filter(final String priority, final String module, final String packageName, final String file,
+                final String category, final String type) {
+            this.priority = StringUtils.isBlank(priority) ? null : Priority.fromString(priority);
+            this.module = module;
+            this.packageName = packageName;
+            this.file = file;
+            this.category = category;
+            this.type = type;
+        }
+        // CHECKSTYLE:ON
+
+        boolean matches(final FileAnnotation annotation) {
+            return (priority == null || priority == annotation.getPriority())
+                    && matches(module, annotation.getModuleName())
+                    && matches(packageName, annotation.getPackageName())
+                    && (matches(file, annotation.getFileName()) || matches(file, annotation.getShortFileName()))
+                    && matches(category, annotation.getCategory())
+                    && matches(type, annotation.getType());
+        }
+
+        private boolean matches(final String expected, final String actual) {
+            return StringUtils.isEmpty(expected) || expected.equals(actual);
+        }
+    }
+
+    /**
+     * Writes the matching annotations of the page, starting with the
+     * annotation at the position of the cursor, and stops reading as soon as
+     * the first matching annotation of the next page has been found.
+     */
+    static class PageVisitor implements AnnotationsFile.Visitor {
+        private final Filter filter;
+        private final int limit;
+        private final PageWriter page;
+        private int position;
+        private int count;
+
+        PageVisitor(final Filter filter, final int cursor, final int limit, final PageWriter page) {
+            this.filter = filter;
+            this.limit = limit;
+            this.page = page;
+            position = cursor;
+        }
+
+        /** {@inheritDoc} */
+        public boolean visit(final FileAnnotation annotation) {
+            int current = position++;
+            if (!filter.matches(annotation)) {
+                return true;
+            }
+            if (count == limit) {
+                page.setNextCursor(current);
+                return false;
+            }
+            page.write(annotation);
+            count++;
+            return true;
+        }
+    }
+
+    /**
+     * Writes a page of annotations.
+     */
+    abstract static class PageWriter {
+        private final PrintWriter writer;
+        private int count;
+        private int nextCursor = -1;
+
+        PageWriter(final PrintWriter writer) {
+            this.writer = writer;
+        }
+
+        /**
+         * Returns the writer of the response.
+         *
+         * @return the writer
+         */
+        protected PrintWriter getWriter() {
+            return writer;
+        }
+
+        void setNextCursor(final int cursor) {
+            nextCursor = cursor;
+        }
+
+        void write(final FileAnnotation annotation) {
+            String[] values = {String.valueOf(annotation.getKey()), annotation.getPriority().name(),
+                    annotation.getFileName(), String.valueOf(annotation.getPrimaryLineNumber()),
+                    annotation.getModuleName(), annotation.getPackageName(), annotation.getCategory(),
+                    annotation.getType(), annotation.getMessage()};
+            writeRow(count++, values);
+        }
+
+        /**
+         * Writes the values of an annotation.
+         *
+         * @param index
+         *            the index of the annotation within the page
+         * @param values
+         *            the values, in the order of {@link AnnotationsExport#COLUMNS}
+         */
+        protected abstract void writeRow(int index, String[] values);
+
+        /**
+         * Finishes the page.
+         *
+         * @param next
+         *            the cursor of the next page or -1 if there are no more
+         *            annotations
+         */
+        protected abstract void writeEnd(int next);
+
+        void finish() {
+            writeEnd(nextCursor);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes a page as a JSON object with the annotations and the cursor of
+     * the next page.
+     */
+    static class JsonPageWriter extends PageWriter {
+        JsonPageWriter(final PrintWriter writer) {
+            super(writer);
+
+            writer.write("{\"annotations\":[");
+        }
+
+        @Override
+        protected void writeRow(final int index, final String[] values) {
+            PrintWriter writer = getWriter();
+            writer.write(index == 0 ? "{" : ",{");
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(JSONUtils.quote(COLUMNS[i]));
+                writer.write(':');
+                if (i == KEY || i == LINE) {
+                    writer.write(values[i]);
+                }
+                else {
+                    writer.write(JSONUtils.quote(StringUtils.defaultString(values[i])));
+                }
+            }
+            writer.write('}');
+        }
+
+        @Override
+        protected void writeEnd(final int next) {
+            getWriter().write("],\"nextCursor\":");
+            getWriter().write(next < 0 ? "null" : String.valueOf(next));
+            getWriter().write('}');
+        }
+    }
+
+    /**
+     * Writes a page as comma separated values with a header row. Clients
+     * detect the last page by a page that contains less rows than requested.
+     */
+    static class CsvPageWriter extends PageWriter {
+        CsvPageWriter(final PrintWriter writer) {
+            super(writer);
+
+            writeLine(COLUMNS);
+        }
+
+        @Override
+        protected void writeRow(final int index, final String[] values) {
+            writeLine(values);
+        }
+
+        private void writeLine(final String[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    getWriter().write(',');
+                }
+                getWriter().write(escape(StringUtils.defaultString(values[i])));
+            }
+            getWriter().write("\r\n");
+        }
+
+        private String escape(final String value) {
+            if (StringUtils.containsNone(value, ",\"\r\n")) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        protected void writeEnd(final int next) {
+            // the end of a CSV page is the end of the response
+        }
+    }
+}
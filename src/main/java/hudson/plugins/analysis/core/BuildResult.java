@@ -10,6 +10,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,9 +37,11 @@ import hudson.model.Hudson;
 import hudson.plugins.analysis.Messages;
 import hudson.plugins.analysis.util.HtmlPrinter;
 import hudson.plugins.analysis.util.PluginLogger;
+import hudson.plugins.analysis.util.model.AnnotationArrayFile;
 import hudson.plugins.analysis.util.model.AnnotationContainer;
 import hudson.plugins.analysis.util.model.AnnotationProvider;
 import hudson.plugins.analysis.util.model.AnnotationStream;
+import hudson.plugins.analysis.util.model.AnnotationsFile;
 import hudson.plugins.analysis.util.model.FileAnnotation;
 import hudson.plugins.analysis.util.model.JavaProject;
 import hudson.plugins.analysis.util.model.MavenModule;
@@ -121,6 +124,31 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
     /** The number of high priority warnings in this build. */
     private int highWarnings;
 
+    /**
+     * The number of new low priority warnings in this build.
+     *
+     * @since 1.55
+     */
+    private int lowNewWarnings;
+    /**
+     * The number of new normal priority warnings in this build.
+     *
+     * @since 1.55
+     */
+    private int normalNewWarnings;
+    /**
+     * The number of new high priority warnings in this build.
+     *
+     * @since 1.55
+     */
+    private int highNewWarnings;
+    /**
+     * The timings of the phases that created this result.
+     *
+     * @since 1.55
+     */
+    private PhaseTimings timings;
+
     /** Determines since which build we have zero warnings. */
     private int zeroWarningsSinceBuild;
     /** Determines since which time we have zero warnings. */
@@ -268,15 +296,24 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         normalDelta = computeDelta(result, referenceResult, Priority.NORMAL);
         highDelta = computeDelta(result, referenceResult, Priority.HIGH);
 
+        timings = new PhaseTimings();
+        timings.addAll(result.getTimings());
+
         Set<FileAnnotation> allWarnings = result.getAnnotations();
 
+        long start = System.nanoTime();
         Set<FileAnnotation> newWarnings = AnnotationDifferencer.getNewAnnotations(allWarnings, referenceResult.getAnnotations());
         numberOfNewWarnings = newWarnings.size();
+        AnnotationCounts newCounts = AnnotationCounts.count(newWarnings);
+        highNewWarnings = newCounts.get(Priority.HIGH);
+        normalNewWarnings = newCounts.get(Priority.NORMAL);
+        lowNewWarnings = newCounts.get(Priority.LOW);
         newWarningsReference = new WeakReference<Collection<FileAnnotation>>(newWarnings);
 
         Set<FileAnnotation> fixedWarnings = AnnotationDifferencer.getFixedAnnotations(allWarnings, referenceResult.getAnnotations());
         numberOfFixedWarnings = fixedWarnings.size();
         fixedWarningsReference = new WeakReference<Collection<FileAnnotation>>(fixedWarnings);
+        timings.record(PhaseTimings.DIFFERENCING, start, allWarnings.size());
 
         highWarnings = result.getNumberOfAnnotations(Priority.HIGH);
         normalWarnings = result.getNumberOfAnnotations(Priority.NORMAL);
@@ -639,6 +676,7 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
      *            the annotations to store
      */
     protected void serializeAnnotations(final Collection<FileAnnotation> annotations) {
+        long start = System.nanoTime();
         try {
             Collection<FileAnnotation> files = annotations;
             getDataFile().write(files.toArray(new FileAnnotation[files.size()]));
@@ -646,6 +684,174 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         catch (IOException exception) {
             LOGGER.log(Level.SEVERE, "Failed to serialize the annotations of the build.", exception);
         }
+        getTimings().record(PhaseTimings.SERIALIZATION, start, annotations.size(), getDataFile().getFile().length());
+    }
+
+    /**
+     * Returns the timings of the phases that created this result.
+     *
+     * @return the timings
+     * @since 1.55
+     */
+    @Exported
+    public PhaseTimings getTimings() {
+        if (timings == null) {
+            timings = new PhaseTimings(); // NOPMD: results of older versions
+        }
+        return timings;
+    }
+
+    /**
+     * Returns the file that stores the new warnings of this build as a stream
+     * of annotations. The file is written when the new warnings are visited
+     * for the first time, see {@link #visitNewWarnings(AnnotationsFile.Visitor)}.
+     *
+     * @return the file of the new warnings
+     * @since 1.55
+     */
+    public final AnnotationsFile getNewWarningsFile() {
+        return createAnnotationsFile("new");
+    }
+
+    /**
+     * Returns the file that stores the fixed warnings of this build as a
+     * stream of annotations. The file is written when the fixed warnings are
+     * visited for the first time, see
+     * {@link #visitFixedWarnings(AnnotationsFile.Visitor)}.
+     *
+     * @return the file of the fixed warnings
+     * @since 1.55
+     */
+    public final AnnotationsFile getFixedWarningsFile() {
+        return createAnnotationsFile("fixed");
+    }
+
+    private AnnotationsFile createAnnotationsFile(final String suffix) {
+        String fileName = StringUtils.removeEnd(getSerializationFileName(), ".xml") + "-" + suffix + ".xml";
+
+        return new AnnotationsFile(getXStream(), new File(getOwner().getRootDir(), fileName));
+    }
+
+    /**
+     * Passes all annotations of this build one by one to the specified
+     * visitor. The annotations are read from the file specified by method
+     * {@link #getDataFile()} in the order they have been stored, so no
+     * {@link JavaProject} needs to be created for this build.
+     *
+     * @param visitor
+     *            the visitor to pass the annotations to
+     * @since 1.55
+     */
+    public void visitAnnotations(final AnnotationsFile.Visitor visitor) {
+        try {
+            visitAnnotations(visitor, 0);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to read " + getDataFile(), exception);
+        }
+    }
+
+    /**
+     * Passes the annotations of this build one by one to the specified
+     * visitor, starting with the annotation at the specified position in the
+     * file specified by method {@link #getDataFile()}.
+     *
+     * @param visitor
+     *            the visitor to pass the annotations to
+     * @param first
+     *            the position of the first annotation to visit
+     * @throws IOException
+     *             if the annotations could not be read
+     * @since 1.55
+     */
+    public void visitAnnotations(final AnnotationsFile.Visitor visitor, final int first) throws IOException {
+        AnnotationArrayFile file = new AnnotationArrayFile(getXStream(), getDataFile().getFile());
+        if (file.exists()) {
+            file.read(visitor, first);
+        }
+    }
+
+    /**
+     * Passes the new warnings of this build one by one to the specified
+     * visitor. The first call computes the new warnings using
+     * {@link #getNewWarnings()} and writes them to the file
+     * {@link #getNewWarningsFile()}. Subsequent calls stream the warnings from
+     * this file, so neither the annotations of this build nor the annotations
+     * of the reference build need to be loaded again.
+     *
+     * @param visitor
+     *            the visitor to pass the warnings to
+     * @since 1.55
+     */
+    public void visitNewWarnings(final AnnotationsFile.Visitor visitor) {
+        visit(getNewWarningsFile(), visitor, true);
+    }
+
+    /**
+     * Passes the fixed warnings of this build one by one to the specified
+     * visitor. The first call computes the fixed warnings using
+     * {@link #getFixedWarnings()} and writes them to the file
+     * {@link #getFixedWarningsFile()}. Subsequent calls stream the warnings
+     * from this file, so neither the annotations of this build nor the
+     * annotations of the reference build need to be loaded again.
+     *
+     * @param visitor
+     *            the visitor to pass the warnings to
+     * @since 1.55
+     */
+    public void visitFixedWarnings(final AnnotationsFile.Visitor visitor) {
+        visit(getFixedWarningsFile(), visitor, false);
+    }
+
+    private void visit(final AnnotationsFile file, final AnnotationsFile.Visitor visitor, final boolean isNew) {
+        WeakReference<Collection<FileAnnotation>> reference = isNew ? newWarningsReference : fixedWarningsReference;
+        Collection<FileAnnotation> cached = reference == null ? null : reference.get();
+        if (cached == null && file.exists()) {
+            try {
+                file.read(visitor);
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to read " + file.getFile(), exception);
+            }
+            return;
+        }
+        if (cached == null) {
+            cached = isNew ? getNewWarnings() : getFixedWarnings();
+        }
+        if (!file.exists()) {
+            persist(file, cached);
+        }
+        for (FileAnnotation annotation : cached) {
+            if (!visitor.visit(annotation)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes the specified warnings to the specified file. If the post-build
+     * work is run asynchronously, then the file is written by the
+     * {@link PostBuildExecutor}. The file is replaced atomically, so
+     * concurrent readers either find the complete file or no file at all.
+     */
+    private void persist(final AnnotationsFile file, final Collection<FileAnnotation> warnings) {
+        if (PostBuildExecutor.isEnabled()) {
+            PostBuildExecutor.getInstance().submit("Persisting " + file.getFile(), new Callable<Void>() {
+                public Void call() throws IOException {
+                    file.write(warnings);
+
+                    return null;
+                }
+            });
+        }
+        else {
+            try {
+                file.write(warnings);
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to write " + file.getFile(), exception);
+            }
+        }
     }
 
     /**
@@ -894,6 +1100,7 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
             }
             JavaProject result = project.get();
             if (result == null) {
+                ResultLoadMetrics.getInstance().recordReferenceClear();
                 return loadResult();
             }
             return result;
@@ -907,11 +1114,18 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
      * @return the loaded result
      */
     private JavaProject loadResult() {
+        ResultLoadMetrics metrics = ResultLoadMetrics.getInstance();
+        long start = System.nanoTime();
+
         JavaProject result;
         try {
             JavaProject newProject = new JavaProject();
+            long bytes = getDataFile().getFile().length();
             FileAnnotation[] annotations = (FileAnnotation[])getDataFile().read();
+            metrics.recordDeserialization(start, bytes);
             newProject.addAnnotations(annotations);
+            metrics.recordRetained(getOwner().getProject().getFullName(), getOwner().getNumber(),
+                    annotations.length, bytes);
 
             LOGGER.log(Level.FINE, "Loaded data file " + getDataFile() + " for build " + getOwner().getNumber());
             result = newProject;
@@ -921,6 +1135,7 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
             result = new JavaProject();
         }
         project = new WeakReference<JavaProject>(result);
+        metrics.recordLoad(ResultLoadMetrics.LoadType.RESULT, start);
 
         return result;
     }
@@ -937,6 +1152,7 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         }
         Collection<FileAnnotation> result = newWarningsReference.get();
         if (result == null) {
+            ResultLoadMetrics.getInstance().recordReferenceClear();
             return loadNewWarnings();
         }
         return result;
@@ -950,8 +1166,10 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
      * @return the new warnings
      */
     private Collection<FileAnnotation> loadNewWarnings() {
+        long start = System.nanoTime();
         Collection<FileAnnotation> difference = history.getNewWarnings(getProject().getAnnotations());
         newWarningsReference = new WeakReference<Collection<FileAnnotation>>(difference);
+        ResultLoadMetrics.getInstance().recordLoad(ResultLoadMetrics.LoadType.NEW_WARNINGS, start);
 
         return difference;
     }
@@ -967,6 +1185,7 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         }
         Collection<FileAnnotation> result = fixedWarningsReference.get();
         if (result == null) {
+            ResultLoadMetrics.getInstance().recordReferenceClear();
             return loadFixedWarnings();
         }
         return result;
@@ -980,8 +1199,10 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
      * @return the fixed warnings
      */
     private Collection<FileAnnotation> loadFixedWarnings() {
+        long start = System.nanoTime();
         Collection<FileAnnotation> difference = history.getFixedWarnings(getProject().getAnnotations());
         fixedWarningsReference = new WeakReference<Collection<FileAnnotation>>(difference);
+        ResultLoadMetrics.getInstance().recordLoad(ResultLoadMetrics.LoadType.FIXED_WARNINGS, start);
 
         return difference;
     }
@@ -1037,6 +1258,16 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         return getProject();
     }
 
+    /**
+     * Returns the paged export of the annotations of this build.
+     *
+     * @return the export
+     * @since 1.55
+     */
+    public AnnotationsExport getExport() {
+        return new AnnotationsExport(this);
+    }
+
     /**
      * Gets the remote API for this build result.
      *
@@ -1109,17 +1340,17 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         BuildResultEvaluator resultEvaluator = new BuildResultEvaluator(url);
         Result buildResult;
         StringBuilder messages = new StringBuilder();
+        AnnotationCounts totals = new AnnotationCounts(numberOfWarnings, highWarnings, normalWarnings, lowWarnings);
         if (history.isEmpty() || !canComputeNew) {
             logger.log("Ignore new warnings since this is the first valid build");
-            buildResult = resultEvaluator.evaluateBuildResult(messages, thresholds, getAnnotations());
+            buildResult = resultEvaluator.evaluateBuildResult(messages, thresholds, totals);
         }
         else if (useDeltaValues) {
-            buildResult = resultEvaluator.evaluateBuildResult(messages, thresholds, getAnnotations(),
-                    getDelta(), getHighDelta(), getNormalDelta(), getLowDelta());
+            buildResult = resultEvaluator.evaluateBuildResult(messages, thresholds, totals,
+                    new AnnotationCounts(delta, highDelta, normalDelta, lowDelta));
         }
         else {
-            buildResult = resultEvaluator.evaluateBuildResult(messages, thresholds,
-                    getAnnotations(), getNewWarnings());
+            buildResult = resultEvaluator.evaluateBuildResult(messages, thresholds, totals, getNewWarningsCounts());
         }
         reason = messages.toString();
 
@@ -1128,6 +1359,20 @@ public abstract class BuildResult implements ModelObject, Serializable, Annotati
         logger.log(String.format("%s %s - %s", Messages.ResultAction_Status(), buildResult.color.getDescription(), getReason()));
     }
 
+    /**
+     * Returns the number of new warnings for each priority. Results that have
+     * been serialized before these counts were stored need to count the new
+     * warnings.
+     *
+     * @return the number of new warnings
+     */
+    private AnnotationCounts getNewWarningsCounts() {
+        if (highNewWarnings + normalNewWarnings + lowNewWarnings == numberOfNewWarnings) {
+            return new AnnotationCounts(numberOfNewWarnings, highNewWarnings, normalNewWarnings, lowNewWarnings);
+        }
+        return AnnotationCounts.count(getNewWarnings());
+    }
+
     // CHECKSTYLE:OFF
     /**
      * @deprecated use {@link #evaluateStatus(Thresholds, boolean, PluginLogger)}
@@ -43,14 +43,7 @@ public class BuildResultEvaluator {
      */
     public Result evaluateBuildResult(final StringBuilder logger, final Thresholds t,
             final Collection<? extends FileAnnotation> allAnnotations) {
-        if (checkAllWarningsForFailure(logger, t, allAnnotations)) {
-            return Result.FAILURE;
-        }
-        if (checkAllWarningsForUnstable(logger, t, allAnnotations)) {
-            return Result.UNSTABLE;
-        }
-
-        return logSuccess(logger);
+        return evaluateBuildResult(logger, t, AnnotationCounts.count(allAnnotations));
     }
 
     /**
@@ -76,20 +69,8 @@ public class BuildResultEvaluator {
     public Result evaluateBuildResult(final StringBuilder logger, final Thresholds t,
             final Collection<? extends FileAnnotation> allAnnotations,
             final int delta, final int highDelta, final int normalDelta, final int lowDelta) {
-        if (checkAllWarningsForFailure(logger, t, allAnnotations)) {
-            return Result.FAILURE;
-        }
-        if (checkFailedNew(logger, delta, highDelta, normalDelta, lowDelta, t)) {
-            return Result.FAILURE;
-        }
-        if (checkAllWarningsForUnstable(logger, t, allAnnotations)) {
-            return Result.UNSTABLE;
-        }
-        if (checkUnstableNew(logger, delta, highDelta, normalDelta, lowDelta, t)) {
-            return Result.UNSTABLE;
-        }
-
-        return logSuccess(logger);
+        return evaluateBuildResult(logger, t, AnnotationCounts.count(allAnnotations),
+                new AnnotationCounts(delta, highDelta, normalDelta, lowDelta));
     }
 
     /**
@@ -109,97 +90,103 @@ public class BuildResultEvaluator {
     public Result evaluateBuildResult(final StringBuilder logger, final Thresholds t,
             final Collection<? extends FileAnnotation> allAnnotations,
             final Collection<FileAnnotation> newAnnotations) {
-        if (checkAllWarningsForFailure(logger, t, allAnnotations)) {
+        return evaluateBuildResult(logger, t, AnnotationCounts.count(allAnnotations),
+                AnnotationCounts.count(newAnnotations));
+    }
+
+    /**
+     * Evaluates the build result using the precomputed number of annotations.
+     * The build is marked as unstable or failed if one of the thresholds for
+     * all annotations has been exceeded.
+     *
+     * @param logger
+     *            logs the results
+     * @param t
+     *            the thresholds
+     * @param totals
+     *            the number of all annotations
+     * @return the build result
+     * @since 1.55
+     */
+    public Result evaluateBuildResult(final StringBuilder logger, final Thresholds t, final AnnotationCounts totals) {
+        if (checkFailedTotal(logger, t, totals)) {
+            return Result.FAILURE;
+        }
+        if (checkUnstableTotal(logger, t, totals)) {
+            return Result.UNSTABLE;
+        }
+
+        return logSuccess(logger);
+    }
+
+    /**
+     * Evaluates the build result using the precomputed number of annotations.
+     * The build is marked as unstable or failed if one of the thresholds has
+     * been exceeded.
+     *
+     * @param logger
+     *            logs the results
+     * @param t
+     *            the thresholds
+     * @param totals
+     *            the number of all annotations
+     * @param newCounts
+     *            the number of new annotations (or the delta to the reference
+     *            build)
+     * @return the build result
+     * @since 1.55
+     */
+    public Result evaluateBuildResult(final StringBuilder logger, final Thresholds t, final AnnotationCounts totals,
+            final AnnotationCounts newCounts) {
+        if (checkFailedTotal(logger, t, totals)) {
             return Result.FAILURE;
         }
-        if (check(logger, newAnnotations, t.failedNewAll,
-                t.failedNewHigh, t.failedNewNormal, t.failedNewLow, false)) {
+        if (check(logger, newCounts, t.failedNewAll, t.failedNewHigh, t.failedNewNormal, t.failedNewLow, false)) {
             return Result.FAILURE;
         }
-        if (checkAllWarningsForUnstable(logger, t, allAnnotations)) {
+        if (checkUnstableTotal(logger, t, totals)) {
             return Result.UNSTABLE;
         }
-        if (check(logger, newAnnotations, t.unstableNewAll,
-                t.unstableNewHigh, t.unstableNewNormal, t.unstableNewLow, false)) {
+        if (check(logger, newCounts, t.unstableNewAll, t.unstableNewHigh, t.unstableNewNormal, t.unstableNewLow, false)) {
             return Result.UNSTABLE;
         }
 
         return logSuccess(logger);
     }
 
-    private boolean checkAllWarningsForUnstable(final StringBuilder logger, final Thresholds t,
-            final Collection<? extends FileAnnotation> allAnnotations) {
-        return check(logger, allAnnotations, t.unstableTotalAll,
+    private boolean checkUnstableTotal(final StringBuilder logger, final Thresholds t, final AnnotationCounts totals) {
+        return check(logger, totals, t.unstableTotalAll,
                 t.unstableTotalHigh, t.unstableTotalNormal, t.unstableTotalLow, true);
     }
 
-    private boolean checkAllWarningsForFailure(final StringBuilder logger, final Thresholds t,
-            final Collection<? extends FileAnnotation> allAnnotations) {
-        return check(logger, allAnnotations, t.failedTotalAll,
+    private boolean checkFailedTotal(final StringBuilder logger, final Thresholds t, final AnnotationCounts totals) {
+        return check(logger, totals, t.failedTotalAll,
                 t.failedTotalHigh, t.failedTotalNormal, t.failedTotalLow, true);
     }
 
-
     private Result logSuccess(final StringBuilder logger) {
         logger.append(Messages.BuildResultEvaluator_success());
 
         return Result.SUCCESS;
     }
 
-    private boolean check(final StringBuilder logger, final Collection<? extends FileAnnotation> annotations,
+    private boolean check(final StringBuilder logger, final AnnotationCounts counts,
             final String all, final String high, final String normal, final String low, final boolean isTotals) {
-        if (checkThresholds(logger, annotations, all, isTotals, Priority.HIGH, Priority.NORMAL, Priority.LOW)) {
-            return true;
-        }
-        if (checkThresholds(logger, annotations, high, isTotals, Priority.HIGH)) {
-            return true;
-        }
-        if (checkThresholds(logger, annotations, normal, isTotals, Priority.NORMAL)) {
-            return true;
-        }
-        if (checkThresholds(logger, annotations, low, isTotals, Priority.LOW)) {
-            return true;
-        }
-        return false;
-    }
-
-    private boolean checkFailedNew(final StringBuilder logger, final int delta, final int highDelta, final int normalDelta, final int lowDelta, final Thresholds t) {
-        if (checkThresholds(logger, delta, t.failedNewAll, false, Priority.HIGH, Priority.NORMAL, Priority.LOW)) {
-            return true;
-        }
-        if (checkThresholds(logger, highDelta, t.failedNewHigh, false, Priority.HIGH)) {
-            return true;
-        }
-        if (checkThresholds(logger, normalDelta, t.failedNewNormal, false, Priority.NORMAL)) {
-            return true;
-        }
-        if (checkThresholds(logger, lowDelta, t.failedNewLow, false, Priority.LOW)) {
-            return true;
-        }
-        return false;
-    }
-
-    private boolean checkUnstableNew(final StringBuilder logger, final int delta, final int highDelta, final int normalDelta, final int lowDelta, final Thresholds t) {
-        if (checkThresholds(logger, delta, t.unstableNewAll, false, Priority.HIGH, Priority.NORMAL, Priority.LOW)) {
+        if (checkThresholds(logger, counts.getTotal(), all, isTotals, Priority.HIGH, Priority.NORMAL, Priority.LOW)) {
             return true;
         }
-        if (checkThresholds(logger, highDelta, t.unstableNewHigh, false, Priority.HIGH)) {
+        if (checkThresholds(logger, counts.get(Priority.HIGH), high, isTotals, Priority.HIGH)) {
             return true;
         }
-        if (checkThresholds(logger, normalDelta, t.unstableNewNormal, false, Priority.NORMAL)) {
+        if (checkThresholds(logger, counts.get(Priority.NORMAL), normal, isTotals, Priority.NORMAL)) {
             return true;
         }
-        if (checkThresholds(logger, lowDelta, t.unstableNewLow, false, Priority.LOW)) {
+        if (checkThresholds(logger, counts.get(Priority.LOW), low, isTotals, Priority.LOW)) {
             return true;
         }
         return false;
     }
 
-    private boolean checkThresholds(final StringBuilder logger, final Collection<? extends FileAnnotation> allAnnotations,
-            final String threshold, final boolean isTotals, final Priority... priorities) {
-        return checkThresholds(logger, countAnnotations(allAnnotations, priorities), threshold, isTotals, priorities);
-    }
-
     private boolean checkThresholds(final StringBuilder logger, final int annotationCount,
             final String threshold, final boolean isTotals, final Priority... priorities) {
         if (isAnnotationCountExceeded(annotationCount, threshold)) {
@@ -274,26 +261,6 @@ public class BuildResultEvaluator {
         return url + "/" + priority.name();
     }
 
-    /**
-     * Extracts the relevant annotations from the specified collection of
-     * annotations. A annotation is relevant, if its priority is greater or
-     * equal than the minimum priority of the health descriptor.
-     *
-     * @param annotations
-     *            the annotations to consider
-     * @param priorities
-     *            the priorities to count
-     * @return the number of relevant annotations
-     */
-    private int countAnnotations(final Collection<? extends FileAnnotation> annotations, final Priority... priorities) {
-        ParserResult result = new ParserResult(annotations);
-        int annotationCount = 0;
-        for (Priority priority : priorities) {
-            annotationCount += result.getNumberOfAnnotations(priority);
-        }
-        return annotationCount;
-    }
-
     /**
      * Returns whether the new annotation count exceeds the user defined threshold
      * and the build should be set to unstable.
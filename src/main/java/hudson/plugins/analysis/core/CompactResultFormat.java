@@ -0,0 +1,601 @@
+package hudson.plugins.analysis.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+
+import hudson.plugins.analysis.core.PhaseTimings.Phase;
+import hudson.plugins.analysis.util.TreeString;
+import hudson.plugins.analysis.util.model.AnnotationStream;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.LineRange;
+import hudson.plugins.analysis.util.model.LineRangeList;
+
+/**
+ * Compact transfer format of a {@link ParserResult}. All strings are written
+ * only once and are referenced by their index in a string table, all numbers
+ * are written as variable length integers. The annotations are written in
+ * chunks, so the receiver can add the annotations of a chunk to its result
+ * while the following chunks are still being transferred. The cache of
+ * workspace files and the workspace of the result are not transferred.
+ * <p>
+ * Annotations are written field by field, in the same way as Java
+ * serialization would pick the fields. Only primitives, strings, tree
+ * strings, enumerations, and line ranges are supported, Java serialization
+ * is never used: the receiver only instantiates classes that implement
+ * {@link FileAnnotation}. If an annotation has custom serialization methods
+ * or fields of other types, then the writer stops and marks the stream as
+ * incomplete, the sender then needs to transfer the result in another way.
+ * </p>
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+final class CompactResultFormat {
+    /** The number of annotations in a chunk. */
+    static final int CHUNK_SIZE = 512;
+
+    private static final int MAGIC = 0x50524331;
+    private static final int VERSION = 2;
+
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int FIRST_INDEX = 2;
+
+    /** Replaces the size of a chunk if the remaining annotations can't be written. */
+    private static final int INCOMPLETE = -1;
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final Map<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<Class<?>, ClassLayout>();
+
+    private final Map<String, Integer> writtenStrings = new HashMap<String, Integer>();
+    private final List<String> readStrings = new ArrayList<String>();
+
+    /**
+     * Writes the specified result to the specified stream.
+     *
+     * @param result
+     *            the result to write
+     * @param output
+     *            the stream to write to, the stream will be flushed after
+     *            each chunk
+     * @return <code>true</code> if the result has been written,
+     *         <code>false</code> if the result contains annotations that
+     *         can't be written in this format
+     * @throws IOException
+     *             if the result could not be written
+     */
+    boolean write(final ParserResult result, final DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        writeVarLong(output, VERSION);
+
+        List<FileAnnotation> chunk = new ArrayList<FileAnnotation>(CHUNK_SIZE);
+        for (FileAnnotation annotation : result.getAnnotations()) {
+            chunk.add(annotation);
+            if (chunk.size() == CHUNK_SIZE) {
+                if (!writeChunk(chunk, output)) {
+                    return false;
+                }
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty() && !writeChunk(chunk, output)) {
+            return false;
+        }
+        writeVarLong(output, 0);
+
+        writeStrings(result.getErrorMessages(), output);
+        writeStrings(result.getModules(), output);
+        writeVarLong(output, result.getNumberOfModules());
+        writeString(result.getLogMessages(), output);
+
+        List<Phase> phases = result.getTimings().getPhases();
+        writeVarLong(output, phases.size());
+        for (Phase phase : phases) {
+            writeString(phase.getName(), output);
+            writeVarLong(output, phase.getNanos());
+            writeVarLong(output, phase.getCount());
+            writeVarLong(output, phase.getBytes());
+        }
+        writeReportFiles(result.getReportFiles(), output);
+        output.flush();
+
+        return true;
+    }
+
+    private boolean writeChunk(final List<FileAnnotation> chunk, final DataOutputStream output) throws IOException {
+        for (FileAnnotation annotation : chunk) {
+            if (getLayout(annotation.getClass()) == null) {
+                writeVarLong(output, INCOMPLETE);
+                output.flush();
+
+                return false;
+            }
+        }
+        writeVarLong(output, chunk.size());
+        for (FileAnnotation annotation : chunk) {
+            writeString(annotation.getClass().getName(), output);
+            getLayout(annotation.getClass()).write(annotation, this, output);
+        }
+        output.flush();
+
+        return true;
+    }
+
+    private void writeReportFiles(final ReportFileIndex reportFiles, final DataOutputStream output) throws IOException {
+        if (reportFiles == null) {
+            output.writeBoolean(false);
+            return;
+        }
+        output.writeBoolean(true);
+
+        Map<String, ReportDigest> digests = reportFiles.getDigests();
+        writeVarLong(output, digests.size());
+        for (Entry<String, ReportDigest> entry : digests.entrySet()) {
+            String path = entry.getKey();
+            ReportDigest digest = entry.getValue();
+            writeString(path, output);
+            writeString(digest.getDigest(), output);
+            writeVarLong(output, digest.getSize());
+            writeVarLong(output, digest.getLastModified());
+
+            boolean isReused = reportFiles.isReused(path);
+            output.writeBoolean(isReused);
+            if (!isReused) {
+                long[] keys = reportFiles.getKeys(path);
+                writeVarLong(output, keys.length);
+                for (long key : keys) {
+                    writeVarLong(output, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a result from the specified stream and adds the content to the
+     * specified result. The annotations are added as soon as a chunk has been
+     * read.
+     *
+     * @param input
+     *            the stream to read from
+     * @param result
+     *            the result to add the content to
+     * @param classLoader
+     *            the class loader to load the classes of the annotations
+     * @return <code>true</code> if the result has been read,
+     *         <code>false</code> if the sender could not write all
+     *         annotations, the result then contains only some of the
+     *         annotations
+     * @throws IOException
+     *             if the result could not be read
+     */
+    boolean read(final DataInputStream input, final ParserResult result, final ClassLoader classLoader)
+            throws IOException {
+        if (input.readInt() != MAGIC || readVarLong(input) != VERSION) {
+            throw new IOException("Unknown format of parser result");
+        }
+        for (int size = (int)readVarLong(input); size != 0; size = (int)readVarLong(input)) {
+            if (size == INCOMPLETE) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                result.restoreAnnotation(readAnnotation(input, classLoader));
+            }
+        }
+
+        result.addErrors(readStrings(input));
+        List<String> modules = readStrings(input);
+        result.restoreModules(modules, (int)readVarLong(input));
+        result.setLog(readString(input));
+
+        PhaseTimings timings = result.getTimings();
+        for (long phases = readVarLong(input); phases > 0; phases--) {
+            timings.addNanos(readString(input), readVarLong(input), readVarLong(input), readVarLong(input));
+        }
+        result.setReportFiles(readReportFiles(input));
+
+        return true;
+    }
+
+    private ReportFileIndex readReportFiles(final DataInputStream input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        ReportFileIndex reportFiles = new ReportFileIndex();
+        for (long reports = readVarLong(input); reports > 0; reports--) {
+            String path = readString(input);
+            ReportDigest digest = new ReportDigest(readString(input), readVarLong(input), readVarLong(input));
+            if (input.readBoolean()) {
+                reportFiles.addReusedReport(path, digest);
+            }
+            else {
+                long[] keys = new long[(int)readVarLong(input)];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = readVarLong(input);
+                }
+                reportFiles.addParsedReport(path, digest, keys);
+            }
+        }
+        return reportFiles;
+    }
+
+    /**
+     * Reads an annotation. The class of the annotation is resolved without
+     * initializing it and is instantiated only if it implements
+     * {@link FileAnnotation}.
+     */
+    private FileAnnotation readAnnotation(final DataInputStream input, final ClassLoader classLoader)
+            throws IOException {
+        String className = readString(input);
+        Class<?> type;
+        try {
+            type = Class.forName(className, false, classLoader);
+        }
+        catch (ClassNotFoundException exception) {
+            throw new IOException("Can't find class of annotation " + className, exception);
+        }
+        if (!FileAnnotation.class.isAssignableFrom(type)) {
+            throw new IOException("Class is not an annotation: " + className);
+        }
+        ClassLayout layout = getLayout(type);
+        if (layout == null) {
+            throw new IOException("Annotation can't be read field by field: " + className);
+        }
+        return (FileAnnotation)layout.read(this, input);
+    }
+
+    private void writeStrings(final Collection<String> values, final DataOutputStream output) throws IOException {
+        writeVarLong(output, values.size());
+        for (String value : values) {
+            writeString(value, output);
+        }
+    }
+
+    private List<String> readStrings(final DataInputStream input) throws IOException {
+        int size = (int)readVarLong(input);
+        List<String> values = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(input));
+        }
+        return values;
+    }
+
+    private void writeString(final String value, final DataOutputStream output) throws IOException {
+        if (value == null) {
+            writeVarLong(output, NULL_STRING);
+            return;
+        }
+        Integer index = writtenStrings.get(value);
+        if (index == null) {
+            writtenStrings.put(value, writtenStrings.size());
+            writeVarLong(output, NEW_STRING);
+
+            byte[] bytes = value.getBytes(ENCODING);
+            writeVarLong(output, bytes.length);
+            output.write(bytes);
+        }
+        else {
+            writeVarLong(output, FIRST_INDEX + index);
+        }
+    }
+
+    private String readString(final DataInputStream input) throws IOException {
+        int index = (int)readVarLong(input);
+        if (index == NULL_STRING) {
+            return null;
+        }
+        if (index == NEW_STRING) {
+            byte[] bytes = new byte[(int)readVarLong(input)];
+            input.readFully(bytes);
+            String value = new String(bytes, ENCODING);
+            readStrings.add(value);
+            return value;
+        }
+        return readStrings.get(index - FIRST_INDEX);
+    }
+
+    /**
+     * Writes a number using 7 bits per byte, negative numbers are zig-zag
+     * encoded.
+     */
+    private static void writeVarLong(final DataOutputStream output, final long value) throws IOException {
+        long remaining = (value << 1) ^ (value >> 63); // NOCHECKSTYLE
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int)(remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte((int)remaining);
+    }
+
+    private static long readVarLong(final DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) { // NOCHECKSTYLE
+            int current = input.readUnsignedByte();
+            value |= (long)(current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new IOException("Malformed variable length number");
+    }
+
+    /**
+     * Returns the layout of the fields of the specified class.
+     *
+     * @param type
+     *            the class
+     * @return the layout or <code>null</code> if the class defines custom
+     *         serialization methods or has fields of unsupported types
+     */
+    private ClassLayout getLayout(final Class<?> type) {
+        ClassLayout layout = LAYOUTS.get(type);
+        if (layout == null) {
+            layout = ClassLayout.create(type);
+            LAYOUTS.put(type, layout);
+        }
+        return layout.isSupported() ? layout : null;
+    }
+
+    /**
+     * The serializable fields of a class, superclass fields first and sorted
+     * by name within a class, so that sender and receiver agree on the order
+     * independent of the JVM.
+     */
+    private static final class ClassLayout {
+        private static final ReflectionProvider REFLECTION = new AnnotationStream().getReflectionProvider();
+
+        private final Class<?> type;
+        private final List<Field> fields;
+        private final Method readResolve;
+
+        static ClassLayout create(final Class<?> type) {
+            List<Field> fields = new ArrayList<Field>();
+            List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+            for (Class<?> current = type; current != null && Serializable.class.isAssignableFrom(current);
+                    current = current.getSuperclass()) {
+                if (hasCustomSerialization(current)) {
+                    return new ClassLayout(type, null, null);
+                }
+                hierarchy.add(0, current);
+            }
+            for (Class<?> current : hierarchy) {
+                fields.addAll(getSerializableFields(current));
+            }
+            for (Field field : fields) {
+                if (!isSupported(field.getType())) {
+                    return new ClassLayout(type, null, null);
+                }
+            }
+            return new ClassLayout(type, fields, findReadResolve(type));
+        }
+
+        private static boolean isSupported(final Class<?> type) {
+            return type.isPrimitive() || type == String.class || type == TreeString.class || type.isEnum()
+                    || type == LineRangeList.class;
+        }
+
+        private static boolean hasCustomSerialization(final Class<?> type) {
+            if (java.io.Externalizable.class.isAssignableFrom(type)) {
+                return true;
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                String name = method.getName();
+                if ("writeObject".equals(name) || "readObject".equals(name) || "writeReplace".equals(name)
+                        || "readObjectNoData".equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<Field> getSerializableFields(final Class<?> type) {
+            List<Field> fields = new ArrayList<Field>();
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            Collections.sort(fields, new Comparator<Field>() {
+                public int compare(final Field left, final Field right) {
+                    return left.getName().compareTo(right.getName());
+                }
+            });
+            return fields;
+        }
+
+        /**
+         * Finds the <code>readResolve</code> method that Java serialization
+         * would call: private methods are only used if declared in the class
+         * itself, package private methods only within the same package.
+         */
+        private static Method findReadResolve(final Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    Method method = current.getDeclaredMethod("readResolve");
+                    int modifiers = method.getModifiers();
+                    if (current != type && (Modifier.isPrivate(modifiers)
+                            || !Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)
+                            && current.getPackage() != type.getPackage())) {
+                        return null;
+                    }
+                    method.setAccessible(true);
+                    return method;
+                }
+                catch (NoSuchMethodException exception) {
+                    // try the superclass
+                }
+            }
+            return null;
+        }
+
+        private ClassLayout(final Class<?> type, final List<Field> fields, final Method readResolve) {
+            this.type = type;
+            this.fields = fields;
+            this.readResolve = readResolve;
+        }
+
+        boolean isSupported() {
+            return fields != null;
+        }
+
+        void write(final Object object, final CompactResultFormat format, final DataOutputStream output)
+                throws IOException {
+            try {
+                for (Field field : fields) {
+                    format.writeField(field, object, output);
+                }
+            }
+            catch (IllegalAccessException exception) {
+                throw new IOException("Can't write field of " + type, exception);
+            }
+        }
+
+        Object read(final CompactResultFormat format, final DataInputStream input) throws IOException {
+            Object object = REFLECTION.newInstance(type);
+            try {
+                for (Field field : fields) {
+                    format.readField(field, object, input);
+                }
+                if (readResolve != null) {
+                    return readResolve.invoke(object);
+                }
+                return object;
+            }
+            catch (IllegalAccessException exception) {
+                throw new IOException("Can't read field of " + type, exception);
+            }
+            catch (InvocationTargetException exception) {
+                throw new IOException("Can't resolve instance of " + type, exception);
+            }
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeField(final Field field, final Object object, final DataOutputStream output)
+            throws IOException, IllegalAccessException {
+        Class<?> type = field.getType();
+        if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+            writeVarLong(output, field.getLong(object));
+        }
+        else if (type == long.class) {
+            writeVarLong(output, field.getLong(object));
+        }
+        else if (type == boolean.class) {
+            output.writeBoolean(field.getBoolean(object));
+        }
+        else if (type == float.class) {
+            output.writeFloat(field.getFloat(object));
+        }
+        else if (type == double.class) {
+            output.writeDouble(field.getDouble(object));
+        }
+        else if (type == String.class) {
+            writeString((String)field.get(object), output);
+        }
+        else if (type == TreeString.class) {
+            writeString(TreeString.toString((TreeString)field.get(object)), output);
+        }
+        else if (type.isEnum()) {
+            Enum value = (Enum)field.get(object);
+            writeString(value == null ? null : value.name(), output);
+        }
+        else if (type == LineRangeList.class) {
+            writeLineRanges((LineRangeList)field.get(object), output);
+        }
+        else {
+            throw new IOException("Unsupported type of field " + field);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void readField(final Field field, final Object object, final DataInputStream input)
+            throws IOException, IllegalAccessException {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            field.setInt(object, (int)readVarLong(input));
+        }
+        else if (type == short.class) {
+            field.setShort(object, (short)readVarLong(input));
+        }
+        else if (type == byte.class) {
+            field.setByte(object, (byte)readVarLong(input));
+        }
+        else if (type == char.class) {
+            field.setChar(object, (char)readVarLong(input));
+        }
+        else if (type == long.class) {
+            field.setLong(object, readVarLong(input));
+        }
+        else if (type == boolean.class) {
+            field.setBoolean(object, input.readBoolean());
+        }
+        else if (type == float.class) {
+            field.setFloat(object, input.readFloat());
+        }
+        else if (type == double.class) {
+            field.setDouble(object, input.readDouble());
+        }
+        else if (type == String.class) {
+            field.set(object, readString(input));
+        }
+        else if (type == TreeString.class) {
+            field.set(object, TreeString.of(readString(input)));
+        }
+        else if (type.isEnum()) {
+            String name = readString(input);
+            field.set(object, name == null ? null : Enum.valueOf((Class<Enum>)type, name));
+        }
+        else if (type == LineRangeList.class) {
+            field.set(object, readLineRanges(input));
+        }
+        else {
+            throw new IOException("Unsupported type of field " + field);
+        }
+    }
+    // CHECKSTYLE:ON
+
+    private void writeLineRanges(final LineRangeList lineRanges, final DataOutputStream output) throws IOException {
+        if (lineRanges == null) {
+            writeVarLong(output, -1);
+            return;
+        }
+        writeVarLong(output, lineRanges.size());
+        for (LineRange lineRange : lineRanges) {
+            writeVarLong(output, lineRange.getStart());
+            writeVarLong(output, lineRange.getEnd() - lineRange.getStart());
+        }
+    }
+
+    private LineRangeList readLineRanges(final DataInputStream input) throws IOException {
+        int size = (int)readVarLong(input);
+        if (size < 0) {
+            return null;
+        }
+        LineRangeList lineRanges = new LineRangeList(size);
+        for (int i = 0; i < size; i++) {
+            int start = (int)readVarLong(input);
+            lineRanges.add(new LineRange(start, start + (int)readVarLong(input)));
+        }
+        return lineRanges;
+    }
+}
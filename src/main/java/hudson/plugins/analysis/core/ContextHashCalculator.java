@@ -0,0 +1,181 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+
+import hudson.plugins.analysis.util.ContextHashCode;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+import hudson.remoting.VirtualChannel;
+
+/**
+ * Computes the context hash codes of annotations in the workspace. In
+ * contrast to {@link AnnotationsClassifier}, the annotations are not sent to
+ * the agent and back: only the distinct lines of each file with warnings are
+ * sent, and only a primitive array of hash codes is returned. The hash codes
+ * are assigned to the annotations on the master.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public final class ContextHashCalculator implements FileCallable<long[]> {
+    private static final long serialVersionUID = 3416843815474123683L;
+
+    /** Marks a line whose file could not be read. */
+    private static final long NO_HASH_CODE = Long.MIN_VALUE;
+
+    /** The distinct names of the files with annotations. */
+    private final String[] fileNames;
+    /** The distinct and sorted lines with annotations of each file. */
+    private final int[][] lines;
+    /** The default encoding to be used when reading and parsing files. */
+    private final String defaultEncoding;
+
+    /**
+     * Computes the context hash codes of all annotations of the specified
+     * result in the specified workspace and assigns them to the annotations.
+     * Annotations in files that can't be read keep their hash code.
+     *
+     * @param workspace
+     *            the workspace with the files of the annotations
+     * @param result
+     *            the result with the annotations
+     * @param defaultEncoding
+     *            the default encoding to be used when reading and parsing files
+     * @throws IOException
+     *             if the remote call failed
+     * @throws InterruptedException
+     *             if the user canceled the computation
+     */
+    public static void assign(final FilePath workspace, final ParserResult result, final String defaultEncoding)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Collection<FileAnnotation> annotations = result.getAnnotations();
+        ContextHashCalculator calculator = create(annotations, defaultEncoding);
+        calculator.apply(annotations, workspace.act(calculator));
+        result.getTimings().record(PhaseTimings.CONTEXT_HASHING, start, annotations.size());
+    }
+
+    /**
+     * Creates a calculator for the distinct lines of the specified
+     * annotations.
+     *
+     * @param annotations
+     *            the annotations
+     * @param defaultEncoding
+     *            the default encoding to be used when reading and parsing files
+     * @return the calculator
+     */
+    static ContextHashCalculator create(final Collection<FileAnnotation> annotations, final String defaultEncoding) {
+        Map<String, SortedSet<Integer>> linesByFile = new HashMap<String, SortedSet<Integer>>();
+        for (FileAnnotation annotation : annotations) {
+            String fileName = annotation.getFileName();
+            if (fileName != null) {
+                SortedSet<Integer> lines = linesByFile.get(fileName);
+                if (lines == null) {
+                    lines = new TreeSet<Integer>();
+                    linesByFile.put(fileName, lines);
+                }
+                lines.add(annotation.getPrimaryLineNumber());
+            }
+        }
+
+        String[] fileNames = linesByFile.keySet().toArray(new String[linesByFile.size()]);
+        Arrays.sort(fileNames);
+        int[][] lines = new int[fileNames.length][];
+        for (int file = 0; file < fileNames.length; file++) {
+            SortedSet<Integer> fileLines = linesByFile.get(fileNames[file]);
+            lines[file] = new int[fileLines.size()];
+            int index = 0;
+            for (Integer line : fileLines) {
+                lines[file][index++] = line;
+            }
+        }
+        return new ContextHashCalculator(fileNames, lines, defaultEncoding);
+    }
+
+    private ContextHashCalculator(final String[] fileNames, final int[][] lines, final String defaultEncoding) {
+        this.fileNames = fileNames;
+        this.lines = lines;
+        this.defaultEncoding = defaultEncoding;
+    }
+
+    /**
+     * Returns the number of distinct lines to compute a hash code for.
+     *
+     * @return the number of lines
+     */
+    int size() {
+        int size = 0;
+        for (int[] fileLines : lines) {
+            size += fileLines.length;
+        }
+        return size;
+    }
+
+    /**
+     * Computes the hash codes of all lines, files are read one after another.
+     *
+     * @param workspace
+     *            the workspace (not used)
+     * @param channel
+     *            the channel (not used)
+     * @return the hash codes of all lines, in the order of the files and
+     *         lines
+     */
+    public long[] invoke(final File workspace, final VirtualChannel channel) {
+        long[] hashCodes = new long[size()];
+        ContextHashCode contextHashCode = new ContextHashCode();
+        int position = 0;
+        for (int file = 0; file < fileNames.length; file++) {
+            for (int line : lines[file]) {
+                try {
+                    hashCodes[position] = contextHashCode.create(fileNames[file], line, defaultEncoding);
+                }
+                catch (IOException exception) {
+                    hashCodes[position] = NO_HASH_CODE;
+                }
+                position++;
+            }
+        }
+        return hashCodes;
+    }
+
+    /**
+     * Assigns the computed hash codes to the annotations.
+     *
+     * @param annotations
+     *            the annotations this calculator has been created for
+     * @param hashCodes
+     *            the hash codes returned by
+     *            {@link #invoke(File, VirtualChannel)}
+     */
+    void apply(final Collection<FileAnnotation> annotations, final long[] hashCodes) {
+        int[] offsets = new int[fileNames.length];
+        for (int file = 1; file < fileNames.length; file++) {
+            offsets[file] = offsets[file - 1] + lines[file - 1].length;
+        }
+        for (FileAnnotation annotation : annotations) {
+            String fileName = annotation.getFileName();
+            int file = fileName == null ? -1 : Arrays.binarySearch(fileNames, fileName);
+            if (file >= 0) {
+                int line = Arrays.binarySearch(lines[file], annotation.getPrimaryLineNumber());
+                if (line >= 0) {
+                    long hashCode = hashCodes[offsets[file] + line];
+                    if (hashCode != NO_HASH_CODE) {
+                        annotation.setContextHashCode(hashCode);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.LocalDate;
+
+import com.google.common.collect.Lists;
+
+import hudson.Extension;
+import hudson.XmlFile;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * The warnings of a job and plug-in, summed up per day. For each day the
+ * number of builds and the sums of the warnings by priority, and of the new
+ * and fixed warnings are stored, so that the averages per day can be
+ * computed without loading the builds. A build is added when it has been
+ * completed and subtracted when it has been deleted. Days that are older than
+ * the retention period are removed. The rollup is stored in the root folder
+ * of the job; if there is no such file yet, then it is created from the build
+ * history. The latest rollups are cached in memory. A rollup is never changed
+ * after it has been returned: a new rollup replaces it when a build has been
+ * added or deleted.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class DailyRollup implements Serializable {
+    private static final long serialVersionUID = -2291806853024722817L;
+    private static final Logger LOGGER = Logger.getLogger(DailyRollup.class.getName());
+
+    private static final String FILE_SUFFIX = "-daily.xml";
+    /** The number of days to keep. */
+    private static final int RETENTION_DAYS = Integer.getInteger(DailyRollup.class.getName() + ".retentionDays", 365);
+    /** The maximum number of rollups in memory. */
+    private static final int MAX_CACHED = Integer.getInteger(DailyRollup.class.getName() + ".cacheSize", 500);
+    private static final int LOCK_STRIPES = 64;
+    /** Serializes the reading and writing of the rollup files, a file is guarded by the stripe of its name. */
+    private static final Object[] LOCKS = new Object[LOCK_STRIPES];
+    /** The latest rollups, mapped by the name of their file. */
+    @SuppressWarnings("serial")
+    private static final Map<String, DailyRollup> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, DailyRollup>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, DailyRollup> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    /** The days, mapped by their ISO date. */
+    private final SortedMap<String, Day> days = new TreeMap<String, Day>();
+    /** The number of the latest build that has been added. */
+    private int lastBuild;
+
+    /**
+     * Returns the rollup of the job and plug-in of the specified result. If
+     * there is no rollup yet, then it is created from the results of the
+     * previous builds within the retention period.
+     *
+     * @param result
+     *            the latest result of the job
+     * @return the rollup
+     */
+    public static DailyRollup load(final BuildResult result) {
+        XmlFile file = getFile(result);
+        synchronized (getLock(file)) {
+            DailyRollup rollup = read(file);
+            if (rollup != null) {
+                return rollup;
+            }
+        }
+
+        DailyRollup created = createFromHistory(result, getOldestDay());
+        synchronized (getLock(file)) {
+            DailyRollup rollup = read(file);
+            if (rollup != null) {
+                return rollup; // created by a concurrent request in the meantime
+            }
+            store(file, created);
+
+            return created;
+        }
+    }
+
+    /**
+     * Adds the specified result of a completed build to the rollup of its job
+     * and plug-in.
+     *
+     * @param result
+     *            the result to add
+     */
+    static void record(final BuildResult result) {
+        DailyRollup created = load(result);
+        XmlFile file = getFile(result);
+        synchronized (getLock(file)) {
+            DailyRollup rollup = read(file);
+            DailyRollup changed = new DailyRollup(rollup == null ? created : rollup);
+            changed.add(result);
+            changed.compact(getOldestDay());
+            store(file, changed);
+        }
+    }
+
+    /**
+     * Subtracts the specified result of a deleted build from the rollup of
+     * its job and plug-in.
+     *
+     * @param result
+     *            the result to subtract
+     */
+    static void delete(final BuildResult result) {
+        XmlFile file = getFile(result);
+        synchronized (getLock(file)) {
+            DailyRollup rollup = read(file);
+            if (rollup != null) {
+                DailyRollup changed = new DailyRollup(rollup);
+                if (changed.remove(result)) {
+                    store(file, changed);
+                }
+            }
+        }
+    }
+
+    private static LocalDate getOldestDay() {
+        return new LocalDate().minusDays(RETENTION_DAYS);
+    }
+
+    private static XmlFile getFile(final BuildResult result) {
+        String fileName = StringUtils.removeEnd(result.getSerializationFileName(), ".xml") + FILE_SUFFIX;
+
+        return new XmlFile(new File(result.getOwner().getParent().getRootDir(), fileName));
+    }
+
+    private static Object getLock(final XmlFile file) {
+        return LOCKS[(file.getFile().getPath().hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * Returns the cached rollup of the specified file or reads it from disk.
+     * The caller needs to hold the lock of the file.
+     *
+     * @return the rollup, or <code>null</code> if there is no valid file
+     */
+    private static DailyRollup read(final XmlFile file) {
+        String key = file.getFile().getPath();
+        if (!file.exists()) {
+            CACHE.remove(key);
+
+            return null;
+        }
+        DailyRollup rollup = CACHE.get(key);
+        if (rollup == null) {
+            try {
+                rollup = (DailyRollup)file.read();
+                CACHE.put(key, rollup);
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.WARNING, "Failed to read daily rollup " + file + ", creating it again", exception);
+            }
+        }
+        return rollup;
+    }
+
+    /**
+     * Writes the specified rollup to the specified file and caches it. The
+     * caller needs to hold the lock of the file.
+     */
+    private static void store(final XmlFile file, final DailyRollup rollup) {
+        try {
+            file.write(rollup);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to write daily rollup " + file, exception);
+        }
+        CACHE.put(file.getFile().getPath(), rollup);
+    }
+
+    /**
+     * Creates a rollup from the specified result and its previous results.
+     *
+     * @param lastResult
+     *            the latest result
+     * @param oldest
+     *            the oldest day to add
+     * @return the rollup
+     */
+    static DailyRollup createFromHistory(final BuildResult lastResult, final LocalDate oldest) {
+        List<BuildResult> results = Lists.newArrayList();
+        BuildResult current = lastResult;
+        while (current != null && !getDate(current).isBefore(oldest)) {
+            results.add(current);
+            if (!current.hasPreviousResult()) {
+                break;
+            }
+            current = current.getPreviousResult();
+        }
+
+        DailyRollup rollup = new DailyRollup();
+        for (BuildResult result : Lists.reverse(results)) {
+            rollup.add(result);
+        }
+        return rollup;
+    }
+
+    private static LocalDate getDate(final BuildResult result) {
+        return new LocalDate(result.getOwner().getTimestamp());
+    }
+
+    /**
+     * Creates a new, empty instance of {@link DailyRollup}.
+     */
+    DailyRollup() {
+        // empty rollup
+    }
+
+    /**
+     * Creates a new instance of {@link DailyRollup} with a copy of the days
+     * of the specified rollup.
+     *
+     * @param copy
+     *            the rollup to copy
+     */
+    DailyRollup(final DailyRollup copy) {
+        for (Map.Entry<String, Day> entry : copy.days.entrySet()) {
+            days.put(entry.getKey(), new Day(entry.getValue()));
+        }
+        lastBuild = copy.lastBuild;
+    }
+
+    /**
+     * Adds the specified result. Results of builds that are older than the
+     * latest added build are ignored.
+     *
+     * @param result
+     *            the result to add
+     */
+    void add(final BuildResult result) {
+        int number = result.getOwner().getNumber();
+        if (number > lastBuild) {
+            String date = getDate(result).toString();
+            Day day = days.get(date);
+            if (day == null) {
+                day = new Day();
+                days.put(date, day);
+            }
+            day.add(result);
+            lastBuild = number;
+        }
+    }
+
+    /**
+     * Subtracts the specified result. Results of builds that have not been
+     * added yet, or whose day has been removed already, are ignored.
+     *
+     * @param result
+     *            the result to subtract
+     * @return <code>true</code> if the result has been subtracted
+     */
+    boolean remove(final BuildResult result) {
+        if (result.getOwner().getNumber() > lastBuild) {
+            return false;
+        }
+        String date = getDate(result).toString();
+        Day day = days.get(date);
+        if (day == null) {
+            return false;
+        }
+        day.remove(result);
+        if (day.getBuilds() == 0) {
+            days.remove(date);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all days before the specified day.
+     *
+     * @param oldest
+     *            the oldest day to keep
+     */
+    void compact(final LocalDate oldest) {
+        days.headMap(oldest.toString()).clear();
+    }
+
+    /**
+     * Returns the days of this rollup.
+     *
+     * @return the days, mapped and sorted by date
+     */
+    public SortedMap<LocalDate, Day> getDays() {
+        SortedMap<LocalDate, Day> values = new TreeMap<LocalDate, Day>();
+        for (Map.Entry<String, Day> entry : days.entrySet()) {
+            values.put(new LocalDate(entry.getKey()), entry.getValue());
+        }
+        return Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * The warnings of the builds of a single day.
+     */
+    public static class Day implements Serializable {
+        private static final long serialVersionUID = 5218093625463017740L;
+
+        private int builds;
+        private long total;
+        private long high;
+        private long normal;
+        private long low;
+        private long newWarnings;
+        private long fixedWarnings;
+
+        Day() {
+            // no builds yet
+        }
+
+        Day(final Day copy) {
+            builds = copy.builds;
+            total = copy.total;
+            high = copy.high;
+            normal = copy.normal;
+            low = copy.low;
+            newWarnings = copy.newWarnings;
+            fixedWarnings = copy.fixedWarnings;
+        }
+
+        void add(final BuildResult result) {
+            builds++;
+            total += result.getNumberOfWarnings();
+            high += result.getNumberOfAnnotations(Priority.HIGH);
+            normal += result.getNumberOfAnnotations(Priority.NORMAL);
+            low += result.getNumberOfAnnotations(Priority.LOW);
+            newWarnings += result.getNumberOfNewWarnings();
+            fixedWarnings += result.getNumberOfFixedWarnings();
+        }
+
+        void remove(final BuildResult result) {
+            builds--;
+            total -= result.getNumberOfWarnings();
+            high -= result.getNumberOfAnnotations(Priority.HIGH);
+            normal -= result.getNumberOfAnnotations(Priority.NORMAL);
+            low -= result.getNumberOfAnnotations(Priority.LOW);
+            newWarnings -= result.getNumberOfNewWarnings();
+            fixedWarnings -= result.getNumberOfFixedWarnings();
+        }
+
+        private int average(final long sum) {
+            return (int)(sum / builds);
+        }
+
+        /**
+         * Returns the number of builds of this day.
+         *
+         * @return the number of builds
+         */
+        public int getBuilds() {
+            return builds;
+        }
+
+        /**
+         * Returns the average number of warnings.
+         *
+         * @return the average number of warnings
+         */
+        public int getAverageTotal() {
+            return average(total);
+        }
+
+        /**
+         * Returns the average number of warnings with the specified priority.
+         *
+         * @param priority
+         *            the priority
+         * @return the average number of warnings with the specified priority
+         */
+        public int getAverage(final Priority priority) {
+            if (priority == Priority.HIGH) {
+                return average(high);
+            }
+            else if (priority == Priority.NORMAL) {
+                return average(normal);
+            }
+            else {
+                return average(low);
+            }
+        }
+
+        /**
+         * Returns the average number of new warnings.
+         *
+         * @return the average number of new warnings
+         */
+        public int getAverageNewWarnings() {
+            return average(newWarnings);
+        }
+
+        /**
+         * Returns the average number of fixed warnings.
+         *
+         * @return the average number of fixed warnings
+         */
+        public int getAverageFixedWarnings() {
+            return average(fixedWarnings);
+        }
+
+        /**
+         * Returns the total number of new warnings of all builds of this day.
+         *
+         * @return the number of new warnings
+         */
+        public long getNewWarnings() {
+            return newWarnings;
+        }
+
+        /**
+         * Returns the total number of fixed warnings of all builds of this
+         * day.
+         *
+         * @return the number of fixed warnings
+         */
+        public long getFixedWarnings() {
+            return fixedWarnings;
+        }
+    }
+
+    /**
+     * Adds the results of completed builds to the rollups and subtracts the
+     * results of deleted builds, e.g. builds that have been removed by the
+     * log rotation.
+     */
+    @Extension
+    public static class RecordListener extends RunListener<Run<?, ?>> {
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void onCompleted(final Run<?, ?> run, final TaskListener listener) {
+            for (ResultAction action : run.getActions(ResultAction.class)) {
+                BuildResult result = action.getResult();
+                if (result != null) {
+                    record(result);
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void onDeleted(final Run<?, ?> run) {
+            for (ResultAction action : run.getActions(ResultAction.class)) {
+                BuildResult result = action.getResult();
+                if (result != null) {
+                    delete(result);
+                }
+            }
+        }
+    }
+}
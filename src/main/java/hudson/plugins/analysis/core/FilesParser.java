@@ -1,10 +1,19 @@
 package hudson.plugins.analysis.core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
@@ -18,8 +27,12 @@ import hudson.plugins.analysis.util.ModuleDetector;
 import hudson.plugins.analysis.util.NullModuleDetector;
 import hudson.plugins.analysis.util.PluginLogger;
 import hudson.plugins.analysis.util.StringPluginLogger;
+import hudson.plugins.analysis.util.TreeStringBuilder;
+import hudson.plugins.analysis.util.WorkspaceSnapshot;
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
 import hudson.plugins.analysis.util.model.FileAnnotation;
 
+import hudson.remoting.Pipe;
 import hudson.remoting.VirtualChannel;
 
 /**
@@ -50,6 +63,20 @@ public class FilesParser implements FileCallable<ParserResult> {
 
     private final boolean canResolveRelativePaths;
 
+    /** The scope of the shared workspace snapshot, might be <code>null</code>. @since 1.55 */
+    private final String snapshotScope = WorkspaceSnapshot.getScope();
+    /** The shared snapshot of the workspace, available during the parsing only. @since 1.55 */
+    @edu.umd.cs.findbugs.annotations.SuppressWarnings("Se")
+    private transient WorkspaceSnapshot snapshot;
+    /** Interns the strings of all parsed annotations, available during the parsing only. @since 1.55 */
+    @edu.umd.cs.findbugs.annotations.SuppressWarnings("Se")
+    private transient TreeStringBuilder stringPool;
+    /** The report files of the previous build, enables the incremental mode. @since 1.55 */
+    @edu.umd.cs.findbugs.annotations.SuppressWarnings("Se")
+    private transient ReportFileIndex previousReports;
+    /** The digests of the report files of the previous build, available during the parsing only. @since 1.55 */
+    private Map<String, ReportDigest> previousDigests;
+
     private FilesParser(final String filePattern, final AnnotationParser parser,
             final boolean isMavenBuild, final String moduleName) {
         this.filePattern = filePattern;
@@ -166,16 +193,138 @@ public class FilesParser implements FileCallable<ParserResult> {
         stringLogger.log(message);
     }
 
+    /**
+     * Enables the incremental mode: report files that have the same content
+     * as a report file of the previous build are not parsed again, the
+     * annotations of the previous build are reused instead. The index of the
+     * report files of the new build is available with
+     * {@link ParserResult#getReportFiles()} and should be stored with
+     * {@link ReportFileIndex#save(hudson.model.AbstractBuild, String)}. The
+     * incremental mode is only used by {@link #parse(FilePath)}.
+     *
+     * @param previousReports
+     *            the report files of the previous build, see
+     *            {@link ReportFileIndex#findPrevious(hudson.model.AbstractBuild, String)}
+     * @since 1.55
+     */
+    public void setPreviousReports(final ReportFileIndex previousReports) {
+        this.previousReports = previousReports;
+    }
+
+    /**
+     * Parses the files in the specified workspace. If the workspace is located
+     * on an agent, then the result is not returned as a serialized
+     * {@link ParserResult}: it is streamed to the master through a pipe using
+     * the compact format of {@link CompactResultFormat}, so that the master
+     * adds the annotations of a chunk while the next chunks are still being
+     * transferred. If the annotations can't be written in the compact format,
+     * then the result is returned as a serialized {@link ParserResult}
+     * instead. The cache of workspace files is never transferred.
+     *
+     * @param workspace
+     *            the workspace to parse the files in
+     * @return the result of the parser
+     * @throws IOException
+     *             if the files could not be parsed or the result could not be
+     *             transferred
+     * @throws InterruptedException
+     *             if the user cancels the parsing
+     * @since 1.55
+     */
+    public ParserResult parse(final FilePath workspace) throws IOException, InterruptedException {
+        if (previousReports != null) {
+            previousDigests = previousReports.getDigests();
+        }
+        try {
+            ParserResult result = transfer(workspace);
+            if (result.getReportFiles() != null) {
+                result.getReportFiles().complete(result, previousReports);
+            }
+            return result;
+        }
+        finally {
+            previousDigests = null; // NOPMD
+        }
+    }
+
+    private ParserResult transfer(final FilePath workspace) throws IOException, InterruptedException {
+        if (!workspace.isRemote()) {
+            return workspace.act(this);
+        }
+
+        ParserResult result = canResolveRelativePaths ? new ParserResult(workspace) : new ParserResult();
+        ClassLoader classLoader = parser.getClass().getClassLoader();
+        Pipe pipe = Pipe.createRemoteToLocal();
+        Future<ParserResult> transfer = workspace.actAsync(new CompactTransfer(this, pipe));
+        DataInputStream input = new DataInputStream(new BufferedInputStream(pipe.getIn()));
+        boolean isComplete;
+        try {
+            isComplete = new CompactResultFormat().read(input, result, classLoader);
+        }
+        catch (IOException exception) {
+            abort(input, transfer);
+
+            throw exception;
+        }
+        catch (RuntimeException exception) {
+            abort(input, transfer);
+
+            throw exception;
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+
+        ParserResult serialized = waitFor(transfer);
+        if (isComplete) {
+            return result;
+        }
+        return serialized;
+    }
+
+    /**
+     * Aborts a failed transfer. The pipe is closed before waiting for the
+     * agent, so that the agent does not block while writing the remaining
+     * chunks. If the agent failed as well, then its exception is thrown.
+     */
+    private void abort(final DataInputStream input, final Future<ParserResult> transfer)
+            throws IOException, InterruptedException {
+        IOUtils.closeQuietly(input);
+
+        waitFor(transfer);
+    }
+
+    /**
+     * Waits for the transfer on the agent and rethrows its exception.
+     */
+    private <T> T waitFor(final Future<T> transfer) throws IOException, InterruptedException {
+        try {
+            return transfer.get();
+        }
+        catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException("Parsing on the agent failed", cause);
+        }
+    }
+
     /** {@inheritDoc} */
     public ParserResult invoke(final File workspace, final VirtualChannel channel)
             throws IOException {
+        snapshot = createSnapshot(workspace);
+
         ParserResult result;
         if (canResolveRelativePaths) {
-            result = new ParserResult(new FilePath(workspace));
+            result = new ParserResult(new FilePath(workspace), snapshot);
         }
         else {
             result = new ParserResult();
         }
+        if (previousDigests != null) {
+            result.setReportFiles(new ReportFileIndex());
+        }
         try {
             if (StringUtils.isBlank(filePattern)) {
                 parseSingleFile(workspace, result);
@@ -188,6 +337,10 @@ public class FilesParser implements FileCallable<ParserResult> {
             log("Parsing has been canceled.");
         }
 
+        if (stringPool != null) {
+            stringPool.dedup();
+            stringPool = null; // NOPMD
+        }
         if (stringLogger != null) {
             result.setLog(stringLogger.toString());
         }
@@ -198,9 +351,43 @@ public class FilesParser implements FileCallable<ParserResult> {
         return result;
     }
 
+    /**
+     * Returns the snapshot of the workspace that is shared by all analysis
+     * steps of the current build. If there is no build scope or if a single
+     * file should be parsed, then no snapshot is used.
+     */
+    private WorkspaceSnapshot createSnapshot(final File workspace) {
+        if (snapshotScope == null || StringUtils.isBlank(filePattern) || !workspace.isDirectory()) {
+            return null;
+        }
+        try {
+            return WorkspaceSnapshot.get(snapshotScope, workspace);
+        }
+        catch (IOException exception) {
+            log("Can't create snapshot of workspace, scanning the file system directly: " + exception);
+
+            return null;
+        }
+    }
+
+    private TreeStringBuilder getStringPool() {
+        if (stringPool == null) {
+            stringPool = new TreeStringBuilder();
+        }
+        return stringPool;
+    }
+
     private void parserCollectionOfFiles(final File workspace, final ParserResult result) throws InterruptedException {
         log("Finding all files that match the pattern " + filePattern);
-        String[] fileNames = new FileFinder(filePattern).find(workspace);
+        long start = System.nanoTime();
+        String[] fileNames;
+        if (snapshot == null) {
+            fileNames = new FileFinder(filePattern).find(workspace);
+        }
+        else {
+            fileNames = snapshot.find(filePattern);
+        }
+        result.getTimings().record(PhaseTimings.FINDING_FILES, start, fileNames.length);
 
         if (fileNames.length == 0) {
             if (isMavenBuild) {
@@ -237,7 +424,10 @@ public class FilesParser implements FileCallable<ParserResult> {
      */
     private void parseFiles(final File workspace, final String[] fileNames,
             final ParserResult result) throws InterruptedException {
+        PhaseTimings timings = result.getTimings();
+        long start = System.nanoTime();
         ModuleDetector detector = createModuleDetector(workspace);
+        timings.record(PhaseTimings.MODULE_DETECTION, start, 0);
 
         for (String fileName : fileNames) {
             File file = new File(fileName);
@@ -246,7 +436,9 @@ public class FilesParser implements FileCallable<ParserResult> {
                 file = new File(workspace, fileName);
             }
 
+            start = System.nanoTime();
             String module = getModuleName(detector, file);
+            timings.record(PhaseTimings.MODULE_DETECTION, start, 1);
 
             if (!file.canRead()) {
                 String message = Messages.FilesParser_Error_NoPermission(module, file);
@@ -261,7 +453,14 @@ public class FilesParser implements FileCallable<ParserResult> {
                 continue;
             }
 
-            parseFile(file, module, result);
+            start = System.nanoTime();
+            if (previousDigests == null) {
+                parseFile(file, module, result);
+            }
+            else {
+                parseIncrementally(file, module, result);
+            }
+            timings.record(PhaseTimings.PARSING, start, 1, file.length());
 
             result.addModule(module);
         }
@@ -269,7 +468,10 @@ public class FilesParser implements FileCallable<ParserResult> {
 
     private ModuleDetector createModuleDetector(final File workspace) {
         if (shouldDetectModules) {
-            return new ModuleDetector(workspace);
+            if (snapshot == null) {
+                return new ModuleDetector(workspace);
+            }
+            return new ModuleDetector(workspace, snapshot);
         }
         else {
             return new NullModuleDetector();
@@ -287,6 +489,33 @@ public class FilesParser implements FileCallable<ParserResult> {
         return module;
     }
 
+    /**
+     * Parses the specified file only if its content has changed since the
+     * previous build. Otherwise the annotations of the previous build will be
+     * added on the master.
+     */
+    private void parseIncrementally(final File file, final String module, final ParserResult result)
+            throws InterruptedException {
+        String path = file.getAbsolutePath();
+        ReportDigest digest;
+        try {
+            digest = ReportDigest.of(file);
+        }
+        catch (IOException exception) {
+            log("Can't compute digest of " + file + ", parsing the file: " + exception);
+            parseFile(file, module, result);
+
+            return;
+        }
+        if (digest.hasSameContent(previousDigests.get(path))) {
+            result.getReportFiles().addReusedReport(path, digest);
+            log("Reusing the warnings of the unchanged file " + file + " of module " + module);
+        }
+        else {
+            result.getReportFiles().addParsedReport(path, digest, parseFile(file, module, result));
+        }
+    }
+
     /**
      * Parses the specified file and stores all found annotations. If the file
      * could not be parsed then an error message is appended to the result.
@@ -297,17 +526,18 @@ public class FilesParser implements FileCallable<ParserResult> {
      *            the associated module
      * @param result
      *            the result of the parser
+     * @return the keys of the found annotations
      * @throws InterruptedException
      *             if the user cancels the parsing
      */
-    private void parseFile(final File file, final String module, final ParserResult result)
+    private long[] parseFile(final File file, final String module, final ParserResult result)
             throws InterruptedException {
+        ResultSink sink = new ResultSink(result, getStringPool());
         try {
-            Collection<FileAnnotation> annotations = parser.parse(file, module);
-            result.addAnnotations(annotations);
+            StreamingParserAdapter.adapt(parser).parse(file, module, sink);
 
             log("Successfully parsed file " + file + " of module " + module + " with "
-                    + annotations.size() + " warnings.");
+                    + sink.getCount() + " warnings.");
         }
         catch (InvocationTargetException exception) {
             String errorMessage = Messages.FilesParser_Error_Exception(file)
@@ -318,6 +548,7 @@ public class FilesParser implements FileCallable<ParserResult> {
 
             log(errorMessage);
         }
+        return sink.getKeys();
     }
 
     /**
@@ -430,4 +661,80 @@ public class FilesParser implements FileCallable<ParserResult> {
             final boolean isMavenBuild) {
         this(filePattern, parser, isMavenBuild, StringUtils.EMPTY);
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses the files on the agent and writes the result to the pipe to the
+     * master. If the result can't be written in the compact format, then the
+     * result is returned instead, i.e. it is transferred using the Java
+     * serialization of the remoting channel.
+     */
+    private static class CompactTransfer implements FileCallable<ParserResult> {
+        private static final long serialVersionUID = -2851573264617360839L;
+
+        private final FilesParser parser;
+        private final Pipe pipe;
+
+        CompactTransfer(final FilesParser parser, final Pipe pipe) {
+            this.parser = parser;
+            this.pipe = pipe;
+        }
+
+        /** {@inheritDoc} */
+        public ParserResult invoke(final File workspace, final VirtualChannel channel) throws IOException {
+            OutputStream stream = pipe.getOut();
+            try {
+                ParserResult result = parser.invoke(workspace, channel);
+
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+                boolean isComplete = new CompactResultFormat().write(result, output);
+                output.close();
+                if (!isComplete) {
+                    return result;
+                }
+            }
+            finally {
+                IOUtils.closeQuietly(stream);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Interns each annotation and adds it to the result, i.e. resolves
+     * relative paths, skips duplicates, and counts the annotation by
+     * priority.
+     */
+    private static class ResultSink implements AnnotationSink {
+        private static final int INITIAL_KEYS = 16;
+
+        private final ParserResult result;
+        private final TreeStringBuilder stringPool;
+        private int count;
+        private long[] keys = new long[INITIAL_KEYS];
+
+        ResultSink(final ParserResult result, final TreeStringBuilder stringPool) {
+            this.result = result;
+            this.stringPool = stringPool;
+        }
+
+        /** {@inheritDoc} */
+        public void add(final FileAnnotation annotation) {
+            if (annotation instanceof AbstractAnnotation) {
+                ((AbstractAnnotation)annotation).intern(stringPool);
+            }
+            result.addAnnotation(annotation);
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = annotation.getKey();
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long[] getKeys() {
+            return Arrays.copyOf(keys, count);
+        }
+    }
+}
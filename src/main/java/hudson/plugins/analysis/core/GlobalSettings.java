@@ -49,6 +49,8 @@ public class GlobalSettings extends RunListener<Run<?, ?>> implements Describabl
     public static class DescriptorImpl extends Descriptor<GlobalSettings> implements Settings {
         private Boolean isQuiet;
         private Boolean failOnCorrupt;
+        private Boolean asynchronousPostBuild;
+        private Boolean warmUpResults;
 
         @Override
         public String getDisplayName() {
@@ -102,6 +104,36 @@ public class GlobalSettings extends RunListener<Run<?, ?>> implements Describabl
             failOnCorrupt = value;
         }
 
+        /** {@inheritDoc} */
+        public Boolean getAsynchronousPostBuild() {
+            return getValidBoolean(asynchronousPostBuild);
+        }
+
+        /**
+         * Sets the value of the asynchronousPostBuild boolean property.
+         *
+         * @param value
+         *            the value to set
+         */
+        public void setAsynchronousPostBuild(final Boolean value) {
+            asynchronousPostBuild = value;
+        }
+
+        /** {@inheritDoc} */
+        public Boolean getWarmUpResults() {
+            return getValidBoolean(warmUpResults);
+        }
+
+        /**
+         * Sets the value of the warmUpResults boolean property.
+         *
+         * @param value
+         *            the value to set
+         */
+        public void setWarmUpResults(final Boolean value) {
+            warmUpResults = value;
+        }
+
         private Boolean getValidBoolean(final Boolean value) {
             return value == null ? Boolean.FALSE : value;
         }
@@ -139,6 +139,7 @@ public abstract class HealthAwarePublisher extends HealthAwareRecorder {
     @Override
     protected boolean perform(final AbstractBuild<?, ?> build, final Launcher launcher, final PluginLogger logger)
             throws IOException, InterruptedException {
+        long start = System.nanoTime();
         BuildResult result;
         try {
             result = perform(build, logger);
@@ -162,7 +163,10 @@ public abstract class HealthAwarePublisher extends HealthAwareRecorder {
             updateBuildResult(result, logger);
         }
 
-        copyFilesWithAnnotationsToBuildFolder(build.getRootDir(), launcher.getChannel(), result.getAnnotations());
+        PhaseTimings timings = result.getTimings();
+        copyFilesWithAnnotationsToBuildFolder(build.getRootDir(), launcher.getChannel(), result.getAnnotations(), timings);
+        timings.record(PhaseTimings.TOTAL, start, result.getNumberOfAnnotations());
+        logger.log("Timings: " + timings);
 
         return true;
     }
@@ -24,6 +24,7 @@ import hudson.model.Project;
 import hudson.plugins.analysis.util.EncodingValidator;
 import hudson.plugins.analysis.util.LoggerFactory;
 import hudson.plugins.analysis.util.PluginLogger;
+import hudson.plugins.analysis.util.WorkspaceSnapshot;
 import hudson.plugins.analysis.util.model.AbstractAnnotation;
 import hudson.plugins.analysis.util.model.AnnotationContainer;
 import hudson.plugins.analysis.util.model.DefaultAnnotationContainer;
@@ -33,6 +34,7 @@ import hudson.plugins.analysis.util.model.WorkspaceFile;
 
 import hudson.remoting.VirtualChannel;
 import hudson.tasks.BuildStepMonitor;
+import hudson.tasks.Publisher;
 import hudson.tasks.Builder;
 import hudson.tasks.Recorder;
 import hudson.tasks.Maven;
@@ -330,7 +332,17 @@ public abstract class HealthAwareRecorder extends Recorder implements HealthDesc
             final BuildListener listener) throws InterruptedException, IOException {
         PluginLogger logger = new LoggerFactory().createLogger(listener.getLogger(), pluginName);
         if (canContinue(build.getResult())) {
-            return perform(build, launcher, logger);
+            String scope = build.getParent().getFullName() + '#' + build.getNumber();
+            WorkspaceSnapshot.enterScope(scope);
+            try {
+                return perform(build, launcher, logger);
+            }
+            finally {
+                WorkspaceSnapshot.exitScope();
+                if (isLastAnalysisStep(build)) {
+                    releaseSnapshots(build.getWorkspace(), scope, logger);
+                }
+            }
         }
         else {
             logger.log("Skipping publisher since build result is " + build.getResult());
@@ -338,6 +350,40 @@ public abstract class HealthAwareRecorder extends Recorder implements HealthDesc
         }
     }
 
+    /**
+     * Returns whether this recorder is the last analysis step of the
+     * specified build, i.e. whether no other step uses the workspace snapshot
+     * of the build afterwards.
+     */
+    private boolean isLastAnalysisStep(final AbstractBuild<?, ?> build) {
+        HealthAwareRecorder last = null;
+        for (Publisher publisher : build.getProject().getPublishersList()) {
+            if (publisher instanceof HealthAwareRecorder) {
+                last = (HealthAwareRecorder)publisher;
+            }
+        }
+        return last == null || last == this;
+    }
+
+    /**
+     * Removes the workspace snapshots of the build from the memory of the
+     * machine that hosts the workspace.
+     */
+    private void releaseSnapshots(@CheckForNull final FilePath workspace, final String scope,
+            final PluginLogger logger) {
+        if (workspace != null) {
+            try {
+                WorkspaceSnapshot.release(workspace, scope);
+            }
+            catch (IOException exception) {
+                logger.log("Can't release the snapshot of the workspace: " + exception);
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Callback method that is invoked after the build where this recorder can
      * collect the results.
@@ -382,6 +428,36 @@ public abstract class HealthAwareRecorder extends Recorder implements HealthDesc
     protected void copyFilesWithAnnotationsToBuildFolder(final File rootDir,
             final VirtualChannel channel, final Collection<FileAnnotation> annotations)
             throws IOException, FileNotFoundException, InterruptedException {
+        copyFilesWithAnnotationsToBuildFolder(rootDir, channel, annotations, new PhaseTimings());
+    }
+
+    /**
+     * Copies all files with annotations from the workspace to the build folder
+     * and records the number of copied files and bytes.
+     *
+     * @param rootDir
+     *            directory to store the copied files in
+     * @param channel
+     *            channel to get the files from
+     * @param annotations
+     *            annotations determining the actual files to copy
+     * @param timings
+     *            the timings to record the copying in
+     * @throws IOException
+     *             if the files could not be written
+     * @throws FileNotFoundException
+     *             if the files could not be written
+     * @throws InterruptedException
+     *             if the user cancels the processing
+     * @since 1.55
+     */
+    protected void copyFilesWithAnnotationsToBuildFolder(final File rootDir,
+            final VirtualChannel channel, final Collection<FileAnnotation> annotations, final PhaseTimings timings)
+            throws IOException, FileNotFoundException, InterruptedException {
+        long start = System.nanoTime();
+        int count = 0;
+        long bytes = 0;
+
         File directory = new File(rootDir, AbstractAnnotation.WORKSPACE_FILES);
         if (!directory.exists() && !directory.mkdir()) {
             throw new IOException(
@@ -396,12 +472,16 @@ public abstract class HealthAwareRecorder extends Recorder implements HealthDesc
                     FileOutputStream outputStream = new FileOutputStream(masterFile);
 
                     new FilePath(channel, file.getName()).copyTo(outputStream);
+
+                    count++;
+                    bytes += masterFile.length();
                 }
                 catch (IOException exception) {
                     logExceptionToFile(exception, masterFile, file.getName());
                 }
             }
         }
+        timings.record(PhaseTimings.COPYING_SOURCES, start, count, bytes);
     }
 
     /**
@@ -42,12 +42,15 @@ public class HealthReportBuilder implements Serializable {
      * @return the healthiness of a build
      */
     public HealthReport computeHealth(final AnnotationProvider result) {
+        return computeHealth(countAnnotations(result), result);
+    }
+
+    private int countAnnotations(final AnnotationProvider result) {
         int numberOfAnnotations = 0;
         for (Priority priority : Priority.collectPrioritiesFrom(healthDescriptor.getMinimumPriority())) {
             numberOfAnnotations += result.getNumberOfAnnotations(priority);
         }
-
-        return computeHealth(numberOfAnnotations, result);
+        return numberOfAnnotations;
     }
 
     /**
@@ -66,23 +69,47 @@ public class HealthReportBuilder implements Serializable {
     // CHECKSTYLE:CONSTANTS-OFF
     protected HealthReport computeHealth(final int counter, final AnnotationProvider result) {
         if (healthDescriptor.isHealthyReportEnabled()) {
-            int percentage;
-            if (counter < healthDescriptor.getHealthyAnnotations()) {
-                percentage = 100;
-            }
-            else if (counter > healthDescriptor.getUnHealthyAnnotations()) {
-                percentage = 0;
-            }
-            else {
-                percentage = 100 - ((counter - healthDescriptor.getHealthyAnnotations()) * 100
-                        / (healthDescriptor.getUnHealthyAnnotations() - healthDescriptor.getHealthyAnnotations()));
-            }
-            return new HealthReport(percentage, healthDescriptor.createDescription(result));
+            return new HealthReport(computeScore(counter), healthDescriptor.createDescription(result));
         }
         return null;
     }
+
+    private int computeScore(final int counter) {
+        if (counter < healthDescriptor.getHealthyAnnotations()) {
+            return 100;
+        }
+        else if (counter > healthDescriptor.getUnHealthyAnnotations()) {
+            return 0;
+        }
+        else {
+            return 100 - ((counter - healthDescriptor.getHealthyAnnotations()) * 100
+                    / (healthDescriptor.getUnHealthyAnnotations() - healthDescriptor.getHealthyAnnotations()));
+        }
+    }
     // CHECKSTYLE:CONSTANTS-ON
 
+    /**
+     * Computes a snapshot of the healthiness of a build based on the specified
+     * results. The snapshot could be stored with the build so that the health
+     * report could be created later on without counting the annotations again.
+     *
+     * @param result
+     *            annotations of the current build
+     * @return the snapshot of the healthiness
+     * @since 1.55
+     */
+    public HealthSnapshot computeSnapshot(final AnnotationProvider result) {
+        int numberOfAnnotations = countAnnotations(result);
+        int score;
+        if (healthDescriptor.isHealthyReportEnabled()) {
+            score = computeScore(numberOfAnnotations);
+        }
+        else {
+            score = -1;
+        }
+        return new HealthSnapshot(healthDescriptor, numberOfAnnotations, score);
+    }
+
     /** Backward compatibility. @deprecated */
     @edu.umd.cs.findbugs.annotations.SuppressWarnings("SE")
     @SuppressWarnings("PMD")
@@ -0,0 +1,102 @@
+package hudson.plugins.analysis.core;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.ObjectUtils;
+
+import hudson.model.HealthReport;
+
+import hudson.plugins.analysis.util.model.AnnotationProvider;
+
+/**
+ * Precomputed health of a build. The snapshot stores the score and the number
+ * of annotations that has been used to compute the score, together with the
+ * health configuration that was active at that time. As long as the
+ * configuration does not change, the health report could be created from the
+ * snapshot without counting the annotations again.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class HealthSnapshot implements Serializable {
+    private static final long serialVersionUID = -5526713396651744102L;
+
+    private final int score;
+    private final int numberOfAnnotations;
+    private final boolean isEnabled;
+    private final String healthy;
+    private final String unHealthy;
+    private final String minimumPriority;
+
+    /**
+     * Creates a new instance of {@link HealthSnapshot}.
+     *
+     * @param healthDescriptor
+     *            the health configuration used to compute the score
+     * @param numberOfAnnotations
+     *            the number of annotations used to compute the score
+     * @param score
+     *            the computed score, or -1 if the health report is disabled
+     */
+    public HealthSnapshot(final AbstractHealthDescriptor healthDescriptor, final int numberOfAnnotations, final int score) {
+        this.numberOfAnnotations = numberOfAnnotations;
+        this.score = score;
+
+        isEnabled = healthDescriptor.isHealthyReportEnabled();
+        healthy = healthDescriptor.getHealthy();
+        unHealthy = healthDescriptor.getUnHealthy();
+        minimumPriority = String.valueOf(healthDescriptor.getMinimumPriority());
+    }
+
+    /**
+     * Returns whether this snapshot has been computed with the same health
+     * configuration as the specified health descriptor.
+     *
+     * @param healthDescriptor
+     *            the health descriptor to compare with
+     * @return <code>true</code> if this snapshot is still valid,
+     *         <code>false</code> if it needs to be recomputed
+     */
+    public boolean isValidFor(final AbstractHealthDescriptor healthDescriptor) {
+        return isEnabled == healthDescriptor.isHealthyReportEnabled()
+                && ObjectUtils.equals(healthy, healthDescriptor.getHealthy())
+                && ObjectUtils.equals(unHealthy, healthDescriptor.getUnHealthy())
+                && minimumPriority.equals(String.valueOf(healthDescriptor.getMinimumPriority()));
+    }
+
+    /**
+     * Returns the computed score.
+     *
+     * @return the score, or -1 if the health report is disabled
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of annotations that has been used to compute the
+     * score.
+     *
+     * @return the number of annotations
+     */
+    public int getNumberOfAnnotations() {
+        return numberOfAnnotations;
+    }
+
+    /**
+     * Creates the health report of this snapshot.
+     *
+     * @param healthDescriptor
+     *            the health descriptor that creates the description
+     * @param result
+     *            the result to describe
+     * @return the health report, or <code>null</code> if the health report is
+     *         disabled
+     */
+    public HealthReport createHealthReport(final AbstractHealthDescriptor healthDescriptor, final AnnotationProvider result) {
+        if (isEnabled) {
+            return new HealthReport(score, healthDescriptor.createDescription(result));
+        }
+        return null;
+    }
+}
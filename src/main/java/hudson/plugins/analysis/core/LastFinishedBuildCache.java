@@ -0,0 +1,161 @@
+package hudson.plugins.analysis.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import hudson.Extension;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Caches the number of the last finished build with a result of each project
+ * action, see {@link AbstractProjectAction#getLastFinishedBuild()}. The
+ * entries are keyed by the project and the class of the project action, so
+ * that they survive the recreation of transient project actions. When a
+ * newer build of a project completes the entries of the project are marked
+ * as outdated: the next lookup then only needs to visit the builds that are
+ * newer than the cached one. When the cached build is deleted the entry is
+ * removed.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+@Extension
+public class LastFinishedBuildCache extends RunListener<Run<?, ?>> {
+    /** The cached builds, mapped by project and by the class of the project action. */
+    private static final Map<Job<?, ?>, Map<Class<?>, Entry>> ENTRIES = new WeakHashMap<Job<?, ?>, Map<Class<?>, Entry>>();
+    /** The number of completed or deleted builds, detects events that occur while a lookup visits the builds. */
+    private static long events; // NOPMD
+
+    @Override
+    public void onCompleted(final Run<?, ?> run, final TaskListener listener) {
+        synchronized (ENTRIES) {
+            events++;
+            Map<Class<?>, Entry> entries = ENTRIES.get(run.getParent());
+            if (entries != null) {
+                for (Entry entry : entries.values()) {
+                    if (run.getNumber() > entry.number) {
+                        entry.isOutdated = true;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onDeleted(final Run<?, ?> run) {
+        synchronized (ENTRIES) {
+            events++;
+            Map<Class<?>, Entry> entries = ENTRIES.get(run.getParent());
+            if (entries != null) {
+                for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+                    if (iterator.next().number == run.getNumber()) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the last finished build of the specified project action.
+     *
+     * @param action
+     *            the project action to get the last finished build for
+     * @return the last finished build or <code>null</code> if there is no
+     *         such build
+     */
+    static AbstractBuild<?, ?> getLastFinishedBuild(final AbstractProjectAction<?> action) {
+        AbstractProject<?, ?> project = action.getProject();
+        long eventsBeforeLookup = getEvents();
+        Entry entry = getEntry(project, action.getClass());
+
+        AbstractBuild<?, ?> cached = null;
+        int lowestNumber = 0;
+        if (entry != null) {
+            cached = project.getBuildByNumber(entry.number);
+            if (cached != null && !entry.isOutdated) {
+                return cached;
+            }
+            if (cached != null) {
+                lowestNumber = entry.number;
+            }
+        }
+
+        AbstractBuild<?, ?> lastBuild = project.getLastBuild();
+        while (lastBuild != null && lastBuild.getNumber() > lowestNumber && !action.isFinishedWithResult(lastBuild)) {
+            lastBuild = lastBuild.getPreviousBuild();
+        }
+        if (lastBuild != null && lastBuild.getNumber() <= lowestNumber) {
+            lastBuild = cached;
+        }
+        putEntry(project, action.getClass(), lastBuild, eventsBeforeLookup);
+
+        return lastBuild;
+    }
+
+    private static long getEvents() {
+        synchronized (ENTRIES) {
+            return events;
+        }
+    }
+
+    private static Entry getEntry(final AbstractProject<?, ?> project, final Class<?> actionType) {
+        synchronized (ENTRIES) {
+            Map<Class<?>, Entry> entries = ENTRIES.get(project);
+            if (entries == null) {
+                return null;
+            }
+            return entries.get(actionType);
+        }
+    }
+
+    private static void putEntry(final AbstractProject<?, ?> project, final Class<?> actionType,
+            final AbstractBuild<?, ?> build, final long eventsBeforeLookup) {
+        synchronized (ENTRIES) {
+            Map<Class<?>, Entry> entries = ENTRIES.get(project);
+            if (build == null) {
+                if (entries != null) {
+                    entries.remove(actionType);
+                }
+            }
+            else {
+                if (entries == null) {
+                    entries = new HashMap<Class<?>, Entry>();
+                    ENTRIES.put(project, entries);
+                }
+                Entry entry = new Entry(build.getNumber());
+                entry.isOutdated = events != eventsBeforeLookup;
+                entries.put(actionType, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached builds.
+     */
+    static void clear() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+        }
+    }
+
+    /**
+     * The cached build of a project action.
+     */
+    private static class Entry {
+        private final int number;
+        private volatile boolean isOutdated;
+
+        Entry(final int number) {
+            this.number = number;
+        }
+    }
+}
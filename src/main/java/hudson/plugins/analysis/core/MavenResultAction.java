@@ -1,6 +1,7 @@
 package hudson.plugins.analysis.core;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,7 @@ import java.util.logging.Logger;
 
 import javax.annotation.CheckForNull;
 
+import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.StaplerProxy;
 
@@ -39,6 +41,9 @@ import hudson.plugins.analysis.util.model.AbstractAnnotation;
  * @param <T> type of the build result
  */
 public abstract class MavenResultAction<T extends BuildResult> implements StaplerProxy, AggregatableAction, MavenAggregatedReport, ResultAction<T> {
+    /** Filter for the source files in the folder {@link AbstractAnnotation#WORKSPACE_FILES}. */
+    private static final FilenameFilter TEMP_FILES = (FilenameFilter)FileFilterUtils.suffixFileFilter(".tmp");
+
     /** The default encoding to be used when reading and parsing files. */
     private final String defaultEncoding;
     /** Reuse all the functionality of the action for freestyle jobs. */
@@ -47,6 +52,8 @@ public abstract class MavenResultAction<T extends BuildResult> implements Staple
     private transient StringPluginLogger logger;
     private transient Set<MavenModule> modules = Sets.newHashSet();
     private final transient String pluginName;
+    /** Names of the source files that are already available in the build folder of this aggregated build. */
+    private transient Set<String> sourceFilesManifest;
 
     /**
      * Creates a new instance of {@link MavenResultAction}.
@@ -118,19 +125,85 @@ public abstract class MavenResultAction<T extends BuildResult> implements Staple
         }
     }
 
+    /**
+     * Propagates the source files of the specified module build to the build
+     * folder of the aggregated build. Only files that are not yet part of the
+     * aggregated build folder are propagated: the names of the already
+     * available files are recorded in a manifest, so the aggregated folder is
+     * scanned only once. New files are copied, so that they are still
+     * available if the module build is deleted or the build folders are moved.
+     * A file is added to the manifest only if it has been copied, otherwise
+     * the copy is retried with the next module build that provides the file.
+     *
+     * @param newBuild
+     *            the module build that provides the source files
+     */
     private void copySourceFilesToModuleBuildFolder(final MavenBuild newBuild) {
-        FilePath filePath = new FilePath(new File(newBuild.getRootDir(), AbstractAnnotation.WORKSPACE_FILES));
-        try {
-            filePath.copyRecursiveTo("*.tmp", new FilePath(new File(getOwner().getRootDir(), AbstractAnnotation.WORKSPACE_FILES)));
+        File[] sourceFiles = new File(newBuild.getRootDir(), AbstractAnnotation.WORKSPACE_FILES).listFiles(TEMP_FILES);
+        if (sourceFiles == null || sourceFiles.length == 0) {
+            return;
         }
-        catch (IOException exception) {
-            Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Can't copy workspace files: ", exception);
+        File target = new File(getOwner().getRootDir(), AbstractAnnotation.WORKSPACE_FILES);
+        if (!target.exists() && !target.mkdirs()) {
+            Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Can't create directory for workspace files: " + target);
+            return;
+        }
+        try {
+            Set<String> manifest = getSourceFilesManifest(target);
+            for (File sourceFile : sourceFiles) {
+                String name = sourceFile.getName();
+                if (!manifest.contains(name) && copy(sourceFile, new File(target, name))) {
+                    manifest.add(name);
+                }
+            }
         }
         catch (InterruptedException exception) {
             // ignore, user canceled the operation
         }
     }
 
+    private boolean copy(final File sourceFile, final File targetFile) throws InterruptedException {
+        if (targetFile.exists()) {
+            return true;
+        }
+        try {
+            targetFile.delete(); // NOPMD: removes a dangling link of a deleted module build
+            new FilePath(sourceFile).copyTo(new FilePath(targetFile));
+
+            return true;
+        }
+        catch (IOException exception) {
+            Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Can't copy workspace file " + sourceFile, exception);
+            targetFile.delete(); // NOPMD: the incomplete copy is retried with the next module build
+
+            return false;
+        }
+    }
+
+    /**
+     * Returns the names of the source files that are already available in the
+     * build folder of the aggregated build. The folder is scanned only on the
+     * first invocation.
+     *
+     * @param target
+     *            the folder of the aggregated build
+     * @return the manifest of already available files
+     */
+    private Set<String> getSourceFilesManifest(final File target) {
+        if (sourceFilesManifest == null) {
+            sourceFilesManifest = Sets.newHashSet();
+            File[] existing = target.listFiles(TEMP_FILES);
+            if (existing != null) {
+                for (File file : existing) {
+                    if (file.exists()) { // skips dangling links
+                        sourceFilesManifest.add(file.getName());
+                    }
+                }
+            }
+        }
+        return sourceFilesManifest;
+    }
+
     private T createAggregatedResult(@CheckForNull final T existingResult, final T additionalResult) {
         T createdResult = createResult(existingResult, additionalResult);
         if (new NullHealthDescriptor(delegate.getHealthDescriptor()).isThresholdEnabled()) {
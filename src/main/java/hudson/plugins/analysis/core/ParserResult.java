@@ -27,6 +27,7 @@ import hudson.FilePath;
 
 import hudson.plugins.analysis.Messages;
 import hudson.plugins.analysis.util.FileFinder;
+import hudson.plugins.analysis.util.WorkspaceSnapshot;
 import hudson.plugins.analysis.util.model.FileAnnotation;
 import hudson.plugins.analysis.util.model.Priority;
 
@@ -55,13 +56,17 @@ public class ParserResult implements Serializable {
     private final Set<String> modules = new HashSet<String>();
     /** The workspace. */
     private final Workspace workspace;
-    /** A mapping of relative file names to absolute file names. */
+    /** A mapping of relative file names to absolute file names, not transferred from agents. */
     @SuppressWarnings("Se")
-    private final Multimap<String, String> fileNameCache = HashMultimap.create();
+    private transient Multimap<String, String> fileNameCache;
     /** The log messages. @since 1.20 **/
     private String logMessage;
     /** Total number of modules. @since 1.31 **/
     private int numberOfModules;
+    /** The timings of the parsing phases. @since 1.55 **/
+    private PhaseTimings timings = new PhaseTimings();
+    /** The parsed report files, only available in incremental mode. @since 1.55 **/
+    private ReportFileIndex reportFiles;
 
     /**
      * Creates a new instance of {@link ParserResult}.
@@ -80,6 +85,20 @@ public class ParserResult implements Serializable {
         this(new FilePathAdapter(workspace));
     }
 
+    /**
+     * Creates a new instance of {@link ParserResult}. Files are searched in the
+     * specified snapshot of the workspace rather than in the file system.
+     *
+     * @param workspace
+     *            the workspace to find the files in
+     * @param snapshot
+     *            the snapshot of the workspace, might be <code>null</code>
+     * @since 1.55
+     */
+    public ParserResult(final FilePath workspace, final WorkspaceSnapshot snapshot) {
+        this(snapshot == null ? new FilePathAdapter(workspace) : new SnapshotAdapter(workspace, snapshot));
+    }
+
     /**
      * Creates a new instance of {@link ParserResult}.
      *
@@ -117,6 +136,7 @@ public class ParserResult implements Serializable {
         addAnnotations(additionalProject.getAnnotations());
         addErrors(additionalProject.getErrorMessages());
         addModules(additionalProject.getModules());
+        getTimings().addAll(additionalProject.getTimings());
     }
 
     /**
@@ -128,6 +148,7 @@ public class ParserResult implements Serializable {
     private void expandRelativePaths(final FileAnnotation annotation) {
         try {
             if (hasRelativeFileName(annotation)) {
+                long start = System.nanoTime();
                 Workspace remoteFile = workspace.child(annotation.getFileName());
                 if (remoteFile.exists()) {
                     annotation.setFileName(remoteFile.getPath());
@@ -135,6 +156,7 @@ public class ParserResult implements Serializable {
                 else {
                     findFileByScanningAllWorkspaceFiles(annotation);
                 }
+                getTimings().record(PhaseTimings.PATH_RESOLUTION, start, 1);
             }
         }
         catch (IOException exception) {
@@ -157,6 +179,9 @@ public class ParserResult implements Serializable {
      *             If the user cancels this action
      */
     private void findFileByScanningAllWorkspaceFiles(final FileAnnotation annotation) throws IOException, InterruptedException {
+        if (fileNameCache == null) {
+            fileNameCache = HashMultimap.create();
+        }
         if (fileNameCache.isEmpty()) {
             populateFileNameCache();
         }
@@ -232,6 +257,19 @@ public class ParserResult implements Serializable {
         }
     }
 
+    /**
+     * Adds an annotation that has been read from the transfer format. The
+     * file name of the annotation has been resolved already on the agent.
+     *
+     * @param annotation the annotation to add
+     */
+    void restoreAnnotation(final FileAnnotation annotation) {
+        if (annotations.add(annotation)) {
+            Integer count = annotationCountByPriority.get(annotation.getPriority());
+            annotationCountByPriority.put(annotation.getPriority(), count + 1);
+        }
+    }
+
     /**
      * Adds the specified annotations to this container.
      *
@@ -403,6 +441,20 @@ public class ParserResult implements Serializable {
         modules.addAll(additionalModules);
     }
 
+    /**
+     * Restores the parsed modules that have been read from the transfer
+     * format.
+     *
+     * @param parsedModules
+     *            the names of the parsed modules
+     * @param number
+     *            the total number of parsed modules
+     */
+    void restoreModules(final Collection<String> parsedModules, final int number) {
+        modules.addAll(parsedModules);
+        numberOfModules += number;
+    }
+
     @Override
     public String toString() {
         return getNumberOfAnnotations() + " annotations";
@@ -428,6 +480,36 @@ public class ParserResult implements Serializable {
         return StringUtils.defaultString(logMessage);
     }
 
+    /**
+     * Returns the timings of the phases that created this result.
+     *
+     * @return the timings
+     * @since 1.55
+     */
+    public PhaseTimings getTimings() {
+        if (timings == null) {
+            timings = new PhaseTimings(); // NOPMD: results of older versions
+        }
+        return timings;
+    }
+
+    /**
+     * Returns the report files that have been parsed or reused to create this
+     * result. The index is only available if the {@link FilesParser} has been
+     * run in incremental mode.
+     *
+     * @return the report files, might be <code>null</code>
+     * @see FilesParser#setPreviousReports(ReportFileIndex)
+     * @since 1.55
+     */
+    public ReportFileIndex getReportFiles() {
+        return reportFiles;
+    }
+
+    void setReportFiles(final ReportFileIndex reportFiles) {
+        this.reportFiles = reportFiles;
+    }
+
     /**
      * Facade for the remote workspace.
      */
@@ -480,6 +562,41 @@ public class ParserResult implements Serializable {
         }
     }
 
+    /**
+     * Finds the files in a snapshot of the workspace. The snapshot is not
+     * serialized, i.e. after a transfer to the master this adapter behaves
+     * like a {@link FilePathAdapter}.
+     */
+    private static class SnapshotAdapter extends FilePathAdapter {
+        private static final long serialVersionUID = -1387469423718270862L;
+
+        @SuppressWarnings("Se")
+        private final transient WorkspaceSnapshot snapshot;
+
+        /**
+         * Creates a new instance of {@link SnapshotAdapter}.
+         *
+         * @param workspace
+         *            the {@link FilePath} to wrap
+         * @param snapshot
+         *            the snapshot of the workspace
+         */
+        SnapshotAdapter(final FilePath workspace, final WorkspaceSnapshot snapshot) {
+            super(workspace);
+
+            this.snapshot = snapshot;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String[] findFiles(final String pattern) throws IOException, InterruptedException {
+            if (snapshot == null) {
+                return super.findFiles(pattern);
+            }
+            return snapshot.find(pattern);
+        }
+    }
+
     /**
      * Null pattern.
      */
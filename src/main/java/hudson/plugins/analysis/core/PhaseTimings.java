@@ -0,0 +1,246 @@
+package hudson.plugins.analysis.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Records the wall time, the number of processed items, and the number of
+ * processed bytes of the individual phases of the publishing of analysis
+ * results. If a phase is recorded several times, the values are summed up.
+ * The durations are summed up in nanoseconds, so that short phases that are
+ * recorded many times do not vanish; they are converted to milliseconds only
+ * for display. The phases are stored in the order of their first recording.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+@ExportedBean
+public class PhaseTimings implements Serializable {
+    private static final long serialVersionUID = -3190441394370652270L;
+
+    /** Finding the report files in the workspace. */
+    public static final String FINDING_FILES = "Finding files";
+    /** Parsing the report files. */
+    public static final String PARSING = "Parsing";
+    /** Detecting the modules of the report files. */
+    public static final String MODULE_DETECTION = "Module detection";
+    /** Resolving the absolute paths of relative file names. */
+    public static final String PATH_RESOLUTION = "Path resolution";
+    /** Computing the context hash codes of the warnings. */
+    public static final String CONTEXT_HASHING = "Context hashing";
+    /** Computing the new and fixed warnings. */
+    public static final String DIFFERENCING = "Differencing";
+    /** Writing the warnings to the build folder. */
+    public static final String SERIALIZATION = "Serialization";
+    /** Copying the source files with warnings to the build folder. */
+    public static final String COPYING_SOURCES = "Copying sources";
+    /** The whole publishing of the results. */
+    public static final String TOTAL = "Total";
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /** The recorded phases. */
+    private final List<Phase> phases = new ArrayList<Phase>();
+
+    /**
+     * Records the specified phase.
+     *
+     * @param name
+     *            the name of the phase
+     * @param startNanos
+     *            the start of the phase, as returned by
+     *            {@link System#nanoTime()}
+     * @param count
+     *            the number of processed items
+     * @param bytes
+     *            the number of processed bytes
+     */
+    public void record(final String name, final long startNanos, final long count, final long bytes) {
+        addNanos(name, System.nanoTime() - startNanos, count, bytes);
+    }
+
+    /**
+     * Records the specified phase.
+     *
+     * @param name
+     *            the name of the phase
+     * @param startNanos
+     *            the start of the phase, as returned by
+     *            {@link System#nanoTime()}
+     * @param count
+     *            the number of processed items
+     */
+    public void record(final String name, final long startNanos, final long count) {
+        record(name, startNanos, count, 0);
+    }
+
+    /**
+     * Adds the specified values to the phase with the given name.
+     *
+     * @param name
+     *            the name of the phase
+     * @param millis
+     *            the duration in milliseconds
+     * @param count
+     *            the number of processed items
+     * @param bytes
+     *            the number of processed bytes
+     */
+    public void add(final String name, final long millis, final long count, final long bytes) {
+        addNanos(name, millis * NANOS_PER_MILLI, count, bytes);
+    }
+
+    /**
+     * Adds the specified values to the phase with the given name.
+     *
+     * @param name
+     *            the name of the phase
+     * @param nanos
+     *            the duration in nanoseconds
+     * @param count
+     *            the number of processed items
+     * @param bytes
+     *            the number of processed bytes
+     */
+    synchronized void addNanos(final String name, final long nanos, final long count, final long bytes) {
+        for (Phase phase : phases) {
+            if (phase.name.equals(name)) {
+                phase.add(nanos, count, bytes);
+                return;
+            }
+        }
+        Phase phase = new Phase(name);
+        phase.add(nanos, count, bytes);
+        phases.add(phase);
+    }
+
+    /**
+     * Adds all phases of the specified timings.
+     *
+     * @param other
+     *            the timings to add
+     */
+    public void addAll(final PhaseTimings other) {
+        for (Phase phase : other.getPhases()) {
+            addNanos(phase.name, phase.nanos, phase.count, phase.bytes);
+        }
+    }
+
+    /**
+     * Returns the recorded phases.
+     *
+     * @return the phases
+     */
+    @Exported(inline = true)
+    public synchronized List<Phase> getPhases() {
+        return new ArrayList<Phase>(phases);
+    }
+
+    /**
+     * Returns whether no phase has been recorded.
+     *
+     * @return <code>true</code> if no phase has been recorded
+     */
+    public synchronized boolean isEmpty() {
+        return phases.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : phases) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(phase);
+        }
+        return summary.toString();
+    }
+
+    /**
+     * A single phase.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class Phase implements Serializable {
+        private static final long serialVersionUID = 8157394451397839227L;
+
+        private final String name;
+        private long nanos;
+        private long count;
+        private long bytes;
+
+        /**
+         * Creates a new instance of {@link Phase}.
+         *
+         * @param name
+         *            the name of the phase
+         */
+        Phase(final String name) {
+            this.name = name;
+        }
+
+        void add(final long duration, final long items, final long size) {
+            nanos += duration;
+            count += items;
+            bytes += size;
+        }
+
+        /**
+         * Returns the name of this phase.
+         *
+         * @return the name
+         */
+        @Exported
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the wall time of this phase.
+         *
+         * @return the duration in milliseconds
+         */
+        @Exported
+        public long getDuration() {
+            return nanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Returns the wall time of this phase.
+         *
+         * @return the duration in nanoseconds
+         */
+        long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the number of processed items.
+         *
+         * @return the number of items
+         */
+        @Exported
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the number of processed bytes.
+         *
+         * @return the number of bytes
+         */
+        @Exported
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d ms (%d items, %d bytes)", name, getDuration(), count, bytes);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package hudson.plugins.analysis.core;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.init.Terminator;
+
+/**
+ * Runs the work that does not influence the build result in the background:
+ * persisting the new and fixed warnings of a build when they are requested
+ * for the first time, e.g. by the list token macros. The tasks run on a bounded pool of daemon threads on the master.
+ * If the queue of the pool is full, then the task is run by the thread that
+ * submits it, so a master that can't keep up slows down the builds rather
+ * than running out of memory. When Jenkins is shut down, the pending tasks
+ * are finished before the JVM exits. Asynchronous execution is enabled in
+ * the {@link GlobalSettings}.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+@ExportedBean
+public final class PostBuildExecutor {
+    private static final Logger LOGGER = Logger.getLogger(PostBuildExecutor.class.getName());
+
+    private static final int THREADS = Integer.getInteger(PostBuildExecutor.class.getName() + ".threads", 2);
+    private static final int QUEUE_CAPACITY = Integer.getInteger(PostBuildExecutor.class.getName() + ".queue", 100);
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final int MAX_RECENT_FAILURES = 10;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS
+            = Long.getLong(PostBuildExecutor.class.getName() + ".shutdownTimeout", 300);
+
+    private static final PostBuildExecutor INSTANCE = new PostBuildExecutor(THREADS, QUEUE_CAPACITY);
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong ranOnCaller = new AtomicLong();
+    private final LinkedList<String> recentFailures = new LinkedList<String>();
+
+    /**
+     * Returns the executor of this master.
+     *
+     * @return the executor
+     */
+    public static PostBuildExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns whether the post-build tasks should be run asynchronously.
+     *
+     * @return <code>true</code> if asynchronous execution has been enabled in
+     *         the global settings
+     */
+    public static boolean isEnabled() {
+        return Jenkins.getInstance() != null && GlobalSettings.instance().getAsynchronousPostBuild();
+    }
+
+    /**
+     * Creates a new instance of {@link PostBuildExecutor}.
+     *
+     * @param threads
+     *            the number of threads
+     * @param capacity
+     *            the number of tasks that could be queued
+     */
+    PostBuildExecutor(final int threads, final int capacity) {
+        executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(capacity), new PostBuildThreadFactory(),
+                new RunInCaller());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Finishes the pending tasks before Jenkins is shut down.
+     */
+    @Terminator
+    public static void finishPendingTasks() {
+        getInstance().shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits until the queued and running tasks have been finished. Tasks that
+     * are submitted afterwards are run by the submitting thread.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return <code>true</code> if all tasks have been finished,
+     *         <code>false</code> if the timeout elapsed before
+     */
+    boolean shutdown(final long timeout, final TimeUnit unit) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeout, unit)) {
+                return true;
+            }
+            LOGGER.log(Level.WARNING, "Post-build tasks not finished before shutdown: " + executor.getQueue().size()
+                    + " queued, " + executor.getActiveCount() + " running");
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Submits the specified task. If the queue is full, then the task is run
+     * in the calling thread before this method returns.
+     *
+     * @param name
+     *            the name of the task, used in the log and status
+     * @param task
+     *            the task to run
+     * @return the future of the task
+     */
+    public Future<Void> submit(final String name, final Callable<Void> task) {
+        submitted.incrementAndGet();
+        final Thread caller = Thread.currentThread();
+
+        return executor.submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                if (Thread.currentThread() == caller) {
+                    ranOnCaller.incrementAndGet();
+                }
+                try {
+                    task.call();
+                    completed.incrementAndGet();
+
+                    return null;
+                }
+                catch (Exception exception) { // NOPMD
+                    recordFailure(name, exception);
+
+                    throw exception;
+                }
+            }
+        });
+    }
+
+    private void recordFailure(final String name, final Exception exception) {
+        failed.incrementAndGet();
+        LOGGER.log(Level.WARNING, "Post-build task failed: " + name, exception);
+        synchronized (recentFailures) {
+            recentFailures.addFirst(name + ": " + exception);
+            if (recentFailures.size() > MAX_RECENT_FAILURES) {
+                recentFailures.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Waits until the specified task has been finished. Failures have been
+     * logged already and are ignored.
+     *
+     * @param task
+     *            the task to wait for, might be <code>null</code>
+     */
+    public static void waitFor(final Future<Void> task) {
+        if (task != null) {
+            try {
+                task.get();
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException exception) {
+                // already logged
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks that wait for a thread.
+     *
+     * @return the number of queued tasks
+     */
+    @Exported
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of tasks that are currently running.
+     *
+     * @return the number of running tasks
+     */
+    @Exported
+    public int getRunning() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of submitted tasks.
+     *
+     * @return the number of submitted tasks
+     */
+    @Exported
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns the number of successfully completed tasks.
+     *
+     * @return the number of completed tasks
+     */
+    @Exported
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of failed tasks.
+     *
+     * @return the number of failed tasks
+     */
+    @Exported
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of tasks that have been run by the submitting thread
+     * since the queue was full.
+     *
+     * @return the number of tasks run by the submitting thread
+     */
+    @Exported
+    public long getRanOnCaller() {
+        return ranOnCaller.get();
+    }
+
+    /**
+     * Returns the latest failures, the most recent first.
+     *
+     * @return the latest failures
+     */
+    @Exported
+    public List<String> getRecentFailures() {
+        synchronized (recentFailures) {
+            return new ArrayList<String>(recentFailures);
+        }
+    }
+
+    /**
+     * Runs a rejected task in the thread that submits it. In contrast to
+     * {@link ThreadPoolExecutor.CallerRunsPolicy} the task is run even if the
+     * executor has been shut down, so the future of the task is always
+     * completed.
+     */
+    private static class RunInCaller implements RejectedExecutionHandler {
+        /** {@inheritDoc} */
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor pool) {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Creates low priority daemon threads, so that pending tasks do not
+     * prevent a shutdown. The pending tasks are finished by
+     * {@link PostBuildExecutor#finishPendingTasks()}.
+     */
+    private static class PostBuildThreadFactory implements ThreadFactory {
+        private final AtomicInteger number = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "Static analysis post-build #" + number.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The digest, size and modification time of a report file. Two reports have
+ * the same content if size and digest are equal.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+final class ReportDigest implements Serializable {
+    private static final long serialVersionUID = 6236473627591734581L;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String digest;
+    private final long size;
+    private final long lastModified;
+
+    /**
+     * Computes the digest of the specified file.
+     *
+     * @param file
+     *            the report file
+     * @return the digest
+     * @throws IOException
+     *             if the file could not be read
+     */
+    static ReportDigest of(final File file) throws IOException {
+        MessageDigest sha1 = createDigest();
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                sha1.update(buffer, 0, read);
+            }
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+        return new ReportDigest(toHex(sha1.digest()), file.length(), file.lastModified());
+    }
+
+    private static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException exception) {
+            throw new IOException("SHA-1 is not available", exception);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte value : bytes) {
+            hex.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Creates a new instance of {@link ReportDigest}.
+     *
+     * @param digest
+     *            the SHA-1 digest of the content as hex string
+     * @param size
+     *            the size in bytes
+     * @param lastModified
+     *            the modification time
+     */
+    ReportDigest(final String digest, final long size, final long lastModified) {
+        this.digest = digest;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the SHA-1 digest of the content.
+     *
+     * @return the digest as hex string
+     */
+    String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Returns the size of the report.
+     *
+     * @return the size in bytes
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the modification time of the report.
+     *
+     * @return the modification time
+     */
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns whether the specified digest describes the same content.
+     *
+     * @param other
+     *            the other digest, might be <code>null</code>
+     * @return <code>true</code> if size and digest are the same
+     */
+    boolean hasSameContent(final ReportDigest other) {
+        return other != null && size == other.size && digest.equals(other.digest);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d bytes, modified %tc)", digest, size, lastModified);
+    }
+}
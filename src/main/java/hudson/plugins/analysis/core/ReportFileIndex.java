@@ -0,0 +1,254 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.XmlFile;
+
+import hudson.model.AbstractBuild;
+
+import hudson.plugins.analysis.util.model.AnnotationStream;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * The report files of a build, each with its digest and the annotations it
+ * produced. {@link FilesParser} uses the index of a previous build to reuse
+ * the annotations of report files that did not change instead of parsing
+ * them again. The index is stored in the root folder of the build.
+ *
+ * @author Ulli Hafner
+ * @see FilesParser#setPreviousReports(ReportFileIndex)
+ * @since 1.55
+ */
+public class ReportFileIndex implements Serializable {
+    private static final long serialVersionUID = -5637452807652306214L;
+    private static final Logger LOGGER = Logger.getLogger(ReportFileIndex.class.getName());
+
+    private static final String FILE_SUFFIX = "-reports.xml";
+    /** The number of previous builds that are searched for an index. */
+    private static final int MAX_PREVIOUS_BUILDS = 10;
+
+    /** The reports, mapped by their absolute path. */
+    private final Map<String, Report> reports = new HashMap<String, Report>();
+
+    /**
+     * Returns the index of the latest build before the specified build that
+     * has an index with the specified ID. If there is no such build, then an
+     * empty index is returned so that all reports will be parsed.
+     *
+     * @param build
+     *            the current build
+     * @param id
+     *            the ID of the plug-in that created the index
+     * @return the index of the previous build
+     */
+    public static ReportFileIndex findPrevious(final AbstractBuild<?, ?> build, final String id) {
+        AbstractBuild<?, ?> previous = build.getPreviousBuild();
+        for (int count = 0; previous != null && count < MAX_PREVIOUS_BUILDS; count++) {
+            XmlFile file = getFile(previous, id);
+            if (file.exists()) {
+                try {
+                    return (ReportFileIndex)file.read();
+                }
+                catch (IOException exception) {
+                    LOGGER.log(Level.WARNING, "Failed to read report index " + file, exception);
+
+                    break;
+                }
+            }
+            previous = previous.getPreviousBuild();
+        }
+        return new ReportFileIndex();
+    }
+
+    /**
+     * Stores this index in the root folder of the specified build.
+     *
+     * @param build
+     *            the build to store the index for
+     * @param id
+     *            the ID of the plug-in that created the index
+     * @throws IOException
+     *             if the index could not be written
+     */
+    public void save(final AbstractBuild<?, ?> build, final String id) throws IOException {
+        getFile(build, id).write(this);
+    }
+
+    private static XmlFile getFile(final AbstractBuild<?, ?> build, final String id) {
+        return new XmlFile(new AnnotationStream(), new File(build.getRootDir(), id + FILE_SUFFIX));
+    }
+
+    /**
+     * Returns the number of report files.
+     *
+     * @return the number of report files
+     */
+    public int size() {
+        return reports.size();
+    }
+
+    /**
+     * Returns the number of report files whose annotations have been reused.
+     *
+     * @return the number of reused report files
+     */
+    public int getNumberOfReusedReports() {
+        int count = 0;
+        for (Report report : reports.values()) {
+            if (report.reused) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the annotations of the specified report file.
+     *
+     * @param path
+     *            the absolute path of the report file
+     * @return the annotations of the report, an empty collection if the report
+     *         is unknown
+     */
+    public Collection<FileAnnotation> getAnnotations(final String path) {
+        Report report = reports.get(path);
+        if (report == null || report.annotations == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(report.annotations);
+    }
+
+    /**
+     * Returns the digests of all report files.
+     *
+     * @return the digests, mapped by the absolute paths of the reports
+     */
+    Map<String, ReportDigest> getDigests() {
+        Map<String, ReportDigest> digests = new HashMap<String, ReportDigest>();
+        for (Map.Entry<String, Report> entry : reports.entrySet()) {
+            digests.put(entry.getKey(), entry.getValue().digest);
+        }
+        return digests;
+    }
+
+    /**
+     * Returns whether the annotations of the specified report file are reused
+     * from the previous build.
+     *
+     * @param path
+     *            the absolute path of the report
+     * @return <code>true</code> if the report has not been parsed
+     */
+    boolean isReused(final String path) {
+        Report report = reports.get(path);
+
+        return report != null && report.reused;
+    }
+
+    /**
+     * Returns the keys of the annotations the specified report file produced.
+     * The keys are available until the index is completed.
+     *
+     * @param path
+     *            the absolute path of the report
+     * @return the keys, an empty array if the report is unknown or the index
+     *         has been completed
+     */
+    long[] getKeys(final String path) {
+        Report report = reports.get(path);
+        if (report == null || report.keys == null) {
+            return new long[0];
+        }
+        return report.keys;
+    }
+
+    /**
+     * Adds a report file that has been parsed.
+     *
+     * @param path
+     *            the absolute path of the report
+     * @param digest
+     *            the digest of the report
+     * @param keys
+     *            the keys of the annotations the report produced
+     */
+    void addParsedReport(final String path, final ReportDigest digest, final long[] keys) {
+        reports.put(path, new Report(digest, keys, false));
+    }
+
+    /**
+     * Adds a report file that has not been parsed since it did not change.
+     *
+     * @param path
+     *            the absolute path of the report
+     * @param digest
+     *            the digest of the report
+     */
+    void addReusedReport(final String path, final ReportDigest digest) {
+        reports.put(path, new Report(digest, new long[0], true));
+    }
+
+    /**
+     * Resolves the annotations of the parsed reports from the specified
+     * result and adds the annotations of the reused reports to the result.
+     *
+     * @param result
+     *            the result with the annotations of the parsed reports
+     * @param previous
+     *            the index of the previous build
+     */
+    void complete(final ParserResult result, final ReportFileIndex previous) {
+        Map<Long, FileAnnotation> annotationsByKey = new HashMap<Long, FileAnnotation>();
+        for (FileAnnotation annotation : result.getAnnotations()) {
+            annotationsByKey.put(annotation.getKey(), annotation);
+        }
+        for (Map.Entry<String, Report> entry : reports.entrySet()) {
+            Report report = entry.getValue();
+            if (report.reused) {
+                report.annotations = new ArrayList<FileAnnotation>(previous.getAnnotations(entry.getKey()));
+                for (FileAnnotation annotation : report.annotations) {
+                    result.restoreAnnotation(annotation);
+                }
+            }
+            else if (report.keys != null) {
+                report.annotations = new ArrayList<FileAnnotation>(report.keys.length);
+                for (long key : report.keys) {
+                    FileAnnotation annotation = annotationsByKey.get(key);
+                    if (annotation != null) {
+                        report.annotations.add(annotation);
+                    }
+                }
+            }
+            report.keys = null; // NOPMD
+        }
+    }
+
+    /**
+     * A report file of the index. Until the index is completed on the master,
+     * the annotations are referenced by their keys.
+     */
+    private static class Report implements Serializable {
+        private static final long serialVersionUID = 1752136429530914512L;
+
+        private final ReportDigest digest;
+        private final boolean reused;
+        private long[] keys;
+        private List<FileAnnotation> annotations;
+
+        Report(final ReportDigest digest, final long[] keys, final boolean reused) {
+            this.digest = digest;
+            this.keys = keys;
+            this.reused = reused;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package hudson.plugins.analysis.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Collects metrics about loading the results of builds on the master: how
+ * often the annotations, new warnings, and fixed warnings are loaded, how long
+ * it takes, how many bytes are deserialized, how often the weak references to
+ * loaded results are cleared by the garbage collector, and which jobs have
+ * the largest results. The metrics are available as JMX MBean
+ * <code>hudson.plugins.analysis:type=ResultLoadMetrics</code> and in the
+ * remote API of {@link ResultLoadMetricsAction}.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+@ExportedBean
+public final class ResultLoadMetrics implements ResultLoadMetricsMBean {
+    private static final Logger LOGGER = Logger.getLogger(ResultLoadMetrics.class.getName());
+    private static final String OBJECT_NAME = "hudson.plugins.analysis:type=ResultLoadMetrics";
+    private static final long[] HISTOGRAM_LIMITS = {10, 50, 100, 500, 1000, 5000};
+    private static final int MAX_LARGEST_RESULTS = 20;
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private static final ResultLoadMetrics INSTANCE = new ResultLoadMetrics();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException exception) {
+            LOGGER.log(Level.FINE, "Can't register MBean " + OBJECT_NAME, exception);
+        }
+    }
+
+    /**
+     * Returns the metrics of this master.
+     *
+     * @return the metrics
+     */
+    public static ResultLoadMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /** The kinds of loaded data. */
+    enum LoadType {
+        /** All annotations of a build. */
+        RESULT,
+        /** The new warnings of a build. */
+        NEW_WARNINGS,
+        /** The fixed warnings of a build. */
+        FIXED_WARNINGS,
+        /** Reading the data file of a build. */
+        DESERIALIZATION
+    }
+
+    private final Map<LoadType, Statistics> statistics = new ConcurrentHashMap<LoadType, Statistics>();
+    private final AtomicLong referenceClears = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final Map<String, RetainedResult> largestResults = new ConcurrentHashMap<String, RetainedResult>();
+
+    private ResultLoadMetrics() {
+        for (LoadType type : LoadType.values()) {
+            statistics.put(type, new Statistics());
+        }
+    }
+
+    /**
+     * Records a load of the specified type.
+     *
+     * @param type
+     *            the type of the loaded data
+     * @param startNanos
+     *            the start of the load, as returned by {@link System#nanoTime()}
+     */
+    void recordLoad(final LoadType type, final long startNanos) {
+        statistics.get(type).record((System.nanoTime() - startNanos) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Records the deserialization of a data file.
+     *
+     * @param startNanos
+     *            the start of the deserialization, as returned by
+     *            {@link System#nanoTime()}
+     * @param bytes
+     *            the size of the data file
+     */
+    void recordDeserialization(final long startNanos, final long bytes) {
+        recordLoad(LoadType.DESERIALIZATION, startNanos);
+        bytesRead.addAndGet(bytes);
+    }
+
+    /**
+     * Records that a weak reference to a loaded result has been cleared by the
+     * garbage collector.
+     */
+    void recordReferenceClear() {
+        referenceClears.incrementAndGet();
+    }
+
+    /**
+     * Records the size of a loaded result. For each job, only the largest
+     * result is kept.
+     *
+     * @param job
+     *            the full name of the job
+     * @param build
+     *            the build number
+     * @param annotations
+     *            the number of annotations
+     * @param bytes
+     *            the size of the data file
+     */
+    void recordRetained(final String job, final int build, final int annotations, final long bytes) {
+        RetainedResult current = new RetainedResult(job, build, annotations, bytes);
+        synchronized (largestResults) {
+            RetainedResult largest = largestResults.get(job);
+            if (largest == null || largest.annotations < annotations) {
+                largestResults.put(job, current);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getResultLoadCount() {
+        return statistics.get(LoadType.RESULT).getCount();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getNewWarningsLoadCount() {
+        return statistics.get(LoadType.NEW_WARNINGS).getCount();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getFixedWarningsLoadCount() {
+        return statistics.get(LoadType.FIXED_WARNINGS).getCount();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getReferenceClearCount() {
+        return referenceClears.get();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getResultLoadMillis() {
+        return statistics.get(LoadType.RESULT).getTotalMillis();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getDeserializationMillis() {
+        return statistics.get(LoadType.DESERIALIZATION).getTotalMillis();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long[] getHistogramLimits() {
+        return HISTOGRAM_LIMITS.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long[] getResultLoadHistogram() {
+        return statistics.get(LoadType.RESULT).getHistogram();
+    }
+
+    /** {@inheritDoc} */
+    @Exported
+    public long[] getDeserializationHistogram() {
+        return statistics.get(LoadType.DESERIALIZATION).getHistogram();
+    }
+
+    /** {@inheritDoc} */
+    public String[] getLargestResults() {
+        List<RetainedResult> results = getLargestRetainedResults();
+        String[] values = new String[results.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = results.get(i).toString();
+        }
+        return values;
+    }
+
+    /**
+     * Returns the status of the post-build work that is run in the background.
+     *
+     * @return the status of the post-build executor
+     */
+    @Exported(inline = true)
+    public PostBuildExecutor getPostBuildExecutor() {
+        return PostBuildExecutor.getInstance();
+    }
+
+    /**
+     * Returns the status of the warm-up of the latest results.
+     *
+     * @return the status of the warm-up
+     */
+    @Exported(inline = true)
+    public ResultWarmUp getWarmUp() {
+        return ResultWarmUp.getInstance();
+    }
+
+    /**
+     * Returns the largest loaded results, one per job, ordered by the number
+     * of annotations.
+     *
+     * @return the largest results
+     */
+    @Exported(name = "largestResults", inline = true)
+    public List<RetainedResult> getLargestRetainedResults() {
+        List<RetainedResult> results = new ArrayList<RetainedResult>(largestResults.values());
+        Collections.sort(results, new Comparator<RetainedResult>() {
+            public int compare(final RetainedResult left, final RetainedResult right) {
+                return right.annotations - left.annotations;
+            }
+        });
+        return results.subList(0, Math.min(MAX_LARGEST_RESULTS, results.size()));
+    }
+
+    /** {@inheritDoc} */
+    public void reset() {
+        for (Statistics value : statistics.values()) {
+            value.reset();
+        }
+        referenceClears.set(0);
+        bytesRead.set(0);
+        largestResults.clear();
+    }
+
+    /**
+     * Count, total time, and latency histogram of a type of loads.
+     */
+    private static final class Statistics {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_LIMITS.length + 1);
+
+        void record(final long millis) {
+            count.incrementAndGet();
+            totalMillis.addAndGet(millis);
+
+            int bucket = 0;
+            while (bucket < HISTOGRAM_LIMITS.length && millis >= HISTOGRAM_LIMITS[bucket]) {
+                bucket++;
+            }
+            histogram.incrementAndGet(bucket);
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getTotalMillis() {
+            return totalMillis.get();
+        }
+
+        long[] getHistogram() {
+            long[] values = new long[histogram.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = histogram.get(i);
+            }
+            return values;
+        }
+
+        void reset() {
+            count.set(0);
+            totalMillis.set(0);
+            for (int i = 0; i < histogram.length(); i++) {
+                histogram.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * The size of a loaded result. The retained heap is proportional to the
+     * number of annotations, the size of the data file gives a rough upper
+     * bound.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static final class RetainedResult {
+        private final String job;
+        private final int build;
+        private final int annotations;
+        private final long bytes;
+
+        RetainedResult(final String job, final int build, final int annotations, final long bytes) {
+            this.job = job;
+            this.build = build;
+            this.annotations = annotations;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the full name of the job.
+         *
+         * @return the job
+         */
+        @Exported
+        public String getJob() {
+            return job;
+        }
+
+        /**
+         * Returns the build number.
+         *
+         * @return the build number
+         */
+        @Exported
+        public int getBuild() {
+            return build;
+        }
+
+        /**
+         * Returns the number of annotations.
+         *
+         * @return the number of annotations
+         */
+        @Exported
+        public int getAnnotations() {
+            return annotations;
+        }
+
+        /**
+         * Returns the size of the data file.
+         *
+         * @return the size in bytes
+         */
+        @Exported
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s #%d: %d annotations, %d bytes", job, build, annotations, bytes);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package hudson.plugins.analysis.core;
+
+import java.io.IOException;
+
+import jenkins.model.Jenkins;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import hudson.Extension;
+
+import hudson.model.Api;
+import hudson.model.RootAction;
+
+/**
+ * Exposes the {@link ResultLoadMetrics} in the remote API, e.g. as
+ * <code>/analysis-metrics/api/json</code>. The action is not visible in the
+ * user interface and requires administrator permissions. A running
+ * {@link ResultWarmUp} could be cancelled with a POST request to
+ * <code>/analysis-metrics/cancelWarmUp</code>.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+@Extension
+public class ResultLoadMetricsAction implements RootAction {
+    /** {@inheritDoc} */
+    public String getIconFileName() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public String getDisplayName() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public String getUrlName() {
+        return "analysis-metrics";
+    }
+
+    /**
+     * Gets the remote API for the result load metrics.
+     *
+     * @return the remote API
+     */
+    public Api getApi() {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+
+        return new Api(ResultLoadMetrics.getInstance());
+    }
+
+    /**
+     * Cancels the warm-up of the latest results.
+     *
+     * @param request
+     *            Stapler request
+     * @param response
+     *            Stapler response
+     * @throws IOException
+     *             in case of an error
+     */
+    @RequirePOST
+    public void doCancelWarmUp(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+
+        ResultWarmUp.getInstance().cancel();
+        response.sendRedirect2("api/json");
+    }
+}
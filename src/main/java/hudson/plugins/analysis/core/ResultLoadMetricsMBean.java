@@ -0,0 +1,93 @@
+package hudson.plugins.analysis.core;
+
+/**
+ * JMX interface of {@link ResultLoadMetrics}.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public interface ResultLoadMetricsMBean {
+    /**
+     * Returns how often the annotations of a build have been loaded.
+     *
+     * @return the number of loaded results
+     */
+    long getResultLoadCount();
+
+    /**
+     * Returns how often the new warnings of a build have been computed.
+     *
+     * @return the number of loaded new warnings
+     */
+    long getNewWarningsLoadCount();
+
+    /**
+     * Returns how often the fixed warnings of a build have been computed.
+     *
+     * @return the number of loaded fixed warnings
+     */
+    long getFixedWarningsLoadCount();
+
+    /**
+     * Returns how often a result had to be loaded again because the garbage
+     * collector cleared the weak reference.
+     *
+     * @return the number of cleared references
+     */
+    long getReferenceClearCount();
+
+    /**
+     * Returns the total time spent in loading results.
+     *
+     * @return the total time in milliseconds
+     */
+    long getResultLoadMillis();
+
+    /**
+     * Returns the total time spent in deserializing data files.
+     *
+     * @return the total time in milliseconds
+     */
+    long getDeserializationMillis();
+
+    /**
+     * Returns the number of bytes of the deserialized data files.
+     *
+     * @return the number of bytes
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the upper limits of the buckets of the latency histograms. The
+     * last bucket has no upper limit.
+     *
+     * @return the limits in milliseconds
+     */
+    long[] getHistogramLimits();
+
+    /**
+     * Returns the latency histogram of loading results.
+     *
+     * @return the number of loads per bucket
+     */
+    long[] getResultLoadHistogram();
+
+    /**
+     * Returns the latency histogram of deserializing data files.
+     *
+     * @return the number of deserializations per bucket
+     */
+    long[] getDeserializationHistogram();
+
+    /**
+     * Returns the largest loaded results, one per job.
+     *
+     * @return the largest results, as human readable strings
+     */
+    String[] getLargestResults();
+
+    /**
+     * Resets all metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,246 @@
+package hudson.plugins.analysis.core;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import com.google.common.collect.Lists;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+
+import hudson.model.AbstractProject;
+
+/**
+ * Loads the latest results of all jobs in the background after Jenkins has
+ * been started, so that the first requests of the users do not need to load
+ * the annotations, compute the new and fixed warnings, and load the builds of
+ * the trend graph. For each project action the last finished build is
+ * resolved using {@link AbstractProjectAction#getLastFinishedBuild()}. The
+ * results are loaded by a small number of low priority daemon threads. The
+ * warm-up is enabled in the {@link GlobalSettings} and could be cancelled in
+ * {@link ResultLoadMetricsAction}.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+@ExportedBean
+public final class ResultWarmUp {
+    private static final Logger LOGGER = Logger.getLogger(ResultWarmUp.class.getName());
+
+    private static final int THREADS = Integer.getInteger(ResultWarmUp.class.getName() + ".threads", 2);
+    /** The number of builds of a trend graph in the default graph configuration. */
+    private static final int TREND_BUILD_COUNT = 50;
+
+    private static final ResultWarmUp INSTANCE = new ResultWarmUp();
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile boolean cancelled;
+    private ExecutorService executor;
+
+    /**
+     * Returns the warm-up service of this master.
+     *
+     * @return the warm-up service
+     */
+    public static ResultWarmUp getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the warm-up after all jobs have been loaded, if enabled in the
+     * global settings.
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void startAfterJobsLoaded() {
+        if (GlobalSettings.instance().getWarmUpResults()) {
+            List<AbstractProjectAction<?>> actions = Lists.newArrayList();
+            for (AbstractProject<?, ?> project : Jenkins.getInstance().getAllItems(AbstractProject.class)) {
+                for (AbstractProjectAction<?> action : project.getActions(AbstractProjectAction.class)) {
+                    actions.add(action);
+                }
+            }
+            getInstance().start(actions, THREADS);
+        }
+    }
+
+    /**
+     * Creates a new instance of {@link ResultWarmUp}.
+     */
+    ResultWarmUp() {
+        // only the singleton and tests create instances
+    }
+
+    /**
+     * Loads the latest results of the specified project actions in the
+     * background.
+     *
+     * @param actions
+     *            the project actions to load the results for
+     * @param threads
+     *            the number of threads to use
+     */
+    synchronized void start(final List<AbstractProjectAction<?>> actions, final int threads) {
+        if (executor != null) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Warming up the latest results of " + actions.size() + " project actions");
+
+        cancelled = false;
+        total.set(actions.size());
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), new WarmUpThreadFactory());
+        for (final AbstractProjectAction<?> action : actions) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    warmUp(action);
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    private void warmUp(final AbstractProjectAction<?> action) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            ResultAction<?> lastAction = action.getLastAction();
+            if (lastAction != null) {
+                BuildResult result = lastAction.getResult();
+                result.getContainer();
+                result.getNewWarnings();
+                result.getFixedWarnings();
+
+                for (int count = 1; count < TREND_BUILD_COUNT && !cancelled && result.hasPreviousResult(); count++) {
+                    result = result.getPreviousResult();
+                    if (result == null) {
+                        break; // see: HUDSON-6613
+                    }
+                }
+            }
+        }
+        // CHECKSTYLE:OFF
+        catch (RuntimeException exception) {
+            failed.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Can't warm up the results of " + action.getProject(), exception);
+        }
+        // CHECKSTYLE:ON
+        finally {
+            finished.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cancels the warm-up. Results that are currently loaded will be finished,
+     * all other results are skipped.
+     */
+    public synchronized void cancel() {
+        if (executor != null && !executor.isTerminated()) {
+            cancelled = true;
+            executor.shutdownNow();
+
+            LOGGER.log(Level.INFO, "Warm-up of the latest results cancelled");
+        }
+    }
+
+    /**
+     * Waits until all results have been loaded or the warm-up has been
+     * cancelled.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the time unit of the timeout
+     * @return <code>true</code> if the warm-up finished, <code>false</code>
+     *         if the timeout elapsed before
+     * @throws InterruptedException
+     *             if the current thread has been interrupted while waiting
+     */
+    boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        ExecutorService running;
+        synchronized (this) {
+            running = executor;
+        }
+        return running == null || running.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns whether the warm-up is running.
+     *
+     * @return <code>true</code> if the warm-up is running
+     */
+    @Exported
+    public synchronized boolean isRunning() {
+        return executor != null && !executor.isTerminated();
+    }
+
+    /**
+     * Returns whether the warm-up has been cancelled.
+     *
+     * @return <code>true</code> if the warm-up has been cancelled
+     */
+    @Exported
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the number of project actions to warm up.
+     *
+     * @return the number of project actions
+     */
+    @Exported
+    public int getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Returns the number of project actions that have been processed.
+     *
+     * @return the number of processed project actions
+     */
+    @Exported
+    public int getFinished() {
+        return finished.get();
+    }
+
+    /**
+     * Returns the number of project actions whose results could not be
+     * loaded.
+     *
+     * @return the number of failures
+     */
+    @Exported
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Creates minimum priority daemon threads, so that the warm-up does not
+     * compete with request handling and builds.
+     */
+    private static class WarmUpThreadFactory implements ThreadFactory {
+        private final AtomicInteger number = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "Static analysis warm-up #" + number.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+
+            return thread;
+        }
+    }
+}
@@ -12,6 +12,8 @@ public class SerializableSettings implements Settings, Serializable {
 
     private final boolean failOnCorrupt;
     private final boolean quietMode;
+    private final boolean asynchronousPostBuild;
+    private final boolean warmUpResults;
 
     /**
      * Creates a new instance of {@link SerializableSettings}.
@@ -22,6 +24,8 @@ public class SerializableSettings implements Settings, Serializable {
     public SerializableSettings(final Settings original) {
         failOnCorrupt = original.getFailOnCorrupt();
         quietMode = original.getQuietMode();
+        asynchronousPostBuild = original.getAsynchronousPostBuild();
+        warmUpResults = original.getWarmUpResults();
     }
 
     /** {@inheritDoc} */
@@ -33,5 +37,14 @@ public class SerializableSettings implements Settings, Serializable {
     public Boolean getFailOnCorrupt() {
         return failOnCorrupt;
     }
-}
 
+    /** {@inheritDoc} */
+    public Boolean getAsynchronousPostBuild() {
+        return asynchronousPostBuild;
+    }
+
+    /** {@inheritDoc} */
+    public Boolean getWarmUpResults() {
+        return warmUpResults;
+    }
+}
@@ -20,4 +20,21 @@ public interface Settings {
      * @return on <code>true</code> the build will be failed, on <code>false</code> an error message is reported
      */
     Boolean getFailOnCorrupt();
+
+    /**
+     * Returns whether the post-build work that does not influence the build result should be run asynchronously.
+     *
+     * @return on <code>true</code> the new and fixed warnings are written by the {@link PostBuildExecutor} when
+     *         they are requested for the first time, on <code>false</code> they are written by the requesting thread
+     * @since 1.55
+     */
+    Boolean getAsynchronousPostBuild();
+
+    /**
+     * Returns whether the latest results of all jobs should be loaded in the background after Jenkins has been started.
+     *
+     * @return on <code>true</code> the {@link ResultWarmUp} is started after the jobs have been loaded
+     * @since 1.55
+     */
+    Boolean getWarmUpResults();
 }
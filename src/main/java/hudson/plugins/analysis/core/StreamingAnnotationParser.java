@@ -0,0 +1,35 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A parser for annotations that pushes each found annotation into a sink
+ * rather than returning a collection of all annotations. So the annotations
+ * of a report need not be kept in memory twice: the sink already interns,
+ * resolves, de-duplicates, and counts the annotations while the report is
+ * parsed. {@link FilesParser} uses the method
+ * {@link #parse(File, String, AnnotationSink)} if a parser implements this
+ * interface, parsers that return a collection are wrapped by a
+ * {@link StreamingParserAdapter}.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public interface StreamingAnnotationParser extends AnnotationParser {
+    /**
+     * Parses the specified file and adds the found annotations to the
+     * specified sink.
+     *
+     * @param file
+     *            the file to parse
+     * @param moduleName
+     *            name of the maven module
+     * @param sink
+     *            the sink to add the annotations to
+     * @throws InvocationTargetException
+     *             if the file could not be parsed (wrap your exception in
+     *             this exception)
+     */
+    void parse(final File file, final String moduleName, final AnnotationSink sink) throws InvocationTargetException;
+}
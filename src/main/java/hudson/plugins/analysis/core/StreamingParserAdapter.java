@@ -0,0 +1,58 @@
+package hudson.plugins.analysis.core;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Adapts a parser that returns a collection of annotations to the
+ * {@link StreamingAnnotationParser} contract: the annotations of the
+ * collection are added to the sink one by one.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class StreamingParserAdapter implements StreamingAnnotationParser {
+    private static final long serialVersionUID = -4375520716433457120L;
+
+    private final AnnotationParser parser;
+
+    /**
+     * Returns a streaming parser for the specified parser.
+     *
+     * @param parser
+     *            the parser to adapt
+     * @return the parser itself if it is already a streaming parser, an
+     *         adapter otherwise
+     */
+    public static StreamingAnnotationParser adapt(final AnnotationParser parser) {
+        if (parser instanceof StreamingAnnotationParser) {
+            return (StreamingAnnotationParser)parser;
+        }
+        return new StreamingParserAdapter(parser);
+    }
+
+    /**
+     * Creates a new instance of {@link StreamingParserAdapter}.
+     *
+     * @param parser
+     *            the parser to adapt
+     */
+    public StreamingParserAdapter(final AnnotationParser parser) {
+        this.parser = parser;
+    }
+
+    /** {@inheritDoc} */
+    public Collection<FileAnnotation> parse(final File file, final String moduleName) throws InvocationTargetException {
+        return parser.parse(file, moduleName);
+    }
+
+    /** {@inheritDoc} */
+    public void parse(final File file, final String moduleName, final AnnotationSink sink) throws InvocationTargetException {
+        for (FileAnnotation annotation : parser.parse(file, moduleName)) {
+            sink.add(annotation);
+        }
+    }
+}
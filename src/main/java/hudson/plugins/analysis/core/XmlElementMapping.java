@@ -0,0 +1,255 @@
+package hudson.plugins.analysis.core;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Describes how an XML element of a report is mapped to an annotation. The
+ * properties of the annotation are selected by simple paths relative to the
+ * element:
+ * <ul>
+ * <li><code>@name</code>: the attribute <code>name</code> of the element</li>
+ * <li><code>text()</code>: the text of the element</li>
+ * <li><code>child/@name</code>, <code>child/text()</code>: the attribute or
+ * text of the first child element <code>child</code></li>
+ * <li><code>../@name</code>: the attribute <code>name</code> of the parent
+ * element, the prefix <code>../</code> may be repeated</li>
+ * </ul>
+ *
+ * @author Ulli Hafner
+ * @see AbstractXmlAnnotationParser
+ * @since 1.55
+ */
+public class XmlElementMapping implements Serializable {
+    private static final long serialVersionUID = -2305743120865871362L;
+
+    private static final Pattern PATH = Pattern.compile("(\\.\\./)*([\\w.:-]+/)?(@[\\w.:-]+|text\\(\\))");
+
+    private final String element;
+    private String fileName;
+    private String line;
+    private String endLine;
+    private String priority;
+    private final Map<String, Priority> priorities = new HashMap<String, Priority>();
+    private Priority defaultPriority = Priority.NORMAL;
+    private String message;
+    private String category;
+    private String type;
+    private String packageName;
+
+    /**
+     * Creates a new instance of {@link XmlElementMapping}.
+     *
+     * @param element
+     *            the local name of the element that is mapped to an
+     *            annotation
+     */
+    public XmlElementMapping(final String element) {
+        this.element = element;
+    }
+
+    /**
+     * Returns the local name of the element that is mapped to an annotation.
+     *
+     * @return the element name
+     */
+    public String getElement() {
+        return element;
+    }
+
+    /**
+     * Sets the path of the file name. Elements without a file name are
+     * skipped.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping fileName(final String path) {
+        fileName = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Sets the path of the line number.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping line(final String path) {
+        line = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Sets the path of the end line number. If not set, the end line is the
+     * same as the start line.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping endLine(final String path) {
+        endLine = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Sets the path of the priority. Values that have not been registered with
+     * {@link #priority(String, Priority)} are converted with
+     * {@link Priority#fromString(String)}.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping priority(final String path) {
+        priority = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Maps the specified value of the priority path to a priority. Values are
+     * compared ignoring the case.
+     *
+     * @param value
+     *            the value in the report
+     * @param mappedPriority
+     *            the priority of the annotation
+     * @return this mapping
+     */
+    public XmlElementMapping priority(final String value, final Priority mappedPriority) {
+        priorities.put(StringUtils.lowerCase(value), mappedPriority);
+        return this;
+    }
+
+    /**
+     * Sets the priority of elements without a known priority value. The
+     * default is {@link Priority#NORMAL}.
+     *
+     * @param mappedPriority
+     *            the priority of the annotation
+     * @return this mapping
+     */
+    public XmlElementMapping defaultPriority(final Priority mappedPriority) {
+        defaultPriority = mappedPriority;
+        return this;
+    }
+
+    /**
+     * Sets the path of the message.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping message(final String path) {
+        message = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Sets the path of the category.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping category(final String path) {
+        category = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Sets the path of the type.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping type(final String path) {
+        type = checkPath(path);
+        return this;
+    }
+
+    /**
+     * Sets the path of the package name.
+     *
+     * @param path
+     *            the path of the value
+     * @return this mapping
+     */
+    public XmlElementMapping packageName(final String path) {
+        packageName = checkPath(path);
+        return this;
+    }
+
+    private String checkPath(final String path) {
+        if (path == null || !PATH.matcher(path).matches()) {
+            throw new IllegalArgumentException("Unsupported path: " + path);
+        }
+        return path;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    String getLine() {
+        return line;
+    }
+
+    String getEndLine() {
+        return endLine;
+    }
+
+    String getPriority() {
+        return priority;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    String getCategory() {
+        return category;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Converts the specified value of the priority path to a priority.
+     *
+     * @param value
+     *            the value in the report, might be <code>null</code>
+     * @return the priority
+     */
+    Priority toPriority(final String value) {
+        if (value == null) {
+            return defaultPriority;
+        }
+        Priority mapped = priorities.get(StringUtils.lowerCase(value.trim()));
+        if (mapped != null) {
+            return mapped;
+        }
+        try {
+            return Priority.fromString(value.trim());
+        }
+        catch (IllegalArgumentException exception) {
+            return defaultPriority;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.CategoryItemRenderer;
 import org.jfree.chart.renderer.category.LineAndShapeRenderer;
 import org.jfree.data.category.CategoryDataset;
+import org.joda.time.Days;
 import org.joda.time.LocalDate;
 
 import com.google.common.collect.HashMultimap;
@@ -32,6 +33,7 @@ import hudson.model.AbstractBuild;
 
 import hudson.plugins.analysis.core.ResultAction;
 import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.DailyRollup;
 import hudson.plugins.analysis.util.ToolTipProvider;
 
 import hudson.util.ChartUtil.NumberOnlyBuildLabel;
@@ -86,8 +88,13 @@ public abstract class CategoryBuildResultGraph extends BuildResultGraph {
         Set<LocalDate> availableDates = Sets.newHashSet();
         Map<ResultAction<? extends BuildResult>, Map<LocalDate, List<Integer>>> averagesPerJob = Maps.newHashMap();
         for (ResultAction<? extends BuildResult> resultAction : resultActions) {
-            Map<LocalDate, List<Integer>> averageByDate = averageByDate(
-                    createSeriesPerBuild(configuration, resultAction.getResult()));
+            Map<LocalDate, List<Integer>> averageByDate;
+            if (isRollupSupported() && !configuration.isBuildCountDefined()) {
+                averageByDate = averageByDate(configuration, DailyRollup.load(resultAction.getResult()));
+            }
+            else {
+                averageByDate = averageByDate(createSeriesPerBuild(configuration, resultAction.getResult()));
+            }
             averagesPerJob.put(resultAction, averageByDate);
             availableDates.addAll(averageByDate.keySet());
         }
@@ -294,6 +301,29 @@ public abstract class CategoryBuildResultGraph extends BuildResultGraph {
         return createSeriesPerDay(createMultiSeriesPerDay(valuesPerBuild));
     }
 
+    /**
+     * Computes the series per date from the specified daily rollup. Only the
+     * days within the day count of the configuration are used.
+     *
+     * @param configuration
+     *            the configuration parameters
+     * @param rollup
+     *            the daily rollup of a job
+     * @return the series per date
+     */
+    private Map<LocalDate, List<Integer>> averageByDate(final GraphConfiguration configuration,
+            final DailyRollup rollup) {
+        LocalDate today = new LocalDate();
+        Map<LocalDate, List<Integer>> seriesPerDate = Maps.newHashMap();
+        for (Map.Entry<LocalDate, DailyRollup.Day> entry : rollup.getDays().entrySet()) {
+            if (!configuration.isDayCountDefined()
+                    || Days.daysBetween(entry.getKey(), today).getDays() < configuration.getDayCount()) {
+                seriesPerDate.put(entry.getKey(), computeSeries(entry.getValue()));
+            }
+        }
+        return seriesPerDate;
+    }
+
     /**
      * Aggregates multiple series per day to one single series per day by
      * computing the average value.
@@ -368,6 +398,37 @@ public abstract class CategoryBuildResultGraph extends BuildResultGraph {
      */
     protected abstract List<Integer> computeSeries(BuildResult current);
 
+    /**
+     * Returns whether the series of this graph could be computed from the
+     * averages per day of a {@link DailyRollup}. This is the case if the
+     * series of a build consists of warning counts only, so that the average
+     * of the series of several builds is the series of the average counts.
+     * Aggregated graphs then use the rollup of a job rather than visiting its
+     * builds.
+     *
+     * @return <code>true</code> if {@link #computeSeries(DailyRollup.Day)} is
+     *         supported, <code>false</code> otherwise
+     * @since 1.55
+     */
+    protected boolean isRollupSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the series to plot for the specified day of a rollup.
+     *
+     * @param day
+     *            the day to compute the series for
+     * @return the series to plot
+     * @throws UnsupportedOperationException
+     *             if this graph does not support rollups
+     * @see #isRollupSupported()
+     * @since 1.55
+     */
+    protected List<Integer> computeSeries(final DailyRollup.Day day) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support daily rollups");
+    }
+
     /**
      * Creates the chart for the specified data set.
      *
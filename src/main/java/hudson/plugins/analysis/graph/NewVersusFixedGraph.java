@@ -10,6 +10,7 @@ import org.jfree.data.category.CategoryDataset;
 
 import hudson.plugins.analysis.Messages;
 import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.DailyRollup;
 import hudson.plugins.analysis.util.BoxRenderer;
 import hudson.plugins.analysis.util.CategoryUrlBuilder;
 import hudson.plugins.analysis.util.ToolTipBoxRenderer;
@@ -40,6 +41,19 @@ public class NewVersusFixedGraph extends CategoryBuildResultGraph {
         return series;
     }
 
+    @Override
+    protected boolean isRollupSupported() {
+        return true;
+    }
+
+    @Override
+    protected List<Integer> computeSeries(final DailyRollup.Day day) {
+        List<Integer> series = new ArrayList<Integer>();
+        series.add(day.getAverageNewWarnings());
+        series.add(day.getAverageFixedWarnings());
+        return series;
+    }
+
     @Override
     protected JFreeChart createChart(final CategoryDataset dataSet) {
         return createBlockChart(dataSet);
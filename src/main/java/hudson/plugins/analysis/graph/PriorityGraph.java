@@ -12,6 +12,7 @@ import edu.umd.cs.findbugs.annotations.SuppressWarnings;
 
 import hudson.plugins.analysis.Messages;
 import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.DailyRollup;
 import hudson.plugins.analysis.util.AreaRenderer;
 import hudson.plugins.analysis.util.CategoryUrlBuilder;
 import hudson.plugins.analysis.util.ToolTipAreaRenderer;
@@ -44,6 +45,20 @@ public class PriorityGraph extends CategoryBuildResultGraph {
         return series;
     }
 
+    @Override
+    protected boolean isRollupSupported() {
+        return true;
+    }
+
+    @Override
+    protected List<Integer> computeSeries(final DailyRollup.Day day) {
+        List<Integer> series = new ArrayList<Integer>();
+        series.add(day.getAverage(Priority.LOW));
+        series.add(day.getAverage(Priority.NORMAL));
+        series.add(day.getAverage(Priority.HIGH));
+        return series;
+    }
+
     @Override
     protected JFreeChart createChart(final CategoryDataset dataSet) {
         return createAreaChart(dataSet);
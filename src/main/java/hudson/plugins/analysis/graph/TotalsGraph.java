@@ -10,6 +10,7 @@ import org.jfree.data.category.CategoryDataset;
 
 import hudson.plugins.analysis.Messages;
 import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.DailyRollup;
 import hudson.plugins.analysis.util.ToolTipProvider;
 
 /**
@@ -36,6 +37,18 @@ public class TotalsGraph extends CategoryBuildResultGraph {
         return series;
     }
 
+    @Override
+    protected boolean isRollupSupported() {
+        return true;
+    }
+
+    @Override
+    protected List<Integer> computeSeries(final DailyRollup.Day day) {
+        List<Integer> series = new ArrayList<Integer>();
+        series.add(day.getAverageTotal());
+        return series;
+    }
+
     @Override
     protected JFreeChart createChart(final CategoryDataset dataSet) {
         return createLineGraph(dataSet, false);
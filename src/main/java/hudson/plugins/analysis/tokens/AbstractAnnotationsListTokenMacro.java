@@ -0,0 +1,68 @@
+package hudson.plugins.analysis.tokens;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.model.AnnotationsFile;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Provides a token that evaluates to a list of annotations found by a
+ * plug-in. Each annotation is rendered on a separate line. The annotations
+ * are streamed one by one into the resulting string, so rendering the token
+ * requires no additional copy of the annotations.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public abstract class AbstractAnnotationsListTokenMacro extends AbstractTokenMacro {
+    /**
+     * Creates a new instance of {@link AbstractAnnotationsListTokenMacro}.
+     * @param tokenName
+     *            the name of the token
+     * @param resultActions
+     *            associated actions containing the build result
+     */
+    public AbstractAnnotationsListTokenMacro(final String tokenName,
+            final Class<? extends ResultAction<? extends BuildResult>>... resultActions) {
+        super(tokenName, resultActions);
+    }
+
+    @Override
+    protected String evaluate(final BuildResult result) {
+        final StringBuilder list = new StringBuilder();
+        visit(result, new AnnotationsFile.Visitor() {
+            public boolean visit(final FileAnnotation annotation) {
+                append(list, annotation);
+
+                return true;
+            }
+        });
+        return list.toString();
+    }
+
+    /**
+     * Passes the annotations to render to the specified visitor.
+     *
+     * @param result
+     *            the result to get the annotations from
+     * @param visitor
+     *            the visitor to pass the annotations to
+     */
+    protected abstract void visit(BuildResult result, AnnotationsFile.Visitor visitor);
+
+    /**
+     * Appends the specified annotation to the list. This default
+     * implementation appends the file name, the line number and the message.
+     *
+     * @param list
+     *            the list to append the annotation to
+     * @param annotation
+     *            the annotation to append
+     */
+    protected void append(final StringBuilder list, final FileAnnotation annotation) {
+        list.append(annotation.getShortFileName())
+                .append(':').append(annotation.getPrimaryLineNumber())
+                .append(": ").append(annotation.getMessage())
+                .append('\n');
+    }
+}
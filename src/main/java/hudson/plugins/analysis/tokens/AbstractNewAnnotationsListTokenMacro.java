@@ -0,0 +1,31 @@
+package hudson.plugins.analysis.tokens;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.model.AnnotationsFile;
+
+/**
+ * Provides a token that evaluates to the list of new annotations found by a
+ * plug-in.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class AbstractNewAnnotationsListTokenMacro extends AbstractAnnotationsListTokenMacro {
+    /**
+     * Creates a new instance of {@link AbstractNewAnnotationsListTokenMacro}.
+     * @param tokenName
+     *            the name of the token
+     * @param resultActions
+     *            associated actions containing the build result
+     */
+    public AbstractNewAnnotationsListTokenMacro(final String tokenName,
+            final Class<? extends ResultAction<? extends BuildResult>>... resultActions) {
+        super(tokenName, resultActions);
+    }
+
+    @Override
+    protected void visit(final BuildResult result, final AnnotationsFile.Visitor visitor) {
+        result.visitNewWarnings(visitor);
+    }
+}
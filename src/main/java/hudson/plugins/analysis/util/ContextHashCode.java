@@ -1,12 +1,16 @@
 package hudson.plugins.analysis.util;
 
 import java.io.IOException;
-
-import org.apache.commons.io.LineIterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Creates a hash code from the source code of the warning line and the
- * surrounding context.
+ * surrounding context. The contents of the files of the most recently
+ * created hash codes are kept in memory, so that an instance should be reused
+ * for all warnings of a report. Only the lines of the context are decoded.
+ * The files themselves are closed as soon as they have been read. This class
+ * is not thread safe.
  *
  * @author Ulli Hafner
  */
@@ -14,6 +18,16 @@ public class ContextHashCode {
     /** Number of lines before and after current line to consider. */
     private static final int LINES_LOOK_AHEAD = 3;
     private static final int BUFFER_SIZE = 1000;
+    private static final int CACHED_FILES = 8;
+
+    @SuppressWarnings("serial")
+    private final Map<String, IndexedSourceFile> files
+            = new LinkedHashMap<String, IndexedSourceFile>(CACHED_FILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, IndexedSourceFile> eldest) {
+            return size() > CACHED_FILES;
+        }
+    };
 
     /**
      * Creates a hash code from the source code of the warning line and the
@@ -31,21 +45,21 @@ public class ContextHashCode {
      *             if the contents of the file could not be read
      */
     public int create(final String fileName, final int line, final String encoding) throws IOException {
-        LineIterator lineIterator = EncodingValidator.readFile(fileName, encoding);
-
         StringBuilder context = new StringBuilder(BUFFER_SIZE);
-        for (int i = 0; lineIterator.hasNext(); i++) {
-            String currentLine = lineIterator.nextLine();
-            if (i >= line - LINES_LOOK_AHEAD) {
-                context.append(currentLine);
-            }
-            if (i > line + LINES_LOOK_AHEAD) {
-                break;
-            }
-        }
-        lineIterator.close();
+        int last = Math.max(line + LINES_LOOK_AHEAD + 2, 1); // the first line is part of every context
+        getFile(fileName, encoding).appendLines(context, line - LINES_LOOK_AHEAD + 1, last);
 
         return context.toString().hashCode();
     }
+
+    private IndexedSourceFile getFile(final String fileName, final String encoding) throws IOException {
+        String key = fileName + '#' + encoding;
+        IndexedSourceFile file = files.get(key);
+        if (file == null || file.isModified(fileName)) {
+            file = IndexedSourceFile.open(fileName, encoding);
+            files.put(key, file);
+        }
+        return file;
+    }
 }
 
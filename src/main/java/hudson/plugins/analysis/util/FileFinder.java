@@ -2,6 +2,8 @@ package hudson.plugins.analysis.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
@@ -18,6 +20,7 @@ import hudson.remoting.VirtualChannel;
 public class FileFinder implements FileCallable<String[]> {
     /** Generated ID. */
     private static final long serialVersionUID = 2970029366847565970L;
+    private static final Logger LOGGER = Logger.getLogger(FileFinder.class.getName());
     /** File name pattern for java files. */
     private static final String JAVA_PATTERN = "**/*.java";
     /** The pattern to scan for. */
@@ -59,13 +62,37 @@ public class FileFinder implements FileCallable<String[]> {
 
     /**
      * Returns an array with the filenames of the specified file pattern that have been
-     * found in the workspace.
+     * found in the workspace. The files are searched using a {@link WorkspaceScanner}.
+     * If the scanner fails, then the files are searched using the Ant
+     * {@link org.apache.tools.ant.DirectoryScanner}, see {@link #findWithAnt(File)}.
      *
      * @param workspace
      *            root directory of the workspace
      * @return the filenames of all found files
      */
     public String[] find(final File workspace)  {
+        try {
+            return new WorkspaceScanner(pattern).scan(workspace);
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.WARNING, "Scanning " + workspace + " for '" + pattern
+                    + "' failed, falling back to the Ant scanner", exception);
+
+            return findWithAnt(workspace);
+        }
+    }
+
+    /**
+     * Returns an array with the filenames of the specified file pattern that
+     * have been found in the workspace. The files are searched using the Ant
+     * {@link org.apache.tools.ant.DirectoryScanner}.
+     *
+     * @param workspace
+     *            root directory of the workspace
+     * @return the filenames of all found files
+     * @since 1.55
+     */
+    public String[] findWithAnt(final File workspace)  {
         try {
             FileSet fileSet = new FileSet();
             Project antProject = new Project();
@@ -0,0 +1,222 @@
+package hudson.plugins.analysis.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Provides access to the lines of a source file. The file is read into a
+ * single buffer and closed right away, so the file is never locked while
+ * an instance exists. Lines are decoded only when they are requested: the
+ * start and end offsets of the lines are stored in an index that is built
+ * incrementally up to the requested line. The lines are split in the same
+ * way as {@link java.io.BufferedReader#readLine()} does, i.e. using the line
+ * terminators <code>\n</code>, <code>\r</code>, and <code>\r\n</code>. This
+ * class is not thread safe.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public final class IndexedSourceFile {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int INITIAL_INDEX_SIZE = 256;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final ByteBuffer content;
+    private final Charset charset;
+    private final long lastModified;
+    private final long length;
+
+    private int[] lineStarts = new int[INITIAL_INDEX_SIZE];
+    private int[] lineEnds = new int[INITIAL_INDEX_SIZE];
+    private int indexedLines;
+    private int scanPosition;
+    private boolean isIndexComplete;
+
+    /**
+     * Opens the specified file.
+     *
+     * @param fileName
+     *            the absolute path of the file to read
+     * @param encoding
+     *            the encoding of the file, if <code>null</code> or empty then
+     *            the default encoding of the platform is used
+     * @return the opened file
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public static IndexedSourceFile open(final String fileName, @CheckForNull final String encoding) throws IOException {
+        File file = new File(fileName);
+        long lastModified = file.lastModified();
+
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + fileName);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int)size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // continue reading
+            }
+            buffer.flip();
+
+            return new IndexedSourceFile(buffer, EncodingValidator.defaultCharset(encoding), lastModified, size);
+        }
+        finally {
+            input.close();
+        }
+    }
+
+    private IndexedSourceFile(final ByteBuffer buffer, final Charset charset, final long lastModified, final long length) {
+        this.lastModified = lastModified;
+        this.length = length;
+        if (isAsciiCompatible(charset)) {
+            content = buffer;
+            this.charset = charset;
+        }
+        else {
+            content = UTF8.encode(charset.decode(buffer));
+            this.charset = UTF8;
+        }
+        isIndexComplete = !content.hasRemaining();
+    }
+
+    /**
+     * Returns whether the line terminators of the specified charset are
+     * encoded as single bytes that can't be part of another character. Files
+     * with other encodings (e.g. UTF-16) are decoded completely and stored
+     * as UTF-8.
+     */
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return charset.canEncode()
+                && Arrays.equals(new byte[] {LF, CR}, toBytes(charset.encode("\n\r")))
+                && Arrays.equals(new byte[] {'a'}, toBytes(charset.encode("a")));
+    }
+
+    private static byte[] toBytes(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns whether this file has been changed since it has been opened.
+     *
+     * @param fileName
+     *            the absolute path of the file
+     * @return <code>true</code> if the file has been changed
+     */
+    public boolean isModified(final String fileName) {
+        File file = new File(fileName);
+        return file.lastModified() != lastModified || file.length() != length;
+    }
+
+    /**
+     * Returns the number of lines of this file. Note that the whole file will
+     * be indexed.
+     *
+     * @return the number of lines
+     */
+    public int getNumberOfLines() {
+        indexUpTo(Integer.MAX_VALUE);
+
+        return indexedLines;
+    }
+
+    /**
+     * Returns the specified line.
+     *
+     * @param lineNumber
+     *            the line number (starting with 1)
+     * @return the line without the line terminator, or <code>null</code> if
+     *         there is no such line
+     */
+    @CheckForNull
+    public String getLine(final int lineNumber) {
+        if (lineNumber < 1) {
+            return null;
+        }
+        indexUpTo(lineNumber);
+        if (lineNumber > indexedLines) {
+            return null;
+        }
+        return decode(lineNumber - 1).toString();
+    }
+
+    /**
+     * Appends the specified range of lines to the specified output. The line
+     * terminators are not appended. Lines of the range that are not part of the
+     * file are skipped.
+     *
+     * @param output
+     *            the output to append the lines to
+     * @param from
+     *            the first line to append (starting with 1)
+     * @param to
+     *            the last line to append (inclusive)
+     */
+    public void appendLines(final StringBuilder output, final int from, final int to) {
+        indexUpTo(to);
+
+        int last = Math.min(to, indexedLines);
+        for (int line = Math.max(from, 1); line <= last; line++) {
+            output.append(decode(line - 1));
+        }
+    }
+
+    private CharSequence decode(final int index) {
+        ByteBuffer line = content.duplicate();
+        line.limit(lineEnds[index]);
+        line.position(lineStarts[index]);
+
+        return charset.decode(line);
+    }
+
+    /**
+     * Scans the content for line terminators until the specified number of
+     * lines has been indexed or the end of the file has been reached.
+     */
+    private void indexUpTo(final int numberOfLines) {
+        int limit = content.limit();
+        while (indexedLines < numberOfLines && !isIndexComplete) {
+            int position = scanPosition;
+            while (position < limit && !isTerminator(content.get(position))) {
+                position++;
+            }
+            addLine(scanPosition, position);
+
+            if (position < limit) {
+                if (content.get(position) == CR && position + 1 < limit && content.get(position + 1) == LF) {
+                    position++;
+                }
+                position++;
+            }
+            scanPosition = position;
+            isIndexComplete = position >= limit;
+        }
+    }
+
+    private boolean isTerminator(final byte value) {
+        return value == LF || value == CR;
+    }
+
+    private void addLine(final int start, final int end) {
+        if (indexedLines == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, indexedLines * 2);
+            lineEnds = Arrays.copyOf(lineEnds, indexedLines * 2);
+        }
+        lineStarts[indexedLines] = start;
+        lineEnds[indexedLines] = end;
+        indexedLines++;
+    }
+}
@@ -0,0 +1,271 @@
+package hudson.plugins.analysis.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Caches the module names of the module descriptors (pom.xml, build.xml,
+ * MANIFEST.MF) of a workspace. A module name is reused as long as the last
+ * modification time and the size of the descriptor (and of the files the
+ * module name depends on) did not change, so only
+ * changed descriptors need to be parsed again. The cache of a workspace is
+ * shared by all analysis publishers that run on the same agent, the number of
+ * cached workspaces is limited. Additionally, the cache is persisted as a
+ * plain text file in the temporary folder of the workspace (the sibling
+ * folder with the suffix <code>@tmp</code>) so that it survives a restart of
+ * the agent.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+final class ModuleDescriptorCache {
+    private static final Logger LOGGER = Logger.getLogger(ModuleDescriptorCache.class.getName());
+
+    /** The maximum number of workspaces with a cache in memory. */
+    static final int MAX_WORKSPACES = Integer.getInteger(ModuleDescriptorCache.class.getName() + ".maxWorkspaces", 64);
+    /** The name of the file in the temporary folder of the workspace. */
+    static final String FILE_NAME = "analysis-modules.txt";
+
+    private static final String TEMP_SUFFIX = "@tmp";
+    private static final String HEADER = "# analysis-core module descriptors 2";
+    private static final String SEPARATOR = "\t";
+    private static final String ENCODING = "UTF-8";
+
+    /** The caches, the least recently used workspace is removed first. */
+    private static final Map<String, ModuleDescriptorCache> CACHES
+            = new LinkedHashMap<String, ModuleDescriptorCache>(16, 0.75f, true) {
+        private static final long serialVersionUID = -1658325498736549251L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ModuleDescriptorCache> eldest) {
+            return size() > MAX_WORKSPACES;
+        }
+    };
+
+    private final File storage;
+    private final Map<String, Descriptor> descriptors;
+    private boolean isModified;
+
+    /**
+     * Returns the cache of the specified workspace.
+     *
+     * @param workspace
+     *            the workspace
+     * @return the cache of the workspace
+     */
+    static ModuleDescriptorCache forWorkspace(final File workspace) {
+        String key = workspace.getAbsolutePath();
+        synchronized (CACHES) {
+            ModuleDescriptorCache cache = CACHES.get(key);
+            if (cache == null) {
+                cache = new ModuleDescriptorCache(getStorage(workspace));
+                CACHES.put(key, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the file that stores the cache of the specified workspace.
+     *
+     * @param workspace
+     *            the workspace
+     * @return the file in the temporary folder of the workspace
+     */
+    static File getStorage(final File workspace) {
+        File absolute = workspace.getAbsoluteFile();
+
+        return new File(new File(absolute.getParentFile(), absolute.getName() + TEMP_SUFFIX), FILE_NAME);
+    }
+
+    /**
+     * Removes all caches from memory.
+     */
+    static void clear() {
+        synchronized (CACHES) {
+            CACHES.clear();
+        }
+    }
+
+    private ModuleDescriptorCache(final File storage) {
+        this.storage = storage;
+
+        descriptors = load(storage);
+    }
+
+    private static Map<String, Descriptor> load(final File storage) {
+        Map<String, Descriptor> loaded = new HashMap<String, Descriptor>();
+        if (storage.exists()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(storage), ENCODING));
+                if (HEADER.equals(reader.readLine())) {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        String[] columns = StringUtils.splitPreserveAllTokens(line, SEPARATOR);
+                        if (columns.length < 4 || columns.length % 2 != 0) {
+                            throw new IOException("Malformed line: " + line);
+                        }
+                        long[] states = new long[columns.length - 2];
+                        for (int i = 0; i < states.length; i++) {
+                            states[i] = Long.parseLong(columns[i + 2]);
+                        }
+                        loaded.put(StringEscapeUtils.unescapeJava(columns[0]),
+                                new Descriptor(StringEscapeUtils.unescapeJava(columns[1]), states));
+                    }
+                }
+            }
+            catch (IOException exception) {
+                LOGGER.log(Level.FINE, "Can't read module cache " + storage, exception);
+                loaded.clear();
+            }
+            catch (NumberFormatException exception) {
+                LOGGER.log(Level.FINE, "Can't read module cache " + storage, exception);
+                loaded.clear();
+            }
+            finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached module name of the specified descriptor.
+     *
+     * @param fileName
+     *            absolute file name of the descriptor
+     * @param dependencies
+     *            additional files the module name depends on, e.g. the
+     *            localization of a manifest
+     * @return the module name or <code>null</code> if the descriptor is not
+     *         cached or has been changed
+     */
+    synchronized String get(final String fileName, final String... dependencies) {
+        Descriptor descriptor = descriptors.get(fileName);
+        if (descriptor != null && descriptor.isUpToDate(fileName, dependencies)) {
+            return descriptor.moduleName;
+        }
+        return null;
+    }
+
+    /**
+     * Caches the module name of the specified descriptor.
+     *
+     * @param fileName
+     *            absolute file name of the descriptor
+     * @param moduleName
+     *            the module name
+     * @param dependencies
+     *            additional files the module name depends on, e.g. the
+     *            localization of a manifest
+     */
+    synchronized void put(final String fileName, final String moduleName, final String... dependencies) {
+        if (moduleName != null) {
+            descriptors.put(fileName, new Descriptor(moduleName, Descriptor.computeStates(fileName, dependencies)));
+            isModified = true;
+        }
+    }
+
+    /**
+     * Removes the descriptors that do not exist in the workspace anymore and
+     * writes the cache to disk if it has been changed.
+     *
+     * @param existingFileNames
+     *            the descriptors that have been found in the workspace
+     */
+    synchronized void update(final Collection<String> existingFileNames) {
+        Set<String> existing = new HashSet<String>(existingFileNames);
+        if (descriptors.keySet().retainAll(existing)) {
+            isModified = true;
+        }
+        if (isModified) {
+            save();
+        }
+    }
+
+    private void save() {
+        File folder = storage.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            LOGGER.log(Level.FINE, "Can't create folder of module cache " + storage);
+
+            return;
+        }
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(storage), ENCODING));
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Map.Entry<String, Descriptor> entry : descriptors.entrySet()) {
+                writer.write(StringEscapeUtils.escapeJava(entry.getKey()));
+                writer.write(SEPARATOR);
+                writer.write(StringEscapeUtils.escapeJava(entry.getValue().moduleName));
+                for (long state : entry.getValue().states) {
+                    writer.write(SEPARATOR);
+                    writer.write(String.valueOf(state));
+                }
+                writer.write('\n');
+            }
+            writer.close();
+            isModified = false;
+        }
+        catch (IOException exception) {
+            LOGGER.log(Level.FINE, "Can't write module cache " + storage, exception);
+        }
+        finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * The module name of a descriptor, and the state of the descriptor files
+     * when the module name has been parsed. The state of each file consists of
+     * the last modification time and the size of the file.
+     */
+    private static final class Descriptor {
+        private final String moduleName;
+        private final long[] states;
+
+        Descriptor(final String moduleName, final long[] states) {
+            this.moduleName = moduleName;
+            this.states = states;
+        }
+
+        boolean isUpToDate(final String fileName, final String... dependencies) {
+            return Arrays.equals(states, computeStates(fileName, dependencies));
+        }
+
+        static long[] computeStates(final String fileName, final String... dependencies) {
+            long[] states = new long[2 * (dependencies.length + 1)];
+            setState(states, 0, new File(fileName));
+            for (int i = 0; i < dependencies.length; i++) {
+                setState(states, i + 1, new File(dependencies[i]));
+            }
+            return states;
+        }
+
+        private static void setState(final long[] states, final int index, final File file) {
+            states[2 * index] = file.lastModified();
+            states[2 * index + 1] = file.length();
+        }
+    }
+}
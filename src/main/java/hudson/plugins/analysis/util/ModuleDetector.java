@@ -5,19 +5,20 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
-import org.apache.commons.digester3.Digester;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
-import org.xml.sax.SAXException;
 
 /**
  * Detects module names by parsing the name of a source file, the Maven pom.xml
@@ -31,11 +32,14 @@ public class ModuleDetector {
     private static final String BACK_SLASH = "\\";
     private static final String SLASH = "/";
     private static final String ALL_DIRECTORIES = "**/";
+    private static final String PROJECT = "project";
 
     private static final String BUNDLE_VENDOR = "Bundle-Vendor";
     private static final String BUNDLE_SYMBOLIC_NAME = "Bundle-SymbolicName";
     private static final String BUNDLE_NAME = "Bundle-Name";
     private static final String REPLACEMENT_CHAR = "%";
+    private static final String PLUGIN_PROPERTIES = "plugin.properties";
+    private static final String BUNDLE_PROPERTIES = "OSGI-INF/l10n/bundle.properties";
 
     static final String MAVEN_POM = "pom.xml";
     static final String ANT_PROJECT = "build.xml";
@@ -49,15 +53,17 @@ public class ModuleDetector {
     private FileInputStreamFactory factory = new DefaultFileInputStreamFactory();
     /** Maps file names to module names. */
     private final Map<String, String> fileNameToModuleName;
-    /** Sorted list of file name prefixes. */
-    private final List<String> prefixes;
+    /** Trie of the file name prefixes, the nodes of the prefixes contain the module name. */
+    private final PrefixNode prefixes;
+    /** Caches the result of the trie lookup of a directory. */
+    private final Map<String, Match> directoryCache = new ConcurrentHashMap<String, Match>();
 
     /**
      * Creates a new instance of {@link ModuleDetector}.
      */
     protected ModuleDetector() {
         fileNameToModuleName = new HashMap<String, String>();
-        prefixes = new ArrayList<String>();
+        prefixes = new PrefixNode();
     }
 
     /**
@@ -70,6 +76,21 @@ public class ModuleDetector {
         this(workspace, new DefaultFileInputStreamFactory());
     }
 
+    /**
+     * Creates a new instance of {@link ModuleDetector}. The module descriptors
+     * are searched in the specified snapshot of the workspace rather than in
+     * the file system.
+     *
+     * @param workspace
+     *            the workspace to scan for Maven pom.xml or Ant build.xml files
+     * @param snapshot
+     *            the snapshot of the workspace
+     * @since 1.55
+     */
+    public ModuleDetector(final File workspace, final WorkspaceSnapshot snapshot) {
+        this(workspace, new DefaultFileInputStreamFactory(snapshot));
+    }
+
     /**
      * Creates a new instance of {@link ModuleDetector}.
      *
@@ -81,12 +102,21 @@ public class ModuleDetector {
     ModuleDetector(final File workspace, final FileInputStreamFactory fileInputStreamFactory) {
         factory = fileInputStreamFactory;
         fileNameToModuleName = createFilesToModuleMapping(workspace);
-        prefixes = new ArrayList<String>(fileNameToModuleName.keySet());
-        Collections.sort(prefixes);
+        prefixes = createPrefixTrie(fileNameToModuleName);
+    }
+
+    private PrefixNode createPrefixTrie(final Map<String, String> mapping) {
+        PrefixNode root = new PrefixNode();
+        for (Map.Entry<String, String> entry : mapping.entrySet()) {
+            root.add(entry.getKey(), entry.getValue());
+        }
+        return root;
     }
 
     /**
-     * Returns a mapping of path prefixes to module names.
+     * Returns a mapping of path prefixes to module names. If the files are
+     * read from the file system, the module names of unchanged descriptors
+     * are taken from the {@link ModuleDescriptorCache} of the workspace.
      *
      * @param workspace
      *            the workspace to start scanning for files
@@ -95,26 +125,69 @@ public class ModuleDetector {
     private Map<String, String> createFilesToModuleMapping(final File workspace) {
         Map<String, String> mapping = new HashMap<String, String>();
 
+        ModuleDescriptorCache cache = null;
+        if (factory instanceof DefaultFileInputStreamFactory) {
+            cache = ModuleDescriptorCache.forWorkspace(workspace);
+        }
+
         String[] projects = find(workspace);
         for (String fileName : projects) {
             if (fileName.endsWith(ANT_PROJECT)) {
-                addMapping(mapping, fileName, ANT_PROJECT, parseBuildXml(fileName));
+                addMapping(mapping, fileName, ANT_PROJECT, getModuleName(cache, fileName, ANT_PROJECT));
             }
         }
         for (String fileName : projects) {
             if (fileName.endsWith(MAVEN_POM)) {
-                addMapping(mapping, fileName, MAVEN_POM, parsePom(fileName));
+                addMapping(mapping, fileName, MAVEN_POM, getModuleName(cache, fileName, MAVEN_POM));
             }
         }
         for (String fileName : projects) {
             if (fileName.endsWith(OSGI_BUNDLE)) {
-                addMapping(mapping, fileName, OSGI_BUNDLE, parseManifest(fileName));
+                addMapping(mapping, fileName, OSGI_BUNDLE, getModuleName(cache, fileName, OSGI_BUNDLE));
             }
         }
+        if (cache != null) {
+            cache.update(Arrays.asList(projects));
+        }
 
         return mapping;
     }
 
+    private String getModuleName(final ModuleDescriptorCache cache, final String fileName, final String suffix) {
+        if (cache == null) {
+            return parse(fileName, suffix);
+        }
+
+        String[] dependencies = getDependencies(fileName, suffix);
+        String moduleName = cache.get(fileName, dependencies);
+        if (moduleName == null) {
+            moduleName = parse(fileName, suffix);
+            cache.put(fileName, moduleName, dependencies);
+        }
+        return moduleName;
+    }
+
+    private String[] getDependencies(final String fileName, final String suffix) {
+        if (OSGI_BUNDLE.equals(suffix)) {
+            String path = StringUtils.substringBefore(fileName, OSGI_BUNDLE) + SLASH;
+
+            return new String[] {path + PLUGIN_PROPERTIES, path + BUNDLE_PROPERTIES};
+        }
+        return new String[0];
+    }
+
+    private String parse(final String fileName, final String suffix) {
+        if (ANT_PROJECT.equals(suffix)) {
+            return parseBuildXml(fileName);
+        }
+        else if (MAVEN_POM.equals(suffix)) {
+            return parsePom(fileName);
+        }
+        else {
+            return parseManifest(fileName);
+        }
+    }
+
     private void addMapping(final Map<String, String> mapping, final String fileName, final String suffix, final String moduleName) {
         if (StringUtils.isNotBlank(moduleName)) {
             mapping.put(StringUtils.substringBeforeLast(fileName, suffix), moduleName);
@@ -123,7 +196,10 @@ public class ModuleDetector {
 
     /**
      * Uses the path prefixes of pom.xml or build.xml files to guess a module
-     * name for the specified file.
+     * name for the specified file. The module of the longest matching prefix
+     * is returned. The lookup walks along the characters of the path in a
+     * trie of the prefixes, the result for the directory of the file is
+     * cached.
      *
      * @param originalFileName
      *            file name to guess a module for, must be an absolute path
@@ -132,13 +208,14 @@ public class ModuleDetector {
     public String guessModuleName(final String originalFileName) {
         String fullPath = originalFileName.replace('\\', '/');
 
-        String guessedModule = StringUtils.EMPTY;
-        for (String path : prefixes) {
-            if (fullPath.startsWith(path)) {
-                guessedModule = fileNameToModuleName.get(path);
-            }
+        int directoryEnd = fullPath.lastIndexOf('/') + 1;
+        String directory = fullPath.substring(0, directoryEnd);
+        Match match = directoryCache.get(directory);
+        if (match == null) {
+            match = PrefixNode.match(directory, 0, directory.length(), new Match(prefixes, StringUtils.EMPTY));
+            directoryCache.put(directory, match);
         }
-        return guessedModule;
+        return PrefixNode.match(fullPath, directoryEnd, fullPath.length(), match).module;
     }
 
     /**
@@ -179,27 +256,22 @@ public class ModuleDetector {
      */
     private String parseBuildXml(final String buildXml) {
         InputStream file = null;
+        XMLStreamReader reader = null;
         try {
             file = factory.create(buildXml);
-            Digester digester = new Digester();
-            digester.setValidating(false);
-            digester.setClassLoader(ModuleDetector.class.getClassLoader());
-
-            digester.push(new StringBuffer());
-            String xPath = "project";
-            digester.addCallMethod(xPath, "append", 1);
-            digester.addCallParam(xPath, 0, "name");
-
-            StringBuffer result = (StringBuffer)digester.parse(file);
-            return result.toString();
+            reader = XmlStreams.createReader(file);
+            if (isProject(reader)) {
+                return StringUtils.defaultString(reader.getAttributeValue(null, "name"));
+            }
         }
         catch (IOException exception) {
             // ignore
         }
-        catch (SAXException exception) {
+        catch (XMLStreamException exception) {
             // ignore
         }
         finally {
+            XmlStreams.closeQuietly(reader);
             IOUtils.closeQuietly(file);
         }
         return StringUtils.EMPTY;
@@ -215,30 +287,59 @@ public class ModuleDetector {
      */
     private String parsePom(final String pom) {
         InputStream file = null;
+        XMLStreamReader reader = null;
         try {
             file = factory.create(pom);
-            Digester digester = new Digester();
-            digester.setValidating(false);
-            digester.setClassLoader(ModuleDetector.class.getClassLoader());
-
-            digester.push(new StringBuffer());
-            digester.addCallMethod("project/name", "append", 0);
-
-            StringBuffer result = (StringBuffer)digester.parse(file);
-            return result.toString();
+            reader = XmlStreams.createReader(file);
+            if (!isProject(reader)) {
+                return StringUtils.EMPTY;
+            }
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth == 1 && "name".equals(reader.getLocalName())) {
+                        return reader.getElementText().trim();
+                    }
+                    depth++;
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
         }
         catch (IOException exception) {
             // ignore
         }
-        catch (SAXException exception) {
+        catch (XMLStreamException exception) {
             // ignore
         }
         finally {
+            XmlStreams.closeQuietly(reader);
             IOUtils.closeQuietly(file);
         }
         return StringUtils.EMPTY;
     }
 
+    /**
+     * Moves the reader to the root element and checks whether it is a
+     * project.
+     *
+     * @param reader
+     *            the reader of the descriptor
+     * @return <code>true</code> if the root element is a project
+     * @throws XMLStreamException
+     *             if the descriptor could not be read
+     */
+    private boolean isProject(final XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                return PROJECT.equals(reader.getLocalName());
+            }
+        }
+        return false;
+    }
+
     /**
      * Scans a Manifest file for OSGi Bundle Information.
      *
@@ -279,8 +380,8 @@ public class ModuleDetector {
 
     private Properties readProperties(final String path) {
         Properties properties = new Properties();
-        readProperties(path, properties, "plugin.properties");
-        readProperties(path, properties, "OSGI-INF/l10n/bundle.properties");
+        readProperties(path, properties, PLUGIN_PROPERTIES);
+        readProperties(path, properties, BUNDLE_PROPERTIES);
 
         return properties;
     }
@@ -319,13 +420,86 @@ public class ModuleDetector {
      * An input stream factory based on a {@link FileInputStream}.
      */
     private static final class DefaultFileInputStreamFactory implements FileInputStreamFactory {
+        private final WorkspaceSnapshot snapshot;
+
+        DefaultFileInputStreamFactory() {
+            this(null);
+        }
+
+        DefaultFileInputStreamFactory(final WorkspaceSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
         public InputStream create(final String fileName) throws FileNotFoundException {
             return new FileInputStream(new File(fileName));
         }
 
         public String[] find(final File root, final String pattern) {
+            if (snapshot != null && snapshot.getRoot().equals(root)) {
+                return snapshot.find(PATTERN);
+            }
             return new FileFinder(PATTERN).find(root);
         }
     }
-}
 
+    /**
+     * A node of the trie of the path prefixes.
+     */
+    private static final class PrefixNode {
+        private final Map<Character, PrefixNode> children = new HashMap<Character, PrefixNode>();
+        private String module;
+
+        void add(final String prefix, final String moduleName) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                Character character = prefix.charAt(i);
+                PrefixNode child = node.children.get(character);
+                if (child == null) {
+                    child = new PrefixNode();
+                    node.children.put(character, child);
+                }
+                node = child;
+            }
+            node.module = moduleName;
+        }
+
+        /**
+         * Walks along the specified characters of the path, starting with the
+         * node of the specified match.
+         */
+        static Match match(final String path, final int start, final int end, final Match initial) {
+            PrefixNode node = initial.node;
+            String module = initial.module;
+            if (node == null) {
+                return initial;
+            }
+            if (start == 0 && node.module != null) {
+                module = node.module;
+            }
+            for (int i = start; i < end; i++) {
+                node = node.children.get(path.charAt(i));
+                if (node == null) {
+                    return new Match(null, module);
+                }
+                if (node.module != null) {
+                    module = node.module;
+                }
+            }
+            return new Match(node, module);
+        }
+    }
+
+    /**
+     * The result of a walk in the trie: the reached node, or <code>null</code>
+     * if the path left the trie, and the module of the longest matching prefix.
+     */
+    private static final class Match {
+        private final PrefixNode node;
+        private final String module;
+
+        Match(final PrefixNode node, final String module) {
+            this.node = node;
+            this.module = module;
+        }
+    }
+}
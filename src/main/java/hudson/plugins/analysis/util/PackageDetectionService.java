@@ -0,0 +1,144 @@
+package hudson.plugins.analysis.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+
+import hudson.util.DaemonThreadFactory;
+
+/**
+ * Detects the package or namespace names of source files. In contrast to
+ * {@link PackageDetectors}, each file is read only once: the package names are
+ * cached by the absolute path of the file. Additionally, only the head of a
+ * file is read, since the package declaration is located at the beginning of
+ * a file. A parser should create a new instance for each parsed report, so
+ * that changed files are read again in the next build.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class PackageDetectionService {
+    /** The number of bytes at the beginning of a file that are scanned for the package. */
+    static final int HEAD_SIZE = 64 * 1024;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory());
+
+    private final Map<String, String> packageNames = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Detects the package name of the specified file.
+     *
+     * @param fileName
+     *            the filename of the file to scan
+     * @return the package name or {@link PackageDetectors#UNDEFINED_PACKAGE}
+     */
+    public String detectPackageName(final String fileName) {
+        String key = new File(fileName).getAbsolutePath();
+        String packageName = packageNames.get(key);
+        if (packageName == null) {
+            packageName = readPackageName(key);
+            packageNames.put(key, packageName);
+        }
+        return packageName;
+    }
+
+    /**
+     * Detects the package names of the specified files. The files are read in
+     * parallel.
+     *
+     * @param fileNames
+     *            the filenames of the files to scan
+     * @return the package names, mapped by the specified filenames
+     * @throws InterruptedException
+     *             if the user canceled the detection
+     */
+    public Map<String, String> detectPackageNames(final Collection<String> fileNames) throws InterruptedException {
+        Set<String> uniqueFileNames = new LinkedHashSet<String>(fileNames);
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (final String fileName : uniqueFileNames) {
+            futures.add(EXECUTOR.submit(new Callable<String>() {
+                public String call() {
+                    return detectPackageName(fileName);
+                }
+            }));
+        }
+
+        Map<String, String> result = new HashMap<String, String>();
+        int index = 0;
+        for (String fileName : uniqueFileNames) {
+            result.put(fileName, get(futures.get(index)));
+            index++;
+        }
+        return result;
+    }
+
+    private String get(final Future<String> future) throws InterruptedException {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException exception) {
+            return PackageDetectors.UNDEFINED_PACKAGE;
+        }
+    }
+
+    private String readPackageName(final String fileName) {
+        PackageDetector detector = PackageDetectors.getDetector(fileName);
+        if (detector == null) {
+            return PackageDetectors.UNDEFINED_PACKAGE;
+        }
+        try {
+            return detector.detectPackageName(readHead(new File(fileName)));
+        }
+        catch (IOException exception) {
+            return PackageDetectors.UNDEFINED_PACKAGE;
+        }
+    }
+
+    /**
+     * Reads the first {@link #HEAD_SIZE} bytes of the specified file.
+     */
+    private InputStream readHead(final File file) throws IOException {
+        FileInputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            byte[] buffer = new byte[(int)Math.min(HEAD_SIZE, Math.max(file.length(), 0))];
+            int length = 0;
+            while (length < buffer.length) {
+                int read = input.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            return new ByteArrayInputStream(buffer, 0, length);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Removes all cached package names.
+     */
+    public void clear() {
+        packageNames.clear();
+    }
+}
@@ -25,12 +25,27 @@ public final class PackageDetectors {
      * @return the package name or an empty string
      */
     public static String detectPackageName(final String fileName) {
+        PackageDetector detector = getDetector(fileName);
+        if (detector == null) {
+            return UNDEFINED_PACKAGE;
+        }
+        return detector.detectPackageName(fileName);
+    }
+
+    /**
+     * Returns the detector that accepts the specified file.
+     *
+     * @param fileName
+     *            the filename of the file to scan
+     * @return the detector or <code>null</code> if no detector accepts the file
+     */
+    static PackageDetector getDetector(final String fileName) {
         for (PackageDetector detector : DETECTORS) {
             if (detector.accepts(fileName)) {
-                return detector.detectPackageName(fileName);
+                return detector;
             }
         }
-        return UNDEFINED_PACKAGE;
+        return null;
     }
 
     /**
@@ -0,0 +1,270 @@
+package hudson.plugins.analysis.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.TokenizedPath;
+import org.apache.tools.ant.types.selectors.TokenizedPattern;
+
+import hudson.util.DaemonThreadFactory;
+
+/**
+ * Finds all files below a directory that match a set of Ant style include
+ * patterns. The result is the same as the result of an Ant {@link
+ * org.apache.tools.ant.types.FileSet FileSet} with the same includes, i.e.
+ * the default excludes of Ant are applied and the file names are relative to
+ * the root directory. In contrast to the {@link DirectoryScanner} of Ant,
+ * the patterns are tokenized only once, directories that can't contain a
+ * matching file are not entered at all, and the sub directories of the root
+ * directory are scanned in parallel.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class WorkspaceScanner {
+    private static final String ALL = "**";
+    private static final String[] NO_FILES = new String[0];
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(PARALLELISM, new DaemonThreadFactory());
+
+    private final List<TokenizedPattern> includes;
+    private final List<TokenizedPattern> excludes;
+    /** Excludes of the form <code>dir/**</code>, stored without the trailing <code>**</code>. */
+    private final List<TokenizedPattern> excludedDirectories;
+
+    /**
+     * Creates a new instance of {@link WorkspaceScanner}.
+     *
+     * @param includes
+     *            the Ant include patterns, separated by comma or space
+     */
+    public WorkspaceScanner(final String includes) {
+        this(includes, null);
+    }
+
+    /**
+     * Creates a new instance of {@link WorkspaceScanner}.
+     *
+     * @param includes
+     *            the Ant include patterns, separated by comma or space
+     * @param excludes
+     *            the Ant exclude patterns, separated by comma or space, might
+     *            be <code>null</code>
+     */
+    public WorkspaceScanner(final String includes, final String excludes) {
+        this.includes = compile(split(includes));
+
+        List<String> allExcludes = split(excludes);
+        Collections.addAll(allExcludes, DirectoryScanner.getDefaultExcludes());
+        this.excludes = compile(allExcludes);
+
+        excludedDirectories = new ArrayList<TokenizedPattern>();
+        for (TokenizedPattern exclude : this.excludes) {
+            if (exclude.endsWith(ALL)) {
+                excludedDirectories.add(exclude.withoutLastToken());
+            }
+        }
+    }
+
+    private static List<String> split(final String patterns) {
+        List<String> result = new ArrayList<String>();
+        if (patterns != null) {
+            StringTokenizer tokenizer = new StringTokenizer(patterns, ", ", false);
+            while (tokenizer.hasMoreTokens()) {
+                String pattern = tokenizer.nextToken().trim();
+                if (pattern.length() > 0) {
+                    result.add(pattern);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<TokenizedPattern> compile(final List<String> patterns) {
+        List<TokenizedPattern> compiled = new ArrayList<TokenizedPattern>();
+        for (String pattern : patterns) {
+            compiled.add(new TokenizedPattern(normalize(pattern)));
+        }
+        return compiled;
+    }
+
+    /**
+     * Normalizes the pattern in the same way as Ant: all separators are
+     * replaced with the platform separator, a trailing separator matches all
+     * files below the directory.
+     */
+    private static String normalize(final String pattern) {
+        String normalized = pattern.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += ALL;
+        }
+        return normalized;
+    }
+
+    /**
+     * Returns whether the specified relative file name matches the patterns
+     * of this scanner.
+     *
+     * @param path
+     *            the path relative to the root directory
+     * @return <code>true</code> if the path is included and not excluded
+     */
+    public boolean matches(final TokenizedPath path) {
+        return matchesAny(includes, path) && !matchesAny(excludes, path);
+    }
+
+    private boolean matchesAny(final List<TokenizedPattern> patterns, final TokenizedPath path) {
+        for (TokenizedPattern pattern : patterns) {
+            if (pattern.matchPath(path, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the specified relative directory could contain a file
+     * that matches the patterns of this scanner.
+     *
+     * @param directory
+     *            the directory relative to the root directory
+     * @return <code>true</code> if the directory needs to be scanned
+     */
+    public boolean couldContainMatches(final TokenizedPath directory) {
+        for (TokenizedPattern excluded : excludedDirectories) {
+            if (excluded.matchPath(directory, true)) {
+                return false;
+            }
+        }
+        for (TokenizedPattern include : includes) {
+            if (include.matchStartOf(directory, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the file names of the specified list that match the patterns of
+     * this scanner.
+     *
+     * @param relativeFileNames
+     *            the file names to filter, relative to the root directory
+     * @return the matching file names, in the same order as the specified
+     *         file names
+     */
+    public String[] filter(final String[] relativeFileNames) {
+        List<String> found = new ArrayList<String>();
+        for (String fileName : relativeFileNames) {
+            if (matches(new TokenizedPath(fileName))) {
+                found.add(fileName);
+            }
+        }
+        return found.toArray(new String[found.size()]);
+    }
+
+    /**
+     * Returns the names of all files below the specified root directory that
+     * match the patterns of this scanner.
+     *
+     * @param root
+     *            the root directory
+     * @return the matching file names, relative to the root directory and
+     *         sorted alphabetically
+     * @throws IOException
+     *             if the scanning has been interrupted
+     */
+    public String[] scan(final File root) throws IOException {
+        File[] children = root.listFiles();
+        if (children == null) {
+            return NO_FILES;
+        }
+
+        final String rootPath = root.getCanonicalPath();
+        List<String> found = new ArrayList<String>();
+        List<Future<List<String>>> subTrees = new ArrayList<Future<List<String>>>();
+        for (File child : children) {
+            final TokenizedPath path = new TokenizedPath(TokenizedPath.EMPTY_PATH, child.getName());
+            if (child.isDirectory()) {
+                if (couldContainMatches(path)) {
+                    final File directory = child;
+                    subTrees.add(EXECUTOR.submit(new Callable<List<String>>() {
+                        public List<String> call() throws IOException {
+                            List<String> parents = new ArrayList<String>();
+                            parents.add(rootPath);
+                            parents.add(directory.getCanonicalPath());
+
+                            List<String> result = new ArrayList<String>();
+                            walk(directory, path, directory.getName(), parents, result);
+                            return result;
+                        }
+                    }));
+                }
+            }
+            else if (matches(path)) {
+                found.add(child.getName());
+            }
+        }
+        for (Future<List<String>> subTree : subTrees) {
+            found.addAll(get(subTree));
+        }
+
+        Collections.sort(found);
+        return found.toArray(new String[found.size()]);
+    }
+
+    private List<String> get(final Future<List<String>> subTree) throws IOException {
+        try {
+            return subTree.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Scanning of workspace has been interrupted", exception);
+        }
+        catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException)exception.getCause();
+            }
+            throw new IOException("Scanning of workspace failed", exception.getCause());
+        }
+    }
+
+    /**
+     * Walks the specified directory. Symbolic links are followed, unless they
+     * point to one of the parent directories.
+     */
+    private void walk(final File directory, final TokenizedPath directoryPath, final String directoryName,
+            final List<String> parents, final List<String> found) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            TokenizedPath path = new TokenizedPath(directoryPath, child.getName());
+            String name = directoryName + File.separator + child.getName();
+            if (child.isDirectory()) {
+                if (couldContainMatches(path)) {
+                    String canonicalPath = child.getCanonicalPath();
+                    if (!parents.contains(canonicalPath)) {
+                        List<String> childParents = new ArrayList<String>(parents);
+                        childParents.add(canonicalPath);
+                        walk(child, path, name, childParents, found);
+                    }
+                }
+            }
+            else if (matches(path)) {
+                found.add(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package hudson.plugins.analysis.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+
+import hudson.remoting.VirtualChannel;
+
+/**
+ * A listing of all files of a workspace that is shared by all analysis steps
+ * of a build. The workspace is scanned only once for each build, afterwards
+ * all file pattern queries are evaluated against the listing in memory.
+ * <p>
+ * A snapshot is identified by a scope (i.e. the build) and the workspace
+ * path. On the master, the scope of the running analysis step is stored with
+ * {@link #enterScope(String)}, so that the callables that are sent to the
+ * agent could pick it up using {@link #getScope()}. The workspace is scanned
+ * by the first step that requests the snapshot, concurrent steps of the same
+ * scope wait for this scan while steps of other scopes are not blocked. The
+ * snapshots of a scope are released with {@link #release(FilePath, String)}
+ * after the last analysis step of the build. Additionally, only the snapshots
+ * of the most recent scopes are kept in memory.
+ * </p>
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public final class WorkspaceSnapshot {
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceSnapshot.class.getName());
+    private static final String ALL_FILES = "**/*";
+    private static final int MAX_SNAPSHOTS = 4;
+
+    private static final ThreadLocal<String> SCOPE = new ThreadLocal<String>();
+    @SuppressWarnings("serial")
+    private static final Map<String, FutureTask<WorkspaceSnapshot>> SNAPSHOTS
+            = new LinkedHashMap<String, FutureTask<WorkspaceSnapshot>>(MAX_SNAPSHOTS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, FutureTask<WorkspaceSnapshot>> eldest) {
+            return size() > MAX_SNAPSHOTS;
+        }
+    };
+
+    private final File root;
+    /** The relative names of all files, sorted alphabetically. */
+    private final String[] files;
+
+    /**
+     * Sets the scope of the analysis steps that are executed in the current
+     * thread.
+     *
+     * @param scope
+     *            the scope, e.g. the ID of the build
+     */
+    public static void enterScope(final String scope) {
+        SCOPE.set(scope);
+    }
+
+    /**
+     * Removes the scope of the analysis steps that are executed in the current
+     * thread.
+     */
+    public static void exitScope() {
+        SCOPE.remove();
+    }
+
+    /**
+     * Returns the scope of the analysis steps that are executed in the current
+     * thread.
+     *
+     * @return the scope, or <code>null</code> if there is no scope
+     */
+    public static String getScope() {
+        return SCOPE.get();
+    }
+
+    /**
+     * Returns the snapshot of the specified workspace for the specified scope.
+     * If there is no such snapshot yet, then the workspace is scanned.
+     *
+     * @param scope
+     *            the scope of the snapshot
+     * @param workspace
+     *            the workspace
+     * @return the snapshot
+     * @throws IOException
+     *             if the workspace could not be scanned
+     */
+    public static WorkspaceSnapshot get(final String scope, final File workspace) throws IOException {
+        String key = scope + '@' + workspace.getAbsolutePath();
+        FutureTask<WorkspaceSnapshot> scan;
+        boolean isNew = false;
+        synchronized (SNAPSHOTS) {
+            scan = SNAPSHOTS.get(key);
+            if (scan == null) {
+                scan = new FutureTask<WorkspaceSnapshot>(new Scan(workspace));
+                SNAPSHOTS.put(key, scan);
+                isNew = true;
+            }
+        }
+        if (isNew) {
+            scan.run();
+        }
+        try {
+            return scan.get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for the snapshot of " + workspace);
+        }
+        catch (ExecutionException exception) {
+            synchronized (SNAPSHOTS) {
+                if (SNAPSHOTS.get(key) == scan) {
+                    SNAPSHOTS.remove(key);
+                }
+            }
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException)exception.getCause();
+            }
+            throw new IOException("Can't create snapshot of workspace " + workspace, exception.getCause());
+        }
+    }
+
+    /**
+     * Removes the snapshots of the specified scope from memory.
+     *
+     * @param scope
+     *            the scope of the snapshots
+     */
+    static void release(final String scope) {
+        String prefix = scope + '@';
+        synchronized (SNAPSHOTS) {
+            for (Iterator<String> keys = SNAPSHOTS.keySet().iterator(); keys.hasNext();) {
+                if (keys.next().startsWith(prefix)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the snapshots of the specified scope from the memory of the
+     * machine that hosts the specified workspace.
+     *
+     * @param workspace
+     *            the workspace
+     * @param scope
+     *            the scope of the snapshots
+     * @throws IOException
+     *             if the machine could not be reached
+     * @throws InterruptedException
+     *             if the user cancelled the operation
+     */
+    public static void release(final FilePath workspace, final String scope) throws IOException, InterruptedException {
+        workspace.act(new Release(scope));
+    }
+
+    private WorkspaceSnapshot(final File root, final String[] files) {
+        this.root = root;
+        this.files = files;
+    }
+
+    /**
+     * Returns the root directory of this snapshot.
+     *
+     * @return the root directory
+     */
+    public File getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the relative names of all files of the workspace, sorted
+     * alphabetically.
+     *
+     * @return the file names
+     */
+    public String[] getFiles() {
+        return files.clone();
+    }
+
+    /**
+     * Returns whether the workspace contains the specified file.
+     *
+     * @param relativeFileName
+     *            the file name, relative to the workspace root
+     * @return <code>true</code> if the file exists
+     */
+    public boolean contains(final String relativeFileName) {
+        return Arrays.binarySearch(files, relativeFileName.replace('/', File.separatorChar)) >= 0;
+    }
+
+    /**
+     * Returns the names of the files that match the specified Ant pattern.
+     *
+     * @param pattern
+     *            the Ant pattern
+     * @return the matching file names, relative to the workspace root
+     */
+    public String[] find(final String pattern) {
+        return new WorkspaceScanner(pattern).filter(files);
+    }
+
+    /**
+     * Scans all files of a workspace.
+     */
+    private static class Scan implements Callable<WorkspaceSnapshot> {
+        private final File workspace;
+
+        Scan(final File workspace) {
+            this.workspace = workspace;
+        }
+
+        /** {@inheritDoc} */
+        public WorkspaceSnapshot call() throws IOException {
+            long start = System.currentTimeMillis();
+            String[] files = new WorkspaceScanner(ALL_FILES).scan(workspace);
+            WorkspaceSnapshot snapshot = new WorkspaceSnapshot(workspace, files);
+
+            LOGGER.log(Level.FINE, "Created snapshot of " + snapshot.files.length + " files of workspace "
+                    + workspace + " in " + (System.currentTimeMillis() - start) + "ms");
+
+            return snapshot;
+        }
+    }
+
+    /**
+     * Removes the snapshots of a scope on the machine that hosts the
+     * workspace.
+     */
+    private static class Release implements FileCallable<Void> {
+        private static final long serialVersionUID = 4616180226178522165L;
+
+        private final String scope;
+
+        Release(final String scope) {
+            this.scope = scope;
+        }
+
+        /** {@inheritDoc} */
+        public Void invoke(final File workspace, final VirtualChannel channel) {
+            release(scope);
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package hudson.plugins.analysis.util;
+
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Creates StAX readers from one shared factory. Looking up and configuring an
+ * {@link XMLInputFactory} is expensive, creating readers from a configured
+ * factory is cheap and thread safe. DTDs and external entities are not
+ * processed.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public final class XmlStreams {
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+
+        return factory;
+    }
+
+    /**
+     * Creates a reader for the specified stream. The encoding is detected
+     * from the XML declaration.
+     *
+     * @param input
+     *            the stream to read
+     * @return the reader
+     * @throws XMLStreamException
+     *             if the reader could not be created
+     */
+    public static XMLStreamReader createReader(final InputStream input) throws XMLStreamException {
+        return FACTORY.createXMLStreamReader(input);
+    }
+
+    /**
+     * Closes the specified reader, exceptions are ignored. The underlying
+     * stream is not closed.
+     *
+     * @param reader
+     *            the reader to close, might be <code>null</code>
+     */
+    public static void closeQuietly(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            }
+            catch (XMLStreamException exception) {
+                // ignore
+            }
+        }
+    }
+
+    private XmlStreams() {
+        // prevents instantiation
+    }
+}
@@ -0,0 +1,91 @@
+package hudson.plugins.analysis.util.model;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.thoughtworks.xstream.XStream;
+
+import hudson.XmlFile;
+
+/**
+ * Reads the array of annotations that has been written by
+ * {@link hudson.XmlFile#write(Object)} and passes the annotations one by one
+ * to a visitor. The annotations share objects like the interned file names
+ * that XStream writes as references to earlier elements of the array, so the
+ * array is always unmarshalled in a single context. In contrast to
+ * {@link hudson.plugins.analysis.core.BuildResult#getAnnotations()}, no
+ * {@link JavaProject} is created and the annotations are not kept in memory
+ * after the visitor has been finished.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class AnnotationArrayFile {
+    private final XmlFile file;
+
+    /**
+     * Creates a new instance of {@link AnnotationArrayFile}.
+     *
+     * @param xstream
+     *            the XStream used to convert the annotations
+     * @param file
+     *            the file to read
+     */
+    public AnnotationArrayFile(final XStream xstream, final File file) {
+        this.file = new XmlFile(xstream, file);
+    }
+
+    /**
+     * Returns whether the file exists.
+     *
+     * @return <code>true</code> if the file exists
+     */
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Reads the annotations of the file and passes each annotation to the
+     * specified visitor.
+     *
+     * @param visitor
+     *            the visitor to pass the annotations to
+     * @return the number of visited annotations
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public int read(final AnnotationsFile.Visitor visitor) throws IOException {
+        return read(visitor, 0);
+    }
+
+    /**
+     * Reads the annotations of the file and passes each annotation, starting
+     * with the annotation at the specified position, to the specified visitor.
+     *
+     * @param visitor
+     *            the visitor to pass the annotations to
+     * @param first
+     *            the position of the first annotation to visit
+     * @return the number of visited annotations
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public int read(final AnnotationsFile.Visitor visitor, final int first) throws IOException {
+        Object content = file.read();
+        if (!(content instanceof Object[])) {
+            throw new IOException("Can't read annotations from " + file + ": not an array");
+        }
+
+        Object[] annotations = (Object[])content;
+        int count = 0;
+        for (int position = Math.max(0, first); position < annotations.length; position++) {
+            if (annotations[position] instanceof FileAnnotation) {
+                count++;
+                if (!visitor.visit((FileAnnotation)annotations[position])) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,154 @@
+package hudson.plugins.analysis.util.model;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.util.Collection;
+
+import org.apache.commons.io.IOUtils;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+
+import hudson.util.AtomicFileWriter;
+
+/**
+ * A file that stores annotations as a stream of XML elements. In contrast to
+ * {@link hudson.XmlFile} that stores an array of annotations, the annotations
+ * of this file could be read one by one, so a client that just needs to
+ * render the annotations does not need to keep all of them in memory.
+ *
+ * @author Ulli Hafner
+ * @since 1.55
+ */
+public class AnnotationsFile {
+    private static final String ENCODING = "UTF-8";
+    private static final String ROOT_NODE = "annotations";
+
+    private final XStream xstream;
+    private final File file;
+
+    /**
+     * Creates a new instance of {@link AnnotationsFile}.
+     *
+     * @param xstream
+     *            the XStream used to convert the annotations
+     * @param file
+     *            the file to read or write
+     */
+    public AnnotationsFile(final XStream xstream, final File file) {
+        this.xstream = xstream;
+        this.file = file;
+    }
+
+    /**
+     * Returns the file to read or write.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns whether the file exists.
+     *
+     * @return <code>true</code> if the file exists
+     */
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Writes the specified annotations to the file. An existing file will be
+     * overwritten. The annotations are written to a temporary file that
+     * replaces the file after all annotations have been written, so the file
+     * is never left incomplete.
+     *
+     * @param annotations
+     *            the annotations to write
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public void write(final Collection<? extends FileAnnotation> annotations) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Can't create folder " + parent);
+        }
+        AtomicFileWriter writer = new AtomicFileWriter(file, ENCODING);
+        ObjectOutputStream output = null;
+        try {
+            output = xstream.createObjectOutputStream(writer, ROOT_NODE);
+            for (FileAnnotation annotation : annotations) {
+                output.writeObject(annotation);
+            }
+            output.close();
+            writer.commit();
+        }
+        finally {
+            IOUtils.closeQuietly(output);
+            writer.abort();
+        }
+    }
+
+    /**
+     * Reads the annotations of the file one by one and passes each annotation
+     * to the specified visitor. Only the current annotation is held in memory.
+     *
+     * @param visitor
+     *            the visitor to pass the annotations to
+     * @return the number of visited annotations
+     * @throws IOException
+     *             if the file could not be read or is corrupt
+     */
+    public int read(final Visitor visitor) throws IOException {
+        Reader reader = new InputStreamReader(new BufferedInputStream(new FileInputStream(file)), ENCODING);
+        ObjectInputStream input = null;
+        int count = 0;
+        try {
+            input = xstream.createObjectInputStream(reader);
+            while (true) {
+                FileAnnotation annotation = (FileAnnotation)input.readObject();
+                count++;
+                if (!visitor.visit(annotation)) {
+                    break;
+                }
+            }
+        }
+        catch (EOFException exception) {
+            // end of the annotations reached
+        }
+        catch (ClassNotFoundException exception) {
+            throw new IOException("Can't read annotations from " + file, exception);
+        }
+        catch (XStreamException exception) {
+            throw new IOException("Can't read annotations from " + file, exception);
+        }
+        finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(reader);
+        }
+        return count;
+    }
+
+    /**
+     * Visits the annotations of an {@link AnnotationsFile}.
+     */
+    public interface Visitor {
+        /**
+         * Visits the specified annotation.
+         *
+         * @param annotation
+         *            the annotation
+         * @return <code>true</code> if the next annotation should be visited,
+         *         <code>false</code> to stop reading
+         */
+        boolean visit(FileAnnotation annotation);
+    }
+}
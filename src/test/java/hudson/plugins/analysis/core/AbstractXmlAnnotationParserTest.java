@@ -0,0 +1,149 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link AbstractXmlAnnotationParser}.
+ *
+ * @author Ulli Hafner
+ */
+public class AbstractXmlAnnotationParserTest {
+    private static final String MODULE = "module";
+    private static final String REPORT = "<?xml version=\"1.0\"?>\n"
+            + "<report xmlns=\"urn:report\" version=\"5\">\n"
+            + "  <file name=\"A.java\">\n"
+            + "    <error line=\"3\" severity=\"error\" message=\"one &amp; two\" source=\"naming\"/>\n"
+            + "    <error line=\"x\" severity=\"unknown\" source=\"size\"/>\n"
+            + "  </file>\n"
+            + "  <bug type=\"NP\">design\n"
+            + "    <file package=\"edu.hm\"> B.java </file>\n"
+            + "    <range start=\"4\" end=\"7\"><range start=\"9\" end=\"9\"/></range>\n"
+            + "    <message><![CDATA[null <value>]]></message>\n"
+            + "  </bug>\n"
+            + "  <bug type=\"NP\"/>\n"
+            + "  <file name=\"C.java\">\n"
+            + "    <error line=\"1\" severity=\"info\"/>\n"
+            + "  </file>\n"
+            + "</report>\n";
+
+    /**
+     * Verifies that attributes, texts of the element and its children and
+     * attributes of the ancestors are mapped.
+     *
+     * @throws Exception
+     *             if the report could not be parsed
+     */
+    @Test
+    public void testMapping() throws Exception {
+        List<FileAnnotation> annotations = Lists.newArrayList(new Parser().parse(read(REPORT), MODULE));
+
+        assertEquals("Wrong number of annotations", 4, annotations.size());
+
+        verify(annotations.get(0), "A.java", Priority.HIGH, "one &amp; two", 3, 3, "naming", "5");
+        verify(annotations.get(1), "A.java", Priority.NORMAL, StringUtils.EMPTY, 0, 0, "size", "5");
+        verify(annotations.get(2), "B.java", Priority.NORMAL, "null &lt;value&gt;", 4, 7, "design", "NP");
+        assertEquals("Wrong package", "edu.hm", annotations.get(2).getPackageName());
+        verify(annotations.get(3), "C.java", Priority.LOW, StringUtils.EMPTY, 1, 1, StringUtils.EMPTY, "5");
+    }
+
+    private void verify(final FileAnnotation annotation, final String fileName, final Priority priority,
+            final String message, final int start, final int end, final String category, final String type) {
+        assertEquals("Wrong file", fileName, annotation.getFileName());
+        assertEquals("Wrong module", MODULE, annotation.getModuleName());
+        assertEquals("Wrong priority", priority, annotation.getPriority());
+        assertEquals("Wrong message", message, annotation.getMessage());
+        assertEquals("Wrong start", start, annotation.getPrimaryLineNumber());
+        assertEquals("Wrong end", end, annotation.getLineRanges().iterator().next().getEnd());
+        assertEquals("Wrong category", category, annotation.getCategory());
+        assertEquals("Wrong type", type, annotation.getType());
+    }
+
+    /**
+     * Verifies that annotations are added to the sink as soon as their element
+     * is closed, i.e. before a broken end of the report is detected.
+     *
+     * @throws Exception
+     *             if the report could not be read
+     */
+    @Test
+    public void testAnnotationsAreStreamed() throws Exception {
+        final List<FileAnnotation> annotations = Lists.newArrayList();
+        try {
+            new Parser().parse(read(StringUtils.substringBefore(REPORT, "</report>") + "<broken>"), MODULE,
+                    new AnnotationSink() {
+                        public void add(final FileAnnotation annotation) {
+                            annotations.add(annotation);
+                        }
+                    });
+            fail("Broken report not detected");
+        }
+        catch (InvocationTargetException exception) {
+            assertEquals("Wrong number of streamed annotations", 4, annotations.size());
+        }
+    }
+
+    /**
+     * Verifies that unsupported paths are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedPath() {
+        new XmlElementMapping("error").line("line");
+    }
+
+    private InputStream read(final String report) throws UnsupportedEncodingException {
+        return new ByteArrayInputStream(report.getBytes("UTF-8"));
+    }
+
+    /**
+     * Maps errors with attributes and bugs with child elements.
+     */
+    private static class Parser extends AbstractXmlAnnotationParser {
+        private static final long serialVersionUID = 2381565329087235476L;
+
+        Parser() {
+            super("UTF-8",
+                    new XmlElementMapping("error").fileName("../@name").line("@line").priority("@severity")
+                            .priority("error", Priority.HIGH).priority("info", Priority.LOW)
+                            .message("@message").category("@source").type("../../@version"),
+                    new XmlElementMapping("bug").fileName("file/text()").line("range/@start").endLine("range/@end")
+                            .message("message/text()").packageName("file/@package").category("text()").type("@type"));
+        }
+
+        @Override
+        protected AbstractAnnotation createAnnotation(final Priority priority, final String message, final int start,
+                final int end, final String category, final String type) {
+            return new Warning(priority, message, start, end, category, type);
+        }
+    }
+
+    /**
+     * A concrete warning created by the parser.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = -4529358723401936224L;
+
+        Warning(final Priority priority, final String message, final int start, final int end, final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.plugins.analysis.core.AnnotationsExport.CsvPageWriter;
+import hudson.plugins.analysis.core.AnnotationsExport.Filter;
+import hudson.plugins.analysis.core.AnnotationsExport.JsonPageWriter;
+import hudson.plugins.analysis.core.AnnotationsExport.PageVisitor;
+import hudson.plugins.analysis.core.AnnotationsExport.PageWriter;
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link AnnotationsExport}.
+ *
+ * @author Ulli Hafner
+ */
+public class AnnotationsExportTest {
+    private static final String WRONG_PAGE = "Wrong page";
+
+    /**
+     * Verifies that the pages of the matching annotations are written and that
+     * the cursor of the next page is set to the position of the first
+     * matching annotation of the next page.
+     */
+    @Test
+    public void testJsonPages() {
+        List<FileAnnotation> annotations = createAnnotations();
+        Filter filter = new Filter("HIGH", null, null, null, null, null);
+
+        String first = export(annotations, filter, 0, 2, false);
+        assertEquals(WRONG_PAGE, "{\"annotations\":[" + json(annotations.get(0)) + "," + json(annotations.get(2))
+                + "],\"nextCursor\":4}", first);
+
+        String second = export(annotations, filter, 4, 2, false);
+        assertEquals(WRONG_PAGE, "{\"annotations\":[" + json(annotations.get(4)) + "],\"nextCursor\":null}", second);
+
+        String empty = export(annotations, filter, 5, 2, false);
+        assertEquals(WRONG_PAGE, "{\"annotations\":[],\"nextCursor\":null}", empty);
+    }
+
+    /**
+     * Verifies that values with separators are escaped in CSV pages.
+     */
+    @Test
+    public void testCsv() {
+        List<FileAnnotation> annotations = createAnnotations();
+        Filter filter = new Filter(null, null, null, "B.java", null, null);
+
+        String csv = export(annotations, filter, 0, 10, true);
+        String[] lines = StringUtils.split(csv, "\r\n");
+        assertEquals("Wrong number of lines", 2, lines.length);
+        assertEquals("Wrong header", "key,priority,fileName,primaryLineNumber,moduleName,packageName,category,type,message",
+                lines[0]);
+        assertTrue("Wrong row: " + lines[1], lines[1].endsWith(",\"one, two\""));
+    }
+
+    private String export(final List<FileAnnotation> annotations, final Filter filter, final int cursor,
+            final int limit, final boolean isCsv) {
+        StringWriter output = new StringWriter();
+        PrintWriter writer = new PrintWriter(output);
+        PageWriter page = isCsv ? new CsvPageWriter(writer) : new JsonPageWriter(writer);
+        PageVisitor visitor = new PageVisitor(filter, cursor, limit, page);
+        for (FileAnnotation annotation : annotations.subList(cursor, annotations.size())) {
+            if (!visitor.visit(annotation)) {
+                break;
+            }
+        }
+        page.finish();
+
+        return output.toString();
+    }
+
+    private String json(final FileAnnotation annotation) {
+        return String.format("{\"key\":%d,\"priority\":\"HIGH\",\"fileName\":\"%s\",\"primaryLineNumber\":%d,"
+                + "\"moduleName\":\"Default Module\",\"packageName\":\"Default Package\",\"category\":\"category\","
+                + "\"type\":\"type\",\"message\":\"%s\"}", annotation.getKey(), annotation.getFileName(),
+                annotation.getPrimaryLineNumber(), annotation.getMessage());
+    }
+
+    private List<FileAnnotation> createAnnotations() {
+        return Lists.newArrayList(
+                createWarning(Priority.HIGH, "A.java", 1, "first"),
+                createWarning(Priority.LOW, "A.java", 2, "second"),
+                createWarning(Priority.HIGH, "A.java", 3, "third"),
+                createWarning(Priority.NORMAL, "B.java", 4, "one, two"),
+                createWarning(Priority.HIGH, "C.java", 5, "fifth"));
+    }
+
+    private FileAnnotation createWarning(final Priority priority, final String fileName, final int line,
+            final String message) {
+        Warning warning = new Warning(priority, message, line, line, "category", "type");
+        warning.setFileName(fileName);
+        return warning;
+    }
+
+    /**
+     * A concrete warning that will be exported.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = -5436918349273621784L;
+
+        Warning(final Priority priority, final String message, final int start, final int end, final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
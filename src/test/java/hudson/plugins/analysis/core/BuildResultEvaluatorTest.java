@@ -139,6 +139,78 @@ public class BuildResultEvaluatorTest {
                 newDescriptor("", "", "2", ""), Messages._BuildResultEvaluator_unstable_new(4, 2, 2, newUrl));
     }
 
+    /**
+     * Verifies that the evaluation of precomputed counts produces the same
+     * results and messages as the evaluation of the annotations.
+     */
+    @Test
+    public void checkCountsProduceSameMessages() {
+        Locale.setDefault(Locale.ENGLISH);
+
+        BuildResultEvaluator parser = new BuildResultEvaluator(URL);
+        List<FileAnnotation> allAnnotations = new ArrayList<FileAnnotation>();
+        List<FileAnnotation> newAnnotations = new ArrayList<FileAnnotation>();
+        allAnnotations.add(createAnnotation());
+        allAnnotations.add(createAnnotation());
+        newAnnotations.add(createAnnotation());
+
+        AnnotationCounts totals = new AnnotationCounts(2, 2, 0, 0);
+        AnnotationCounts newCounts = new AnnotationCounts(1, 1, 0, 0);
+        Thresholds[] allThresholds = {newDescriptor("", "", "", ""), newDescriptor("1", "", "", ""),
+                newDescriptor("", "1", "", ""), newDescriptor("", "", "0", ""), newDescriptor("", "", "", "0")};
+        for (Thresholds thresholds : allThresholds) {
+            StringBuilder expected = new StringBuilder();
+            StringBuilder actual = new StringBuilder();
+
+            assertEquals(WRONG_BUILD_RESULT,
+                    parser.evaluateBuildResult(expected, thresholds, allAnnotations, newAnnotations),
+                    parser.evaluateBuildResult(actual, thresholds, totals, newCounts));
+            assertEquals("Wrong message", expected.toString(), actual.toString());
+        }
+        StringBuilder logger = new StringBuilder();
+        assertEquals(WRONG_BUILD_RESULT, Result.UNSTABLE,
+                parser.evaluateBuildResult(logger, newDescriptor("1", "", "", ""), totals));
+        assertEquals("Wrong message", Messages._BuildResultEvaluator_unstable_all(2, 1, 1, URL).toString(Locale.ENGLISH),
+                logger.toString());
+    }
+
+    /**
+     * Verifies that duplicate annotations are counted only once, so the
+     * evaluation of the annotations and of the counts of a
+     * {@link ParserResult} produce the same results.
+     */
+    @Test
+    public void checkDuplicatesAreCountedOnce() {
+        BuildResultEvaluator parser = new BuildResultEvaluator(URL);
+        FileAnnotation duplicate = createAnnotation();
+        List<FileAnnotation> allAnnotations = new ArrayList<FileAnnotation>();
+        allAnnotations.add(duplicate);
+        allAnnotations.add(duplicate);
+        allAnnotations.add(createAnnotation());
+
+        AnnotationCounts counts = AnnotationCounts.count(allAnnotations);
+        assertEquals("Wrong number of annotations", 2, counts.getTotal());
+        assertEquals("Wrong number of annotations", 2, counts.get(Priority.HIGH));
+
+        ParserResult result = new ParserResult(allAnnotations);
+        AnnotationCounts resultCounts = new AnnotationCounts(result.getNumberOfAnnotations(),
+                result.getNumberOfAnnotations(Priority.HIGH), result.getNumberOfAnnotations(Priority.NORMAL),
+                result.getNumberOfAnnotations(Priority.LOW));
+        Thresholds[] allThresholds = {newDescriptor("2", "", "", ""), newDescriptor("1", "", "", ""),
+                newDescriptor("", "2", "", ""), newDescriptor("", "1", "", "")};
+        for (Thresholds thresholds : allThresholds) {
+            StringBuilder expected = new StringBuilder();
+            StringBuilder actual = new StringBuilder();
+
+            assertEquals(WRONG_BUILD_RESULT,
+                    parser.evaluateBuildResult(expected, thresholds, resultCounts),
+                    parser.evaluateBuildResult(actual, thresholds, allAnnotations));
+            assertEquals("Wrong message", expected.toString(), actual.toString());
+        }
+        assertEquals(WRONG_BUILD_RESULT, Result.SUCCESS,
+                parser.evaluateBuildResult(new StringBuilder(), newDescriptor("2", "", "", ""), allAnnotations));
+    }
+
     private void checkMessage(final BuildResultEvaluator parser, final List<FileAnnotation> allAnnotations,
             final List<FileAnnotation> newAnnotations, final Thresholds thresholds, final Localizable expected) {
         StringBuilder logger = new StringBuilder();
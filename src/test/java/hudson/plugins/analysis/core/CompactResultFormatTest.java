@@ -0,0 +1,220 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link CompactResultFormat}.
+ *
+ * @author Ulli Hafner
+ */
+public class CompactResultFormatTest {
+    private static final int NUMBER_OF_WARNINGS = 2 * CompactResultFormat.CHUNK_SIZE + 10;
+    private static final String PARSED_REPORT = "/workspace/parsed.xml";
+    private static final String REUSED_REPORT = "/workspace/reused.xml";
+    private static final String LATIN_1 = "ISO-8859-1";
+
+    /**
+     * Verifies that a result with several chunks of annotations is restored
+     * and that the compact format is smaller than Java serialization.
+     *
+     * @throws Exception
+     *             if the result could not be transferred
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        ParserResult result = new ParserResult();
+        for (int i = 0; i < NUMBER_OF_WARNINGS; i++) {
+            Warning warning = new Warning(Priority.values()[i % 3], "Message " + i % 10, i, i + 1,
+                    "category" + i % 4, "type");
+            warning.setFileName("/workspace/module/src/File" + i % 20 + ".java");
+            warning.setModuleName("module");
+            warning.setPackageName("edu.hm");
+            warning.setColumnPosition(i % 80, i % 80 + 1);
+            result.addAnnotation(warning);
+        }
+        result.addErrorMessage("Error");
+        result.addModule("module");
+        result.setLog("Log message");
+        result.getTimings().add(PhaseTimings.PARSING, 10, 2, 1000);
+
+        byte[] compact = write(result);
+
+        ParserResult transferred = new ParserResult();
+        assertTrue("Result not complete", read(compact, transferred));
+
+        assertEquals("Wrong number of annotations", NUMBER_OF_WARNINGS, transferred.getNumberOfAnnotations());
+        for (Priority priority : Priority.values()) {
+            assertEquals("Wrong number of annotations", result.getNumberOfAnnotations(priority),
+                    transferred.getNumberOfAnnotations(priority));
+        }
+        Map<Long, FileAnnotation> expected = Maps.newHashMap();
+        for (FileAnnotation annotation : result.getAnnotations()) {
+            expected.put(annotation.getKey(), annotation);
+        }
+        for (FileAnnotation annotation : transferred.getAnnotations()) {
+            FileAnnotation original = expected.get(annotation.getKey());
+            assertEquals("Wrong annotation", original, annotation);
+            assertEquals("Wrong file name", original.getFileName(), annotation.getFileName());
+            assertEquals("Wrong module", original.getModuleName(), annotation.getModuleName());
+            assertEquals("Wrong column", original.getColumnStart(), annotation.getColumnStart());
+            assertEquals("Wrong line ranges", Lists.newArrayList(original.getLineRanges()),
+                    Lists.newArrayList(annotation.getLineRanges()));
+        }
+        assertEquals("Wrong errors", result.getErrorMessages(), transferred.getErrorMessages());
+        assertEquals("Wrong modules", result.getModules(), transferred.getModules());
+        assertEquals("Wrong number of modules", 1, transferred.getNumberOfModules());
+        assertEquals("Wrong log", "Log message", transferred.getLogMessages());
+        assertEquals("Wrong timings", result.getTimings().toString(), transferred.getTimings().toString());
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(serialized);
+        output.writeObject(result);
+        output.close();
+        assertTrue("Compact format not smaller: " + compact.length + " vs. " + serialized.size(),
+                compact.length < serialized.size());
+    }
+
+    /**
+     * Verifies that the report file index is transferred without the
+     * annotations.
+     *
+     * @throws Exception
+     *             if the result could not be transferred
+     */
+    @Test
+    public void testReportFiles() throws Exception {
+        ParserResult result = new ParserResult();
+        ReportFileIndex reportFiles = new ReportFileIndex();
+        reportFiles.addParsedReport(PARSED_REPORT, new ReportDigest("abc", 10, 1), new long[] {1, 2});
+        reportFiles.addReusedReport(REUSED_REPORT, new ReportDigest("def", 20, 2));
+        result.setReportFiles(reportFiles);
+
+        ParserResult transferred = new ParserResult();
+        assertTrue("Result not complete", read(write(result), transferred));
+
+        ReportFileIndex index = transferred.getReportFiles();
+        assertEquals("Wrong number of reports", 2, index.size());
+        assertFalse("Report reused", index.isReused(PARSED_REPORT));
+        assertTrue("Report not reused", index.isReused(REUSED_REPORT));
+        assertArrayEquals("Wrong keys", new long[] {1, 2}, index.getKeys(PARSED_REPORT));
+        assertTrue("Wrong digest", new ReportDigest("abc", 10, 1).hasSameContent(index.getDigests().get(PARSED_REPORT)));
+    }
+
+    /**
+     * Verifies that the writer stops if an annotation has custom
+     * serialization methods, and that the reader reports the incomplete
+     * result.
+     *
+     * @throws Exception
+     *             if the result could not be transferred
+     */
+    @Test
+    public void testCustomSerialization() throws Exception {
+        ParserResult result = new ParserResult();
+        result.addAnnotation(new SerializedWarning());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        assertFalse("Result written", new CompactResultFormat().write(result, output));
+        output.close();
+
+        assertFalse("Result complete", read(bytes.toByteArray(), new ParserResult()));
+    }
+
+    /**
+     * Verifies that classes that are no annotations are rejected.
+     *
+     * @throws Exception
+     *             if the stream could not be created
+     */
+    @Test
+    public void testRejectOtherClasses() throws Exception {
+        ParserResult result = new ParserResult();
+        result.addAnnotation(new Warning(Priority.HIGH, "Message", 1, 1, "category", "type"));
+        byte[] compact = write(result);
+
+        byte[] forged = new String(compact, LATIN_1).replace(Warning.class.getName(), Message.class.getName())
+                .getBytes(LATIN_1);
+        try {
+            read(forged, new ParserResult());
+
+            fail("Class accepted: " + Message.class.getName());
+        }
+        catch (IOException exception) {
+            assertTrue("Wrong message: " + exception.getMessage(), exception.getMessage().contains(Message.class.getName()));
+        }
+    }
+
+    private byte[] write(final ParserResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        assertTrue("Result not written", new CompactResultFormat().write(result, output));
+        output.close();
+
+        return bytes.toByteArray();
+    }
+
+    private boolean read(final byte[] compact, final ParserResult result) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(compact));
+
+        return new CompactResultFormat().read(input, result, getClass().getClassLoader());
+    }
+
+    /**
+     * A concrete warning that will be transferred.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = 1863571029846272313L;
+
+        Warning(final Priority priority, final String message, final int start, final int end, final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+
+    /**
+     * A warning with custom serialization methods.
+     */
+    private static class SerializedWarning extends Warning {
+        private static final long serialVersionUID = -5245916323437236393L;
+
+        SerializedWarning() {
+            super(Priority.HIGH, "Message", 1, 1, "category", "type");
+        }
+
+        private void writeObject(final ObjectOutputStream output) throws IOException {
+            output.defaultWriteObject();
+        }
+    }
+
+    /**
+     * A serializable class that is no annotation, its name has the same
+     * length as the name of {@link Warning}.
+     */
+    private static class Message implements Serializable {
+        private static final long serialVersionUID = 2611384271468434716L;
+    }
+}
@@ -0,0 +1,118 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.Util;
+
+import hudson.plugins.analysis.util.ContextHashCode;
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link ContextHashCalculator}.
+ *
+ * @author Ulli Hafner
+ */
+public class ContextHashCalculatorTest {
+    private static final String UTF_8 = "UTF-8";
+    private static final long UNCHANGED = 42;
+
+    /** The folder with the source files. */
+    private File folder;
+
+    /**
+     * Creates the folder of the source files.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the source files.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that only distinct lines are sent and that the hash codes are
+     * the same as computed by {@link ContextHashCode}.
+     *
+     * @throws IOException
+     *             if the files could not be created
+     */
+    @Test
+    public void testHashCodes() throws IOException {
+        File first = createFile("first.txt", 20);
+        File second = createFile("second.txt", 5);
+
+        List<FileAnnotation> annotations = Lists.newArrayList(
+                createWarning(first, 3), createWarning(first, 10), createWarning(first, 3),
+                createWarning(second, 1), createWarning(new File(folder, "missing.txt"), 1));
+
+        ContextHashCalculator calculator = ContextHashCalculator.create(annotations, UTF_8);
+        assertEquals("Wrong number of lines", 4, calculator.size());
+
+        calculator.apply(annotations, calculator.invoke(folder, null));
+
+        ContextHashCode expected = new ContextHashCode();
+        for (FileAnnotation annotation : annotations.subList(0, 4)) {
+            assertEquals("Wrong hash code", expected.create(annotation.getFileName(),
+                    annotation.getPrimaryLineNumber(), UTF_8), annotation.getContextHashCode());
+        }
+        assertEquals("Hash code of missing file changed", UNCHANGED, annotations.get(4).getContextHashCode());
+    }
+
+    private File createFile(final String name, final int numberOfLines) throws IOException {
+        File file = new File(folder, name);
+        StringBuilder content = new StringBuilder();
+        for (int line = 1; line <= numberOfLines; line++) {
+            content.append(name).append(" line ").append(line).append('\n');
+        }
+        FileUtils.writeStringToFile(file, content.toString(), UTF_8);
+
+        return file;
+    }
+
+    private FileAnnotation createWarning(final File file, final int line) {
+        Warning warning = new Warning(Priority.HIGH, "message", line, line, "category", "type");
+        warning.setFileName(file.getAbsolutePath());
+        warning.setContextHashCode(UNCHANGED);
+
+        return warning;
+    }
+
+    /**
+     * A concrete warning with a context hash code.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = -8402473914893724131L;
+
+        Warning(final Priority priority, final String message, final int start, final int end, final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
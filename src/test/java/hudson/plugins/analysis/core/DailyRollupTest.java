@@ -0,0 +1,124 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.GregorianCalendar;
+import java.util.SortedMap;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import hudson.model.AbstractBuild;
+
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the class {@link DailyRollup}.
+ *
+ * @author Ulli Hafner
+ */
+public class DailyRollupTest {
+    private static final String WRONG_AVERAGE = "Wrong average";
+    private static final LocalDate FIRST_DAY = new LocalDate(2014, 3, 1);
+    private static final LocalDate SECOND_DAY = FIRST_DAY.plusDays(1);
+
+    /**
+     * Verifies that the builds of the same day are averaged and that a build
+     * is added only once.
+     */
+    @Test
+    public void testAverages() {
+        BuildResult first = createResult(1, FIRST_DAY, null, 10, 4, 2);
+        BuildResult second = createResult(2, FIRST_DAY, first, 20, 6, 0);
+        BuildResult third = createResult(3, SECOND_DAY, second, 5, 0, 15);
+
+        DailyRollup rollup = DailyRollup.createFromHistory(third, FIRST_DAY);
+        rollup.add(second);
+
+        SortedMap<LocalDate, DailyRollup.Day> days = rollup.getDays();
+        assertEquals("Wrong number of days", 2, days.size());
+
+        DailyRollup.Day day = days.get(FIRST_DAY);
+        assertEquals("Wrong number of builds", 2, day.getBuilds());
+        assertEquals(WRONG_AVERAGE, 15, day.getAverage(Priority.HIGH));
+        assertEquals(WRONG_AVERAGE, 30, day.getAverageTotal());
+        assertEquals(WRONG_AVERAGE, 5, day.getAverageNewWarnings());
+        assertEquals(WRONG_AVERAGE, 1, day.getAverageFixedWarnings());
+        assertEquals("Wrong number of new warnings", 10, day.getNewWarnings());
+        assertEquals("Wrong number of fixed warnings", 2, day.getFixedWarnings());
+
+        day = days.get(SECOND_DAY);
+        assertEquals("Wrong number of builds", 1, day.getBuilds());
+        assertEquals(WRONG_AVERAGE, 5, day.getAverage(Priority.HIGH));
+        assertEquals(WRONG_AVERAGE, 15, day.getAverageFixedWarnings());
+    }
+
+    /**
+     * Verifies that only the days within the retention period are created
+     * from the history and kept after compacting.
+     */
+    @Test
+    public void testRetention() {
+        BuildResult first = createResult(1, FIRST_DAY, null, 10, 4, 2);
+        BuildResult second = createResult(2, SECOND_DAY, first, 20, 6, 0);
+
+        assertEquals("Wrong number of days", 1, DailyRollup.createFromHistory(second, SECOND_DAY).getDays().size());
+
+        DailyRollup rollup = DailyRollup.createFromHistory(second, FIRST_DAY);
+        assertEquals("Wrong number of days", 2, rollup.getDays().size());
+
+        rollup.compact(SECOND_DAY);
+        assertEquals("Wrong number of days", 1, rollup.getDays().size());
+        assertTrue("Wrong day", rollup.getDays().containsKey(SECOND_DAY));
+    }
+
+    /**
+     * Verifies that a deleted build is subtracted from its day, that a day
+     * without builds is removed, and that the copied rollup is not changed.
+     */
+    @Test
+    public void testRemove() {
+        BuildResult first = createResult(1, FIRST_DAY, null, 10, 4, 2);
+        BuildResult second = createResult(2, FIRST_DAY, first, 20, 6, 0);
+        BuildResult third = createResult(3, SECOND_DAY, second, 5, 0, 15);
+        BuildResult notAdded = createResult(4, SECOND_DAY, third, 7, 0, 0);
+
+        DailyRollup original = DailyRollup.createFromHistory(third, FIRST_DAY);
+        DailyRollup rollup = new DailyRollup(original);
+
+        assertTrue("Build not removed", rollup.remove(first));
+        assertTrue("Build not removed", rollup.remove(third));
+        assertFalse("Build removed", rollup.remove(notAdded));
+
+        SortedMap<LocalDate, DailyRollup.Day> days = rollup.getDays();
+        assertEquals("Wrong number of days", 1, days.size());
+        DailyRollup.Day day = days.get(FIRST_DAY);
+        assertEquals("Wrong number of builds", 1, day.getBuilds());
+        assertEquals(WRONG_AVERAGE, 20, day.getAverage(Priority.HIGH));
+        assertEquals("Wrong number of new warnings", 6, day.getNewWarnings());
+
+        assertEquals("Copy changed", 2, original.getDays().size());
+        assertEquals("Copy changed", 2, original.getDays().get(FIRST_DAY).getBuilds());
+    }
+
+    private BuildResult createResult(final int number, final LocalDate date, final BuildResult previous,
+            final int high, final int newWarnings, final int fixedWarnings) {
+        AbstractBuild<?, ?> build = mock(AbstractBuild.class);
+        when(build.getNumber()).thenReturn(number);
+        when(build.getTimestamp()).thenReturn(new GregorianCalendar(
+                date.getYear(), date.getMonthOfYear() - 1, date.getDayOfMonth(), 12, 0));
+
+        BuildResult result = mock(BuildResult.class);
+        doReturn(build).when(result).getOwner();
+        when(result.getNumberOfWarnings()).thenReturn(2 * high);
+        when(result.getNumberOfAnnotations(Priority.HIGH)).thenReturn(high);
+        when(result.getNumberOfAnnotations(Priority.NORMAL)).thenReturn(high);
+        when(result.getNumberOfNewWarnings()).thenReturn(newWarnings);
+        when(result.getNumberOfFixedWarnings()).thenReturn(fixedWarnings);
+        when(result.hasPreviousResult()).thenReturn(previous != null);
+        when(result.getPreviousResult()).thenReturn(previous);
+
+        return result;
+    }
+}
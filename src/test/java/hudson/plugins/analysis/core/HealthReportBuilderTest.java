@@ -11,6 +11,7 @@ import org.junit.Test;
 import hudson.model.HealthReport;
 
 import hudson.plugins.analysis.util.model.AnnotationProvider;
+import hudson.plugins.analysis.util.model.Priority;
 
 /**
  * Tests the class {@link HealthReportBuilder}.
@@ -90,6 +91,28 @@ public class HealthReportBuilderTest {
         assertNull(ERROR_MESSAGE, health);
     }
 
+    /**
+     * Verifies that the snapshot produces the same score and is invalidated by
+     * a changed health configuration.
+     */
+    @Test
+    public void testSnapshot() {
+        HealthReportBuilder builder = createHealthBuilder(false, 0, true, 0, 100);
+        AnnotationProvider result = mock(AnnotationProvider.class);
+        when(result.getNumberOfAnnotations(Priority.HIGH)).thenReturn(50);
+        when(result.getNumberOfAnnotations(Priority.NORMAL)).thenReturn(25);
+
+        HealthSnapshot snapshot = builder.computeSnapshot(result);
+        assertEquals(ERROR_MESSAGE, 75, snapshot.getNumberOfAnnotations());
+        assertEquals(ERROR_MESSAGE, 25, snapshot.getScore());
+        assertEquals(ERROR_MESSAGE, builder.computeHealth(result).getScore(), snapshot.getScore());
+
+        AbstractHealthDescriptor healthDescriptor = createHealthDescriptor(false, 0, true, 0, 100);
+        assertTrue("Snapshot should be valid", snapshot.isValidFor(healthDescriptor));
+        when(healthDescriptor.getUnHealthy()).thenReturn("200");
+        assertFalse("Snapshot should be invalid", snapshot.isValidFor(healthDescriptor));
+    }
+
     /**
      * Creates a health report using a {@link HealthReportBuilder} with the specified parameters.
      *
@@ -131,14 +154,22 @@ public class HealthReportBuilderTest {
      */
     private HealthReportBuilder createHealthBuilder(final boolean isThresholdEnabled, final int threshold,
             final boolean isHealthEnabled, final int healthy, final int unHealthy) {
+        return new HealthReportBuilder(createHealthDescriptor(isThresholdEnabled, threshold, isHealthEnabled, healthy, unHealthy));
+    }
+
+    private AbstractHealthDescriptor createHealthDescriptor(final boolean isThresholdEnabled, final int threshold,
+            final boolean isHealthEnabled, final int healthy, final int unHealthy) {
         AbstractHealthDescriptor healthDescriptor = mock(AbstractHealthDescriptor.class);
         when(healthDescriptor.isThresholdEnabled()).thenReturn(isThresholdEnabled);
         when(healthDescriptor.getLowerBoundOfThresholds()).thenReturn(threshold);
         when(healthDescriptor.isHealthyReportEnabled()).thenReturn(isHealthEnabled);
         when(healthDescriptor.getHealthyAnnotations()).thenReturn(healthy);
         when(healthDescriptor.getUnHealthyAnnotations()).thenReturn(unHealthy);
+        when(healthDescriptor.getHealthy()).thenReturn(String.valueOf(healthy));
+        when(healthDescriptor.getUnHealthy()).thenReturn(String.valueOf(unHealthy));
+        when(healthDescriptor.getMinimumPriority()).thenReturn(Priority.NORMAL);
 
-        return new HealthReportBuilder(healthDescriptor);
+        return healthDescriptor;
     }
 }
 
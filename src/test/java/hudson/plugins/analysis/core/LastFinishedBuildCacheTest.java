@@ -0,0 +1,105 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+
+/**
+ * Tests the class {@link LastFinishedBuildCache}.
+ *
+ * @author Ulli Hafner
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class LastFinishedBuildCacheTest {
+    private static final String WRONG_BUILD = "Wrong last finished build";
+
+    private AbstractProject project;
+    private AbstractBuild first;
+    private AbstractBuild second;
+    private AbstractBuild third;
+
+    /**
+     * Creates a project with a finished build with result, a failed build
+     * without result, and a running build.
+     */
+    @Before
+    public void createBuilds() {
+        LastFinishedBuildCache.clear();
+
+        project = mock(AbstractProject.class);
+        first = createBuild(1, null, true);
+        second = createBuild(2, first, false);
+        third = createBuild(3, second, false);
+        when(third.isBuilding()).thenReturn(true);
+        when(project.getLastBuild()).thenReturn(third);
+    }
+
+    private AbstractBuild createBuild(final int number, final AbstractBuild previous, final boolean hasResult) {
+        AbstractBuild build = mock(AbstractBuild.class);
+        when(build.getNumber()).thenReturn(number);
+        when(build.getParent()).thenReturn(project);
+        when(build.getPreviousBuild()).thenReturn(previous);
+        if (hasResult) {
+            when(build.getAction(ResultAction.class)).thenReturn(mock(ResultAction.class));
+        }
+        when(project.getBuildByNumber(number)).thenReturn(build);
+
+        return build;
+    }
+
+    /**
+     * Verifies that the builds are visited only once and again after a newer
+     * build has been completed or the cached build has been deleted.
+     */
+    @Test
+    public void testCachedLookup() {
+        ProjectAction action = new ProjectAction(project);
+        LastFinishedBuildCache cache = new LastFinishedBuildCache();
+
+        assertSame(WRONG_BUILD, first, action.getLastFinishedBuild());
+        assertSame(WRONG_BUILD, first, new ProjectAction(project).getLastFinishedBuild());
+        verify(project, times(1)).getLastBuild();
+
+        cache.onCompleted(second, null);
+        assertSame(WRONG_BUILD, first, action.getLastFinishedBuild());
+        verify(project, times(2)).getLastBuild();
+        verify(first, never()).getPreviousBuild();
+
+        when(third.isBuilding()).thenReturn(false);
+        when(third.getAction(ResultAction.class)).thenReturn(mock(ResultAction.class));
+        cache.onCompleted(third, null);
+        assertSame(WRONG_BUILD, third, action.getLastFinishedBuild());
+        assertSame(WRONG_BUILD, third, action.getLastFinishedBuild());
+        verify(project, times(3)).getLastBuild();
+
+        when(project.getLastBuild()).thenReturn(second);
+        when(project.getBuildByNumber(3)).thenReturn(null);
+        cache.onDeleted(third);
+        assertSame(WRONG_BUILD, first, action.getLastFinishedBuild());
+        verify(project, times(4)).getLastBuild();
+    }
+
+    /**
+     * Verifies that there is no last finished build if no build has a result.
+     */
+    @Test
+    public void testNoResult() {
+        when(first.getAction(ResultAction.class)).thenReturn(null);
+
+        assertNull(WRONG_BUILD, new ProjectAction(project).getLastFinishedBuild());
+    }
+
+    /**
+     * A project action that uses results of type {@link ResultAction}.
+     */
+    private static class ProjectAction extends AbstractProjectAction<ResultAction<?>> {
+        ProjectAction(final AbstractProject<?, ?> project) {
+            super(project, (Class)ResultAction.class, null, null, "plugin", "icon.png", "pluginResult");
+        }
+    }
+}
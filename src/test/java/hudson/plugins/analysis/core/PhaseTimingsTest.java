@@ -0,0 +1,79 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import hudson.plugins.analysis.core.PhaseTimings.Phase;
+
+/**
+ * Tests the class {@link PhaseTimings}.
+ *
+ * @author Ulli Hafner
+ */
+public class PhaseTimingsTest {
+    private static final String WRONG_COUNT = "Wrong count";
+    private static final String WRONG_BYTES = "Wrong bytes";
+    private static final String WRONG_DURATION = "Wrong duration";
+
+    /**
+     * Verifies that the values of a phase are summed up and that the phases
+     * are kept in the order of their first recording.
+     */
+    @Test
+    public void testSummation() {
+        PhaseTimings timings = new PhaseTimings();
+        assertTrue("Timings not empty", timings.isEmpty());
+
+        timings.add(PhaseTimings.PARSING, 10, 1, 100);
+        timings.add(PhaseTimings.MODULE_DETECTION, 5, 1, 0);
+        timings.add(PhaseTimings.PARSING, 20, 2, 200);
+
+        List<Phase> phases = timings.getPhases();
+        assertEquals("Wrong number of phases", 2, phases.size());
+        verifyPhase(phases.get(0), PhaseTimings.PARSING, 30, 3, 300);
+        verifyPhase(phases.get(1), PhaseTimings.MODULE_DETECTION, 5, 1, 0);
+    }
+
+    /**
+     * Verifies that the timings of another result are added.
+     */
+    @Test
+    public void testAddAll() {
+        PhaseTimings agent = new PhaseTimings();
+        agent.add(PhaseTimings.FINDING_FILES, 1, 4, 0);
+        agent.add(PhaseTimings.PARSING, 2, 4, 1000);
+
+        PhaseTimings master = new PhaseTimings();
+        master.add(PhaseTimings.PARSING, 3, 1, 10);
+        master.addAll(agent);
+
+        List<Phase> phases = master.getPhases();
+        assertEquals("Wrong number of phases", 2, phases.size());
+        verifyPhase(phases.get(0), PhaseTimings.PARSING, 5, 5, 1010);
+        verifyPhase(phases.get(1), PhaseTimings.FINDING_FILES, 1, 4, 0);
+    }
+
+    /**
+     * Verifies that phases shorter than a millisecond are summed up before
+     * they are converted to milliseconds.
+     */
+    @Test
+    public void testSubMillisecondPhases() {
+        PhaseTimings timings = new PhaseTimings();
+        for (int i = 0; i < 10; i++) {
+            timings.addNanos(PhaseTimings.PATH_RESOLUTION, 300000, 1, 0);
+        }
+
+        verifyPhase(timings.getPhases().get(0), PhaseTimings.PATH_RESOLUTION, 3, 10, 0);
+    }
+
+    private void verifyPhase(final Phase phase, final String name, final long duration, final long count, final long bytes) {
+        assertEquals("Wrong name", name, phase.getName());
+        assertEquals(WRONG_DURATION, duration, phase.getDuration());
+        assertEquals(WRONG_COUNT, count, phase.getCount());
+        assertEquals(WRONG_BYTES, bytes, phase.getBytes());
+    }
+}
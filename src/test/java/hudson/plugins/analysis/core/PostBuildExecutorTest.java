@@ -0,0 +1,141 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the class {@link PostBuildExecutor}.
+ *
+ * @author Ulli Hafner
+ */
+public class PostBuildExecutorTest {
+    private static final String TASK = "task";
+
+    /**
+     * Verifies that a task is run by the submitting thread if the queue is
+     * full.
+     *
+     * @throws Exception
+     *             if the test is interrupted
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        PostBuildExecutor executor = new PostBuildExecutor(1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Future<Void> blocking = executor.submit(TASK, new Callable<Void>() {
+            public Void call() throws InterruptedException {
+                started.countDown();
+                release.await();
+
+                return null;
+            }
+        });
+        started.await();
+        Future<Void> queued = executor.submit(TASK, new NoOperation());
+        assertEquals("Wrong number of queued tasks", 1, executor.getQueued());
+
+        final Thread caller = Thread.currentThread();
+        final boolean[] ranOnCaller = new boolean[1];
+        Future<Void> rejected = executor.submit(TASK, new Callable<Void>() {
+            public Void call() {
+                ranOnCaller[0] = Thread.currentThread() == caller;
+
+                return null;
+            }
+        });
+        assertTrue("Task not run by the caller", ranOnCaller[0]);
+        assertTrue("Task not finished", rejected.isDone());
+        assertEquals("Wrong number of tasks run by the caller", 1, executor.getRanOnCaller());
+
+        release.countDown();
+        PostBuildExecutor.waitFor(blocking);
+        PostBuildExecutor.waitFor(queued);
+
+        assertEquals("Wrong number of submitted tasks", 3, executor.getSubmitted());
+        assertEquals("Wrong number of completed tasks", 3, executor.getCompleted());
+        assertEquals("Wrong number of failed tasks", 0, executor.getFailed());
+    }
+
+    /**
+     * Verifies that failures are counted and reported.
+     *
+     * @throws Exception
+     *             if the test is interrupted
+     */
+    @Test
+    public void testFailure() throws Exception {
+        PostBuildExecutor executor = new PostBuildExecutor(1, 1);
+
+        Future<Void> task = executor.submit("failing", new Callable<Void>() {
+            public Void call() throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+        try {
+            task.get();
+
+            fail("No exception thrown");
+        }
+        catch (ExecutionException exception) {
+            assertTrue("Wrong cause", exception.getCause() instanceof IOException);
+        }
+        PostBuildExecutor.waitFor(task);
+
+        assertEquals("Wrong number of failed tasks", 1, executor.getFailed());
+        assertEquals("Wrong number of completed tasks", 0, executor.getCompleted());
+        assertEquals("Wrong number of failures", 1, executor.getRecentFailures().size());
+        assertTrue("Wrong failure", executor.getRecentFailures().get(0).startsWith("failing: "));
+    }
+
+    /**
+     * Verifies that the pending tasks are finished on shutdown and that tasks
+     * submitted afterwards are run by the submitting thread.
+     *
+     * @throws Exception
+     *             if the test is interrupted
+     */
+    @Test
+    public void testShutdown() throws Exception {
+        PostBuildExecutor executor = new PostBuildExecutor(1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final boolean[] finished = new boolean[1];
+
+        executor.submit(TASK, new Callable<Void>() {
+            public Void call() throws InterruptedException {
+                started.countDown();
+                Thread.sleep(100);
+                finished[0] = true;
+
+                return null;
+            }
+        });
+        started.await();
+
+        assertTrue("Tasks not finished", executor.shutdown(10, TimeUnit.SECONDS));
+        assertTrue("Pending task not finished", finished[0]);
+
+        Future<Void> late = executor.submit(TASK, new NoOperation());
+        assertTrue("Task not finished", late.isDone());
+        assertEquals("Wrong number of completed tasks", 2, executor.getCompleted());
+    }
+
+    /**
+     * A task that does nothing.
+     */
+    private static class NoOperation implements Callable<Void> {
+        /** {@inheritDoc} */
+        public Void call() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.FilePath;
+import hudson.Util;
+
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the incremental mode of {@link FilesParser} with a
+ * {@link ReportFileIndex}.
+ *
+ * @author Ulli Hafner
+ */
+public class ReportFileIndexTest {
+    private static final String UTF_8 = "UTF-8";
+    private static final String PATTERN = "*.txt";
+    private static final String WRONG_NUMBER = "Wrong number of annotations";
+
+    /** The workspace with the reports. */
+    private File folder;
+
+    /**
+     * Creates the folder of the reports.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the reports.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that only changed reports are parsed again and that the
+     * annotations of unchanged reports are reused.
+     *
+     * @throws Exception
+     *             if the reports could not be parsed
+     */
+    @Test
+    public void testUnchangedReportsAreReused() throws Exception {
+        File first = createReport("first.txt", "/A.java:1:HIGH", "/A.java:2:LOW");
+        File second = createReport("second.txt", "/B.java:1:HIGH");
+
+        LineParser parser = new LineParser();
+        ParserResult result = parse(parser, new ReportFileIndex());
+
+        assertEquals("Wrong number of parsed files", 2, parser.getCalls());
+        assertEquals(WRONG_NUMBER, 3, result.getNumberOfAnnotations());
+        ReportFileIndex index = result.getReportFiles();
+        assertEquals("Wrong number of reports", 2, index.size());
+        assertEquals("Wrong number of reused reports", 0, index.getNumberOfReusedReports());
+        assertEquals(WRONG_NUMBER, 2, index.getAnnotations(first.getAbsolutePath()).size());
+
+        createReport(second.getName(), "/B.java:1:HIGH", "/B.java:5:NORMAL");
+
+        parser = new LineParser();
+        result = parse(parser, index);
+
+        assertEquals("Wrong number of parsed files", 1, parser.getCalls());
+        assertEquals(WRONG_NUMBER, 4, result.getNumberOfAnnotations());
+        assertEquals(WRONG_NUMBER, 2, result.getNumberOfAnnotations(Priority.HIGH));
+        assertEquals(WRONG_NUMBER, 1, result.getNumberOfAnnotations(Priority.LOW));
+        ReportFileIndex next = result.getReportFiles();
+        assertEquals("Wrong number of reused reports", 1, next.getNumberOfReusedReports());
+        assertEquals(WRONG_NUMBER, 2, next.getAnnotations(first.getAbsolutePath()).size());
+        assertEquals(WRONG_NUMBER, 2, next.getAnnotations(second.getAbsolutePath()).size());
+
+        parser = new LineParser();
+        result = parse(parser, next);
+
+        assertEquals("Wrong number of parsed files", 0, parser.getCalls());
+        assertEquals(WRONG_NUMBER, 4, result.getNumberOfAnnotations());
+    }
+
+    /**
+     * Verifies that no index is created if the incremental mode is not
+     * enabled.
+     *
+     * @throws Exception
+     *             if the reports could not be parsed
+     */
+    @Test
+    public void testIndexOnlyInIncrementalMode() throws Exception {
+        createReport("first.txt", "/A.java:1:HIGH");
+
+        ParserResult result = parse(new LineParser(), null);
+
+        assertEquals(WRONG_NUMBER, 1, result.getNumberOfAnnotations());
+        assertNull("Index created", result.getReportFiles());
+    }
+
+    private ParserResult parse(final LineParser parser, final ReportFileIndex previous)
+            throws IOException, InterruptedException {
+        FilesParser filesParser = new FilesParser("[TEST] ", PATTERN, parser, false, false, false);
+        filesParser.setPreviousReports(previous);
+
+        return filesParser.parse(new FilePath(folder));
+    }
+
+    private File createReport(final String name, final String... lines) throws IOException {
+        File report = new File(folder, name);
+        FileUtils.writeLines(report, UTF_8, Lists.newArrayList(lines));
+
+        return report;
+    }
+
+    /**
+     * Parses lines of the form <code>file:line:priority</code> and counts the
+     * parsed files.
+     */
+    private static class LineParser extends AbstractStreamingAnnotationParser {
+        private static final long serialVersionUID = 1L;
+
+        private int calls;
+
+        LineParser() {
+            super(UTF_8);
+        }
+
+        int getCalls() {
+            return calls;
+        }
+
+        @Override
+        public void parse(final InputStream file, final String moduleName, final AnnotationSink sink)
+                throws InvocationTargetException {
+            calls++;
+            try {
+                List<String> lines = IOUtils.readLines(file, UTF_8);
+                for (String line : lines) {
+                    String[] parts = StringUtils.split(line, ':');
+                    int lineNumber = Integer.parseInt(parts[1]);
+                    Warning warning = new Warning(Priority.fromString(parts[2]), "message", lineNumber, lineNumber,
+                            "category", "type");
+                    warning.setFileName(parts[0]);
+                    sink.add(warning);
+                }
+            }
+            catch (IOException exception) {
+                throw new InvocationTargetException(exception);
+            }
+        }
+    }
+
+    /**
+     * A concrete warning that will be parsed.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = -3852946127530962147L;
+
+        Warning(final Priority priority, final String message, final int start, final int end, final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import hudson.plugins.analysis.core.ResultLoadMetrics.LoadType;
+import hudson.plugins.analysis.core.ResultLoadMetrics.RetainedResult;
+
+/**
+ * Tests the class {@link ResultLoadMetrics}.
+ *
+ * @author Ulli Hafner
+ */
+public class ResultLoadMetricsTest {
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Resets the shared metrics.
+     */
+    @After
+    public void reset() {
+        ResultLoadMetrics.getInstance().reset();
+    }
+
+    /**
+     * Verifies that loads are counted and sorted into the histogram buckets.
+     */
+    @Test
+    public void testHistogram() {
+        ResultLoadMetrics metrics = ResultLoadMetrics.getInstance();
+        metrics.reset();
+
+        metrics.recordLoad(LoadType.RESULT, System.nanoTime());
+        metrics.recordLoad(LoadType.RESULT, System.nanoTime() - 20000 * NANOS_PER_MILLI);
+        metrics.recordDeserialization(System.nanoTime(), 1024);
+        metrics.recordLoad(LoadType.NEW_WARNINGS, System.nanoTime());
+        metrics.recordReferenceClear();
+
+        assertEquals("Wrong number of loads", 2, metrics.getResultLoadCount());
+        assertEquals("Wrong number of new warnings loads", 1, metrics.getNewWarningsLoadCount());
+        assertEquals("Wrong number of fixed warnings loads", 0, metrics.getFixedWarningsLoadCount());
+        assertEquals("Wrong number of clears", 1, metrics.getReferenceClearCount());
+        assertEquals("Wrong number of bytes", 1024, metrics.getBytesRead());
+        assertTrue("Wrong load time", metrics.getResultLoadMillis() >= 20000);
+
+        long[] histogram = metrics.getResultLoadHistogram();
+        assertEquals("Wrong number of buckets", metrics.getHistogramLimits().length + 1, histogram.length);
+        assertEquals("Wrong slowest bucket", 1, histogram[histogram.length - 1]);
+        assertEquals("Wrong number of deserializations", 1, sum(metrics.getDeserializationHistogram()));
+    }
+
+    private long sum(final long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Verifies that only the largest result of each job is kept.
+     */
+    @Test
+    public void testLargestResults() {
+        ResultLoadMetrics metrics = ResultLoadMetrics.getInstance();
+        metrics.reset();
+
+        metrics.recordRetained("small", 1, 10, 100);
+        metrics.recordRetained("large", 1, 500, 5000);
+        metrics.recordRetained("large", 2, 1000, 10000);
+        metrics.recordRetained("large", 3, 700, 7000);
+
+        List<RetainedResult> results = metrics.getLargestRetainedResults();
+        assertEquals("Wrong number of results", 2, results.size());
+        assertEquals("Wrong job", "large", results.get(0).getJob());
+        assertEquals("Wrong build", 2, results.get(0).getBuild());
+        assertEquals("Wrong annotations", 1000, results.get(0).getAnnotations());
+        assertEquals("Wrong job", "small", results.get(1).getJob());
+        assertEquals("Wrong string", "small #1: 10 annotations, 100 bytes", metrics.getLargestResults()[1]);
+    }
+}
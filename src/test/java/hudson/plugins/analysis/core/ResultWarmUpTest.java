@@ -0,0 +1,116 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the class {@link ResultWarmUp}.
+ *
+ * @author Ulli Hafner
+ */
+public class ResultWarmUpTest {
+    private static final String NOT_FINISHED = "Warm-up not finished";
+    private static final int TIMEOUT = 10;
+
+    /**
+     * Verifies that the latest result and the results of the trend are
+     * loaded.
+     *
+     * @throws Exception
+     *             if the test is interrupted
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWarmUp() throws Exception {
+        BuildResult previous = mock(BuildResult.class);
+        BuildResult result = mock(BuildResult.class);
+        when(result.hasPreviousResult()).thenReturn(true);
+        when(result.getPreviousResult()).thenReturn(previous);
+
+        ResultAction<BuildResult> resultAction = mock(ResultAction.class);
+        when(resultAction.getResult()).thenReturn(result);
+        AbstractProjectAction<?> withResult = mock(AbstractProjectAction.class);
+        when(withResult.getLastAction()).thenReturn(resultAction);
+        AbstractProjectAction<?> withoutResult = mock(AbstractProjectAction.class);
+
+        ResultWarmUp warmUp = new ResultWarmUp();
+        List<AbstractProjectAction<?>> actions = Lists.newArrayList();
+        actions.add(withResult);
+        actions.add(withoutResult);
+        warmUp.start(actions, 2);
+
+        assertTrue(NOT_FINISHED, warmUp.awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse("Still running", warmUp.isRunning());
+        assertEquals("Wrong total", 2, warmUp.getTotal());
+        assertEquals("Wrong number of finished actions", 2, warmUp.getFinished());
+        assertEquals("Wrong number of failures", 0, warmUp.getFailed());
+
+        verify(result).getContainer();
+        verify(result).getNewWarnings();
+        verify(result).getFixedWarnings();
+        verify(previous).hasPreviousResult();
+        verify(withoutResult).getLastAction();
+    }
+
+    /**
+     * Verifies that the remaining actions are skipped after the warm-up has
+     * been cancelled.
+     *
+     * @throws Exception
+     *             if the test is interrupted
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        AbstractProjectAction<?> blocking = mock(AbstractProjectAction.class);
+        when(blocking.getLastAction()).thenAnswer(new Answer<ResultAction<?>>() {
+            public ResultAction<?> answer(final InvocationOnMock invocation) {
+                started.countDown();
+                awaitUninterruptibly(release);
+
+                return null;
+            }
+        });
+        AbstractProjectAction<?> skipped = mock(AbstractProjectAction.class);
+
+        ResultWarmUp warmUp = new ResultWarmUp();
+        List<AbstractProjectAction<?>> actions = Lists.newArrayList();
+        actions.add(blocking);
+        actions.add(skipped);
+        warmUp.start(actions, 1);
+
+        started.await();
+        warmUp.cancel();
+        release.countDown();
+
+        assertTrue(NOT_FINISHED, warmUp.awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue("Not cancelled", warmUp.isCancelled());
+        assertEquals("Wrong number of finished actions", 1, warmUp.getFinished());
+        verify(skipped, never()).getLastAction();
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+
+                return;
+            }
+            catch (InterruptedException exception) {
+                // cancelling interrupts the running warm-up
+            }
+        }
+    }
+}
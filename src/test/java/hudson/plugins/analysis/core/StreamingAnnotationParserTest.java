@@ -0,0 +1,180 @@
+package hudson.plugins.analysis.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.Util;
+
+import hudson.plugins.analysis.util.model.AbstractAnnotation;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.analysis.util.model.Priority;
+
+/**
+ * Tests the classes {@link AbstractStreamingAnnotationParser} and
+ * {@link StreamingParserAdapter} together with {@link FilesParser}.
+ *
+ * @author Ulli Hafner
+ */
+public class StreamingAnnotationParserTest {
+    private static final String REPORT = "report.txt";
+    private static final String UTF_8 = "UTF-8";
+    private static final String WRONG_NUMBER = "Wrong number of annotations";
+
+    /** The workspace with the report. */
+    private File folder;
+
+    /**
+     * Creates the folder of the report.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the report.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that the annotations pushed by a streaming parser are added to
+     * the result and that duplicates are skipped.
+     *
+     * @throws IOException
+     *             if the report could not be written
+     */
+    @Test
+    public void testStreamingParser() throws IOException {
+        createReport();
+
+        ParserResult result = parse(new LineParser());
+
+        verifyResult(result);
+    }
+
+    /**
+     * Verifies that a parser that returns a collection is adapted.
+     *
+     * @throws IOException
+     *             if the report could not be written
+     */
+    @Test
+    public void testAdaptedParser() throws IOException {
+        createReport();
+
+        final LineParser streamingParser = new LineParser();
+        AnnotationParser collectionParser = new AnnotationParser() {
+            private static final long serialVersionUID = 1L;
+
+            public Collection<FileAnnotation> parse(final File file, final String moduleName)
+                    throws InvocationTargetException {
+                return streamingParser.parse(file, moduleName);
+            }
+        };
+        assertSame("Streaming parser adapted", streamingParser, StreamingParserAdapter.adapt(streamingParser));
+        assertTrue("Parser not adapted", StreamingParserAdapter.adapt(collectionParser) instanceof StreamingParserAdapter);
+
+        verifyResult(parse(collectionParser));
+    }
+
+    /**
+     * Verifies that a streaming parser still returns all annotations as a
+     * collection.
+     *
+     * @throws IOException
+     *             if the report could not be written
+     * @throws InvocationTargetException
+     *             if the report could not be parsed
+     */
+    @Test
+    public void testCollectionContract() throws IOException, InvocationTargetException {
+        File report = createReport();
+
+        assertEquals(WRONG_NUMBER, 4, new LineParser().parse(report, "module").size());
+    }
+
+    private ParserResult parse(final AnnotationParser parser) throws IOException {
+        return new FilesParser("[TEST] ", REPORT, parser, false, false).invoke(folder, null);
+    }
+
+    private void verifyResult(final ParserResult result) {
+        assertEquals(WRONG_NUMBER, 3, result.getNumberOfAnnotations());
+        assertEquals(WRONG_NUMBER, 2, result.getNumberOfAnnotations(Priority.HIGH));
+        assertEquals(WRONG_NUMBER, 1, result.getNumberOfAnnotations(Priority.LOW));
+    }
+
+    private File createReport() throws IOException {
+        File report = new File(folder, REPORT);
+        FileUtils.writeLines(report, UTF_8, Lists.newArrayList("/A.java:1:HIGH", "/A.java:2:HIGH",
+                "/B.java:1:LOW", "/A.java:1:HIGH"));
+
+        return report;
+    }
+
+    /**
+     * Parses lines of the form <code>file:line:priority</code>.
+     */
+    private static class LineParser extends AbstractStreamingAnnotationParser {
+        private static final long serialVersionUID = 1L;
+
+        LineParser() {
+            super(UTF_8);
+        }
+
+        @Override
+        public void parse(final InputStream file, final String moduleName, final AnnotationSink sink)
+                throws InvocationTargetException {
+            try {
+                List<String> lines = IOUtils.readLines(file, UTF_8);
+                for (String line : lines) {
+                    String[] parts = StringUtils.split(line, ':');
+                    int lineNumber = Integer.parseInt(parts[1]);
+                    Warning warning = new Warning(Priority.fromString(parts[2]), "message", lineNumber, lineNumber,
+                            "category", "type");
+                    warning.setFileName(parts[0]);
+                    sink.add(warning);
+                }
+            }
+            catch (IOException exception) {
+                throw new InvocationTargetException(exception);
+            }
+        }
+    }
+
+    /**
+     * A concrete warning that will be parsed.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = 6723512394761287431L;
+
+        Warning(final Priority priority, final String message, final int start, final int end, final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
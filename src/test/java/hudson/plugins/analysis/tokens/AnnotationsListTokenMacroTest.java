@@ -0,0 +1,143 @@
+package hudson.plugins.analysis.tokens;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import hudson.model.TaskListener;
+import hudson.model.AbstractBuild;
+
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ResultAction;
+import hudson.plugins.analysis.util.model.AnnotationsFile;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+
+/**
+ * Tests the classes {@link AbstractNewAnnotationsListTokenMacro} and
+ * {@link AbstractFixedAnnotationsListTokenMacro}.
+ *
+ * @author Ulli Hafner
+ */
+public class AnnotationsListTokenMacroTest {
+    private static final String NEW_TOKEN = "ANALYSIS_NEW_LIST";
+    private static final String FIXED_TOKEN = "ANALYSIS_FIXED_LIST";
+    private static final String WRONG_VALUE = "Wrong value of token";
+
+    /**
+     * Verifies that the new warnings are streamed from the result and that
+     * neither the new nor the fixed warnings are loaded.
+     */
+    @Test
+    public void testNewWarnings() {
+        BuildResult result = mock(BuildResult.class);
+        doAnswer(visit(createAnnotation("A.java", 1, "First"), createAnnotation("B.java", 20, "Second")))
+                .when(result).visitNewWarnings(any(AnnotationsFile.Visitor.class));
+
+        assertEquals(WRONG_VALUE, "A.java:1: First\nB.java:20: Second\n", createNewMacro().evaluate(result));
+
+        verify(result, never()).getNewWarnings();
+        verify(result, never()).getFixedWarnings();
+        verify(result, never()).visitFixedWarnings(any(AnnotationsFile.Visitor.class));
+    }
+
+    /**
+     * Verifies that the fixed warnings are streamed from the result and that
+     * neither the new nor the fixed warnings are loaded.
+     */
+    @Test
+    public void testFixedWarnings() {
+        BuildResult result = mock(BuildResult.class);
+        doAnswer(visit(createAnnotation("C.java", 3, "Fixed")))
+                .when(result).visitFixedWarnings(any(AnnotationsFile.Visitor.class));
+
+        assertEquals(WRONG_VALUE, "C.java:3: Fixed\n", createFixedMacro().evaluate(result));
+
+        verify(result, never()).getNewWarnings();
+        verify(result, never()).getFixedWarnings();
+        verify(result, never()).visitNewWarnings(any(AnnotationsFile.Visitor.class));
+    }
+
+    /**
+     * Verifies that a result without warnings evaluates to an empty string.
+     */
+    @Test
+    public void testNoWarnings() {
+        BuildResult result = mock(BuildResult.class);
+        doAnswer(visit()).when(result).visitNewWarnings(any(AnnotationsFile.Visitor.class));
+
+        assertEquals(WRONG_VALUE, "", createNewMacro().evaluate(result));
+    }
+
+    /**
+     * Verifies that the token is evaluated with the result of the build action
+     * and that a build without action evaluates to an empty string.
+     *
+     * @throws Exception
+     *             if the token could not be evaluated
+     */
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testEvaluateBuild() throws Exception {
+        BuildResult result = mock(BuildResult.class);
+        doAnswer(visit(createAnnotation("A.java", 1, "New")))
+                .when(result).visitNewWarnings(any(AnnotationsFile.Visitor.class));
+        TestResultAction action = mock(TestResultAction.class);
+        when(action.getResult()).thenReturn(result);
+
+        AbstractBuild build = mock(AbstractBuild.class);
+        when(build.getAction(TestResultAction.class)).thenReturn(action);
+        AbstractNewAnnotationsListTokenMacro macro = createNewMacro();
+
+        assertTrue("Token not accepted", macro.acceptsMacroName(NEW_TOKEN));
+        assertFalse("Wrong token accepted", macro.acceptsMacroName(FIXED_TOKEN));
+        assertEquals(WRONG_VALUE, "A.java:1: New\n", macro.evaluate(build, mock(TaskListener.class), NEW_TOKEN));
+        assertEquals(WRONG_VALUE, "", macro.evaluate(mock(AbstractBuild.class), mock(TaskListener.class), NEW_TOKEN));
+    }
+
+    @SuppressWarnings("unchecked")
+    private AbstractNewAnnotationsListTokenMacro createNewMacro() {
+        return new AbstractNewAnnotationsListTokenMacro(NEW_TOKEN, TestResultAction.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AbstractFixedAnnotationsListTokenMacro createFixedMacro() {
+        return new AbstractFixedAnnotationsListTokenMacro(FIXED_TOKEN, TestResultAction.class);
+    }
+
+    private FileAnnotation createAnnotation(final String fileName, final int line, final String message) {
+        FileAnnotation annotation = mock(FileAnnotation.class);
+        when(annotation.getShortFileName()).thenReturn(fileName);
+        when(annotation.getPrimaryLineNumber()).thenReturn(line);
+        when(annotation.getMessage()).thenReturn(message);
+        return annotation;
+    }
+
+    private Answer<Void> visit(final FileAnnotation... annotations) {
+        final List<FileAnnotation> visited = Arrays.asList(annotations);
+        return new Answer<Void>() {
+            public Void answer(final InvocationOnMock invocation) {
+                AnnotationsFile.Visitor visitor = (AnnotationsFile.Visitor)invocation.getArguments()[0];
+                for (FileAnnotation annotation : visited) {
+                    if (!visitor.visit(annotation)) {
+                        break;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Action used in tests.
+     */
+    abstract static class TestResultAction implements ResultAction<BuildResult> {
+        // empty
+    }
+}
@@ -0,0 +1,140 @@
+package hudson.plugins.analysis.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.Util;
+
+/**
+ * Tests the class {@link ContextHashCode}. The hash codes are stored with the
+ * warnings of each build and are compared with the hash codes of the
+ * reference build, so they must not change between releases.
+ *
+ * @author Ulli Hafner
+ */
+public class ContextHashCodeTest {
+    private static final String WRONG_HASH_CODE = "Wrong hash code";
+    private static final String SOURCE = "public class A {\n    int a;\r\n    int b;\r    int c;\n\n    void f() {\n"
+            + "        a = b + c;\n    }\n\n    // end\n}\n";
+    /** Number of lines before and after current line of the previous implementation. */
+    private static final int LINES_LOOK_AHEAD = 3;
+
+    /** The folder with the source files. */
+    private File folder;
+
+    /**
+     * Creates the folder of the source files.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the source files.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that the hash codes are the same as the hash codes of the
+     * previous releases.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testHashCodesOfPreviousReleases() throws IOException {
+        String fileName = createFile(SOURCE, "UTF-8");
+        ContextHashCode hashCode = new ContextHashCode();
+
+        assertEquals(WRONG_HASH_CODE, 471226557, hashCode.create(fileName, -10, "UTF-8"));
+        assertEquals(WRONG_HASH_CODE, 1906322875, hashCode.create(fileName, 0, "UTF-8"));
+        assertEquals(WRONG_HASH_CODE, 1385505649, hashCode.create(fileName, 1, "UTF-8"));
+        assertEquals(WRONG_HASH_CODE, -1854353761, hashCode.create(fileName, 3, "UTF-8"));
+        assertEquals(WRONG_HASH_CODE, 899521928, hashCode.create(fileName, 7, "UTF-8"));
+        assertEquals(WRONG_HASH_CODE, -1293737662, hashCode.create(fileName, 11, "UTF-8"));
+        assertEquals(WRONG_HASH_CODE, 0, hashCode.create(fileName, 20, "UTF-8"));
+    }
+
+    /**
+     * Verifies that the hash codes of all lines are the same as the hash codes
+     * of the previous implementation that read the file line by line.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testSameHashCodesAsLineIterator() throws IOException {
+        for (String encoding : new String[] {"UTF-8", "UTF-16", "ISO-8859-1"}) {
+            String fileName = createFile(SOURCE + "\u00e4\u00f6\u00fc\n", encoding);
+            ContextHashCode hashCode = new ContextHashCode();
+            for (int line = -5; line < 20; line++) {
+                assertEquals("Wrong hash code of line " + line + " in " + encoding,
+                        createWithLineIterator(fileName, line, encoding), hashCode.create(fileName, line, encoding));
+            }
+        }
+    }
+
+    /**
+     * Verifies that a changed file is read again.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testChangedFile() throws IOException {
+        String fileName = createFile(SOURCE, "UTF-8");
+        ContextHashCode hashCode = new ContextHashCode();
+        int before = hashCode.create(fileName, 1, "UTF-8");
+
+        File file = new File(fileName);
+        FileUtils.writeStringToFile(file, "changed\n" + SOURCE, "UTF-8");
+        assertTrue("Can't change time stamp", file.setLastModified(file.lastModified() + 10000));
+
+        assertFalse("Hash code not changed", before == hashCode.create(fileName, 1, "UTF-8"));
+    }
+
+    /**
+     * Creates the hash code in the same way as the implementation of the
+     * previous releases did.
+     */
+    private int createWithLineIterator(final String fileName, final int line, final String encoding)
+            throws IOException {
+        LineIterator lineIterator = EncodingValidator.readFile(fileName, encoding);
+
+        StringBuilder context = new StringBuilder();
+        for (int i = 0; lineIterator.hasNext(); i++) {
+            String currentLine = lineIterator.nextLine();
+            if (i >= line - LINES_LOOK_AHEAD) {
+                context.append(currentLine);
+            }
+            if (i > line + LINES_LOOK_AHEAD) {
+                break;
+            }
+        }
+        lineIterator.close();
+
+        return context.toString().hashCode();
+    }
+
+    private String createFile(final String content, final String encoding) throws IOException {
+        File file = File.createTempFile("source", ".java", folder);
+        FileUtils.writeStringToFile(file, content, encoding);
+
+        return file.getAbsolutePath();
+    }
+}
@@ -0,0 +1,130 @@
+package hudson.plugins.analysis.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.Util;
+
+/**
+ * Tests the class {@link FileFinder}. Verifies that the {@link WorkspaceScanner}
+ * finds the same files as the Ant directory scanner and as a {@link
+ * WorkspaceSnapshot}.
+ *
+ * @author Ulli Hafner
+ */
+public class FileFinderTest {
+    /** The workspace to scan. */
+    private File workspace;
+
+    /**
+     * Creates the files of the workspace.
+     *
+     * @throws IOException
+     *             if the files could not be created
+     */
+    @Before
+    public void createWorkspace() throws IOException {
+        workspace = Util.createTempDir();
+        String[] files = {"build.xml", "pom.xml", "README",
+                "a/pom.xml", "a/b/c.xml", "a/b/d/e.xml", "a/b/d/e.txt",
+                "x/Foo.java", "x/Foo.java~", "x/y/z/Bar.java", "x/y/z/#Bar.java#",
+                "target/findbugs.xml", "module/target/checkstyle-result.xml",
+                "bundle/META-INF/MANIFEST.MF",
+                ".git/config", ".svn/entries", "CVS/Root", "nested/CVS/Entries", "nested/.DS_Store"};
+        for (String file : files) {
+            FileUtils.writeStringToFile(new File(workspace, file), file);
+        }
+    }
+
+    /**
+     * Deletes the workspace.
+     */
+    @After
+    public void deleteWorkspace() {
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    /**
+     * Verifies that both scanners find the same files for a set of typical
+     * patterns.
+     */
+    @Test
+    public void testSameResultsAsAnt() {
+        String[] patterns = {"**/*.xml", "**/pom.xml, **/build.xml, **/META-INF/MANIFEST.MF", "**/*", "x/",
+                "a/**/*.xml", "*.xml", "**/target/*.xml", "**/target/**", "nonexistent/**", "a/b/*.xml",
+                "**/*.java **/*.txt", "a\\b\\**\\*.xml", "**/e.*", "?.xml", "**/.git/**", "a/b/d"};
+
+        for (String pattern : patterns) {
+            verifySameResults(pattern);
+        }
+    }
+
+    /**
+     * Verifies that a snapshot of the workspace finds the same files as a
+     * scan of the file system.
+     *
+     * @throws IOException
+     *             if the workspace could not be scanned
+     */
+    @Test
+    public void testSnapshot() throws IOException {
+        WorkspaceSnapshot snapshot = WorkspaceSnapshot.get("job#1", workspace);
+
+        assertSame("Snapshot not shared", snapshot, WorkspaceSnapshot.get("job#1", workspace));
+        assertTrue("File not found", snapshot.contains("a/b/d/e.xml"));
+        assertFalse("Default exclude found", snapshot.contains(".git/config"));
+
+        String[] patterns = {"**/*.xml", "**/pom.xml, **/build.xml, **/META-INF/MANIFEST.MF", "x/", "*.xml", "**/e.*"};
+        for (String pattern : patterns) {
+            assertEquals("Wrong files for pattern " + pattern,
+                    Arrays.asList(new FileFinder(pattern).find(workspace)),
+                    Arrays.asList(snapshot.find(pattern)));
+        }
+    }
+
+    /**
+     * Verifies that the snapshots of a released scope are removed, while the
+     * snapshots of other scopes are kept.
+     *
+     * @throws IOException
+     *             if the workspace could not be scanned
+     */
+    @Test
+    public void testReleaseSnapshot() throws IOException {
+        WorkspaceSnapshot first = WorkspaceSnapshot.get("job#2", workspace);
+        WorkspaceSnapshot other = WorkspaceSnapshot.get("job#20", workspace);
+
+        WorkspaceSnapshot.release("job#2");
+
+        assertNotSame("Snapshot not released", first, WorkspaceSnapshot.get("job#2", workspace));
+        assertSame("Snapshot of other scope released", other, WorkspaceSnapshot.get("job#20", workspace));
+    }
+
+    /**
+     * Verifies that a workspace that does not exist has no matching files.
+     */
+    @Test
+    public void testNonExistingWorkspace() {
+        FileFinder finder = new FileFinder("**/*");
+
+        assertEquals("Wrong number of files", 0, finder.find(new File(workspace, "missing")).length);
+    }
+
+    private void verifySameResults(final String pattern) {
+        FileFinder finder = new FileFinder(pattern);
+
+        String[] expected = finder.findWithAnt(workspace);
+        Arrays.sort(expected);
+        String[] actual = finder.find(workspace);
+
+        assertEquals("Wrong files for pattern " + pattern, Arrays.asList(expected), Arrays.asList(actual));
+    }
+}
@@ -0,0 +1,142 @@
+package hudson.plugins.analysis.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.Util;
+
+/**
+ * Tests the class {@link IndexedSourceFile}.
+ *
+ * @author Ulli Hafner
+ */
+public class IndexedSourceFileTest {
+    private static final String UTF_8 = "UTF-8";
+    private static final int LARGE_FILE_SIZE = 1024 * 1024;
+
+    /** The folder with the source files. */
+    private File folder;
+
+    /**
+     * Creates the folder of the source files.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the source files.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that all kinds of line terminators are detected.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testLineTerminators() throws IOException {
+        IndexedSourceFile file = open("first\nsecond\r\nthird\rfourth\n\nsixth", UTF_8);
+
+        assertEquals("Wrong number of lines", 6, file.getNumberOfLines());
+        assertEquals("Wrong line", "first", file.getLine(1));
+        assertEquals("Wrong line", "second", file.getLine(2));
+        assertEquals("Wrong line", "third", file.getLine(3));
+        assertEquals("Wrong line", "fourth", file.getLine(4));
+        assertEquals("Wrong line", "", file.getLine(5));
+        assertEquals("Wrong line", "sixth", file.getLine(6));
+        assertNull("Line found", file.getLine(7));
+        assertNull("Line found", file.getLine(0));
+    }
+
+    /**
+     * Verifies that a trailing line terminator does not start a new line.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testTrailingTerminator() throws IOException {
+        assertEquals("Wrong number of lines", 2, open("first\nsecond\n", UTF_8).getNumberOfLines());
+        assertEquals("Wrong number of lines", 0, open("", UTF_8).getNumberOfLines());
+    }
+
+    /**
+     * Verifies that a range of lines is appended without terminators.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testAppendLines() throws IOException {
+        IndexedSourceFile file = open("1\n2\n3\n4\n", UTF_8);
+
+        StringBuilder output = new StringBuilder();
+        file.appendLines(output, -1, 2);
+        file.appendLines(output, 3, 10);
+
+        assertEquals("Wrong lines", "1234", output.toString());
+    }
+
+    /**
+     * Verifies that files with multi byte line terminators are decoded.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testUtf16() throws IOException {
+        IndexedSourceFile file = open("f\u00fcr\n\u20ac\n", "UTF-16");
+
+        assertEquals("Wrong number of lines", 2, file.getNumberOfLines());
+        assertEquals("Wrong line", "f\u00fcr", file.getLine(1));
+        assertEquals("Wrong line", "\u20ac", file.getLine(2));
+    }
+
+    /**
+     * Verifies that large files are indexed up to the requested line only and
+     * that the file could be deleted while it is open.
+     *
+     * @throws IOException
+     *             if the file could not be read
+     */
+    @Test
+    public void testLargeFile() throws IOException {
+        String line = StringUtils.repeat("x", 99) + "\n";
+        int lines = LARGE_FILE_SIZE / line.length() + 1;
+        File source = createFile(StringUtils.repeat(line, lines) + "last", UTF_8);
+        IndexedSourceFile file = IndexedSourceFile.open(source.getAbsolutePath(), UTF_8);
+
+        assertTrue("File is locked", source.delete());
+        assertEquals("Wrong line", StringUtils.chomp(line), file.getLine(1));
+        assertEquals("Wrong line", "last", file.getLine(lines + 1));
+        assertEquals("Wrong number of lines", lines + 1, file.getNumberOfLines());
+    }
+
+    private IndexedSourceFile open(final String content, final String encoding) throws IOException {
+        return IndexedSourceFile.open(createFile(content, encoding).getAbsolutePath(), encoding);
+    }
+
+    private File createFile(final String content, final String encoding) throws IOException {
+        File file = File.createTempFile("source", ".txt", folder);
+        FileUtils.writeStringToFile(file, content, encoding);
+
+        return file;
+    }
+}
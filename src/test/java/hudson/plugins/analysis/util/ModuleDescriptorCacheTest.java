@@ -0,0 +1,148 @@
+package hudson.plugins.analysis.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.Util;
+
+/**
+ * Tests the class {@link ModuleDescriptorCache}.
+ *
+ * @author Ulli Hafner
+ */
+public class ModuleDescriptorCacheTest {
+    private static final String UTF_8 = "UTF-8";
+    private static final String MODULE = "Module\twith \"special\" characters \u00e4\u00f6\u00fc";
+    private static final String WRONG_MODULE = "Wrong module name";
+
+    private File workspace;
+    private String pom;
+
+    /**
+     * Creates a workspace with a descriptor.
+     *
+     * @throws IOException
+     *             if the workspace could not be created
+     */
+    @Before
+    public void createWorkspace() throws IOException {
+        ModuleDescriptorCache.clear();
+
+        workspace = Util.createTempDir();
+        File file = new File(workspace, "pom.xml");
+        FileUtils.copyURLToFile(ModuleDescriptorCacheTest.class.getResource("pom.xml"), file);
+        pom = file.getAbsolutePath();
+    }
+
+    /**
+     * Deletes the workspace and the stored cache.
+     */
+    @After
+    public void deleteWorkspace() {
+        FileUtils.deleteQuietly(ModuleDescriptorCache.getStorage(workspace).getParentFile());
+        FileUtils.deleteQuietly(workspace);
+    }
+
+    /**
+     * Verifies that the module names are stored as plain text in the
+     * temporary folder of the workspace and are restored after a restart.
+     *
+     * @throws IOException
+     *             if the storage could not be read
+     */
+    @Test
+    public void testPersistence() throws IOException {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.forWorkspace(workspace);
+        assertNull(WRONG_MODULE, cache.get(pom));
+        cache.put(pom, MODULE);
+        assertEquals(WRONG_MODULE, MODULE, cache.get(pom));
+        cache.update(Collections.singleton(pom));
+
+        File storage = new File(new File(workspace.getParentFile(), workspace.getName() + "@tmp"),
+                ModuleDescriptorCache.FILE_NAME);
+        assertEquals("Wrong storage", storage, ModuleDescriptorCache.getStorage(workspace));
+        assertTrue("Storage not written", storage.exists());
+        assertTrue("Not a text file", FileUtils.readFileToString(storage, UTF_8).contains(pom));
+
+        ModuleDescriptorCache.clear();
+        assertEquals(WRONG_MODULE, MODULE, ModuleDescriptorCache.forWorkspace(workspace).get(pom));
+    }
+
+    /**
+     * Verifies that changed and deleted descriptors are not reused.
+     *
+     * @throws IOException
+     *             if the descriptor could not be changed
+     */
+    @Test
+    public void testChangedDescriptor() throws IOException {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.forWorkspace(workspace);
+        cache.put(pom, MODULE);
+
+        FileUtils.writeStringToFile(new File(pom), "<project><name>changed</name></project>", UTF_8);
+        assertNull(WRONG_MODULE, cache.get(pom));
+
+        cache.put(pom, MODULE);
+        cache.update(Collections.<String>emptyList());
+        assertNull(WRONG_MODULE, cache.get(pom));
+    }
+
+    /**
+     * Verifies that a descriptor is parsed again if its size and its
+     * modification time changed, even if a hash of both values would not
+     * have changed.
+     *
+     * @throws IOException
+     *             if the descriptor could not be changed
+     */
+    @Test
+    public void testChangedSizeAndModificationTime() throws IOException {
+        ModuleDescriptorCache cache = ModuleDescriptorCache.forWorkspace(workspace);
+        cache.put(pom, MODULE);
+
+        File file = new File(pom);
+        long lastModified = file.lastModified();
+        String content = FileUtils.readFileToString(file, UTF_8);
+        FileUtils.writeStringToFile(file, content + StringUtils.repeat(" ", 31000), UTF_8);
+        assertTrue("Can't change time stamp", file.setLastModified(lastModified - 1000));
+
+        assertNull(WRONG_MODULE, cache.get(pom));
+    }
+
+    /**
+     * Verifies that a corrupt storage is ignored.
+     *
+     * @throws IOException
+     *             if the storage could not be written
+     */
+    @Test
+    public void testCorruptStorage() throws IOException {
+        File storage = ModuleDescriptorCache.getStorage(workspace);
+        FileUtils.writeLines(storage, UTF_8, Arrays.asList("# analysis-core module descriptors 2", "garbage"));
+
+        assertNull(WRONG_MODULE, ModuleDescriptorCache.forWorkspace(workspace).get(pom));
+    }
+
+    /**
+     * Verifies that the least recently used workspace is removed from memory.
+     */
+    @Test
+    public void testBoundedNumberOfWorkspaces() {
+        ModuleDescriptorCache first = ModuleDescriptorCache.forWorkspace(workspace);
+        for (int i = 0; i < ModuleDescriptorCache.MAX_WORKSPACES; i++) {
+            ModuleDescriptorCache.forWorkspace(new File(workspace, "other" + i));
+        }
+
+        assertNotSame("Workspace not removed", first, ModuleDescriptorCache.forWorkspace(workspace));
+    }
+}
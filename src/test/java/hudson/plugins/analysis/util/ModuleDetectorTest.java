@@ -187,6 +187,33 @@ public class ModuleDetectorTest {
         verifyModuleName(detector, EXPECTED_MAVEN_MODULE, PATH_PREFIX_MAVEN + "/something.txt");
     }
 
+    /**
+     * Checks whether the module of the longest matching prefix is used for
+     * nested modules, independent of the order of the lookups.
+     *
+     * @throws FileNotFoundException
+     *             should never happen
+     */
+    @Test
+    public void testNestedModules() throws FileNotFoundException {
+        String ant = "nested/" + ModuleDetector.ANT_PROJECT;
+        String maven = "nested/inner/" + ModuleDetector.MAVEN_POM;
+
+        FileInputStreamFactory factory = mock(FileInputStreamFactory.class);
+        when(factory.create(PREFIX + ant)).thenReturn(read(ModuleDetector.ANT_PROJECT));
+        when(factory.create(PREFIX + maven)).thenReturn(read(ModuleDetector.MAVEN_POM));
+
+        when(factory.find((File)anyObject(), anyString())).thenReturn(new String[] {maven, ant});
+        ModuleDetector detector = createDetectorUnderTest(factory);
+
+        verifyModuleName(detector, EXPECTED_MAVEN_MODULE, "nested/inner/deep/something.txt");
+        verifyModuleName(detector, EXPECTED_ANT_MODULE, "nested/something.txt");
+        verifyModuleName(detector, EXPECTED_ANT_MODULE, "nested/innerfile.txt");
+        verifyModuleName(detector, EXPECTED_MAVEN_MODULE, "nested/inner/something.txt");
+        verifyModuleName(detector, EXPECTED_MAVEN_MODULE, "nested/inner/deep/other.txt");
+        verifyModuleName(detector, StringUtils.EMPTY, "other/something.txt");
+    }
+
     /**
      * Checks whether maven has precedence over ant.
      *
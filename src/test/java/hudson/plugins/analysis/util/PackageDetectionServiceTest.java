@@ -0,0 +1,111 @@
+package hudson.plugins.analysis.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hudson.Util;
+
+/**
+ * Tests the class {@link PackageDetectionService}.
+ *
+ * @author Ulli Hafner
+ */
+public class PackageDetectionServiceTest {
+    /** The folder with the source files. */
+    private File folder;
+
+    /**
+     * Creates the folder of the source files.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the source files.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that package names are read only once for each file.
+     *
+     * @throws IOException
+     *             if the files could not be created
+     */
+    @Test
+    public void testCache() throws IOException {
+        File file = createFile("Foo.java", "package hudson.plugins.analysis;\n\npublic class Foo {}\n");
+
+        PackageDetectionService service = new PackageDetectionService();
+        assertEquals("Wrong package name", "hudson.plugins.analysis", service.detectPackageName(file.getPath()));
+
+        FileUtils.writeStringToFile(file, "package other;\n");
+        assertEquals("Package name not cached", "hudson.plugins.analysis", service.detectPackageName(file.getPath()));
+
+        service.clear();
+        assertEquals("Cache not cleared", "other", service.detectPackageName(file.getPath()));
+    }
+
+    /**
+     * Verifies that a batch of files is resolved.
+     *
+     * @throws IOException
+     *             if the files could not be created
+     * @throws InterruptedException
+     *             if the detection has been canceled
+     */
+    @Test
+    public void testBatch() throws IOException, InterruptedException {
+        String java = createFile("Foo.java", "package a.b;\n").getPath();
+        String csharp = createFile("Foo.cs", "using System;\nnamespace A.B {\n}\n").getPath();
+        String text = createFile("Foo.txt", "package a.b;\n").getPath();
+        String missing = new File(folder, "Missing.java").getPath();
+
+        Map<String, String> packages = new PackageDetectionService().detectPackageNames(
+                Arrays.asList(java, csharp, text, missing, java));
+
+        assertEquals("Wrong number of files", 4, packages.size());
+        assertEquals("Wrong package name", "a.b", packages.get(java));
+        assertEquals("Wrong namespace", "A.B", packages.get(csharp));
+        assertEquals("Wrong package name", PackageDetectors.UNDEFINED_PACKAGE, packages.get(text));
+        assertEquals("Wrong package name", PackageDetectors.UNDEFINED_PACKAGE, packages.get(missing));
+    }
+
+    /**
+     * Verifies that only the head of a file is scanned.
+     *
+     * @throws IOException
+     *             if the files could not be created
+     */
+    @Test
+    public void testHeadOnly() throws IOException {
+        String header = StringUtils.repeat("// comment\n", PackageDetectionService.HEAD_SIZE / 10);
+        File file = createFile("Foo.java", header + "package a.b;\n");
+
+        assertEquals("Package name outside of head found", PackageDetectors.UNDEFINED_PACKAGE,
+                new PackageDetectionService().detectPackageName(file.getPath()));
+    }
+
+    private File createFile(final String fileName, final String content) throws IOException {
+        File file = new File(folder, fileName);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+}
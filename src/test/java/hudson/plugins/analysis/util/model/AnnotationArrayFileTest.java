@@ -0,0 +1,138 @@
+package hudson.plugins.analysis.util.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.XmlFile;
+
+/**
+ * Tests the class {@link AnnotationArrayFile}.
+ *
+ * @author Ulli Hafner
+ */
+public class AnnotationArrayFileTest {
+    private static final String WRONG_ANNOTATIONS = "Wrong annotations";
+
+    private File file;
+
+    /**
+     * Creates the data file.
+     *
+     * @throws IOException
+     *             if the file could not be created
+     */
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("annotations", ".xml");
+    }
+
+    /**
+     * Deletes the data file.
+     */
+    @After
+    public void deleteFile() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    /**
+     * Verifies that the annotations before the specified position are skipped.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testReadFromPosition() throws IOException {
+        FileAnnotation[] annotations = {createWarning("A.java", 1), createWarning("B.java", 2),
+                createWarning("C.java", 3), createWarning("D.java", 4)};
+        new XmlFile(new AnnotationStream(), file).write(annotations);
+
+        AnnotationArrayFile arrayFile = new AnnotationArrayFile(new AnnotationStream(), file);
+        assertEquals(WRONG_ANNOTATIONS, Lists.newArrayList(annotations), read(arrayFile, 0));
+        assertEquals(WRONG_ANNOTATIONS, Lists.newArrayList(annotations[2], annotations[3]), read(arrayFile, 2));
+        assertTrue("Annotations after the end", read(arrayFile, 4).isEmpty());
+    }
+
+    /**
+     * Verifies that annotations that share the same file names are read from
+     * any position. XStream writes the shared objects as references to the
+     * first annotation that uses them.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testReadSharedFileNamesFromPosition() throws IOException {
+        List<FileAnnotation> annotations = Lists.<FileAnnotation>newArrayList(createWarning("A.java", 1),
+                createWarning("A.java", 2), createWarning("B.java", 3), createWarning("A.java", 4));
+        AbstractAnnotation.intern(annotations);
+        new XmlFile(new AnnotationStream(), file).write(annotations.toArray(new FileAnnotation[annotations.size()]));
+        assertTrue("No references written", FileUtils.readFileToString(file, "UTF-8").contains("reference="));
+
+        AnnotationArrayFile arrayFile = new AnnotationArrayFile(new AnnotationStream(), file);
+        for (int first = 0; first < annotations.size(); first++) {
+            List<FileAnnotation> read = read(arrayFile, first);
+            assertEquals(WRONG_ANNOTATIONS, annotations.subList(first, annotations.size()), read);
+            for (FileAnnotation annotation : read) {
+                assertEquals("Wrong file name", annotations.get(annotation.getPrimaryLineNumber() - 1).getFileName(),
+                        annotation.getFileName());
+            }
+        }
+    }
+
+    /**
+     * Verifies that a corrupt file is reported as an exception.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test(expected = IOException.class)
+    public void testCorruptFile() throws IOException {
+        FileUtils.writeStringToFile(file, "<annotation-array><annotation><message>", "UTF-8");
+
+        read(new AnnotationArrayFile(new AnnotationStream(), file), 0);
+    }
+
+    private List<FileAnnotation> read(final AnnotationArrayFile arrayFile, final int first) throws IOException {
+        final List<FileAnnotation> read = Lists.newArrayList();
+        arrayFile.read(new AnnotationsFile.Visitor() {
+            public boolean visit(final FileAnnotation annotation) {
+                return read.add(annotation);
+            }
+        }, first);
+        return read;
+    }
+
+    private Warning createWarning(final String fileName, final int line) {
+        Warning warning = new Warning(Priority.HIGH, "message", line, line, "category", "type");
+        warning.setFileName(fileName);
+        return warning;
+    }
+
+    /**
+     * A concrete warning that will be stored.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = 2412917240585263874L;
+
+        Warning(final Priority priority, final String message, final int start, final int end,
+                final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package hudson.plugins.analysis.util.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import hudson.Util;
+
+/**
+ * Tests the class {@link AnnotationsFile}.
+ *
+ * @author Ulli Hafner
+ */
+public class AnnotationsFileTest {
+    private static final String WRONG_ANNOTATIONS = "Wrong annotations";
+    private static final String WRONG_COUNT = "Wrong number of visited annotations";
+
+    private File folder;
+
+    /**
+     * Creates the folder of the data files.
+     *
+     * @throws IOException
+     *             if the folder could not be created
+     */
+    @Before
+    public void createFolder() throws IOException {
+        folder = Util.createTempDir();
+    }
+
+    /**
+     * Deletes the folder of the data files.
+     */
+    @After
+    public void deleteFolder() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    /**
+     * Verifies that the written annotations are read in the same order with
+     * all of their properties.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        AnnotationsFile file = createFile("build/analysis-new.xml");
+        List<FileAnnotation> annotations = Lists.<FileAnnotation>newArrayList(
+                createWarning("A.java", 1, Priority.HIGH, "Message with <special> & \"quoted\" characters"),
+                createWarning("B.java", 2, Priority.NORMAL, "Message with umlauts \u00e4\u00f6\u00fc"),
+                createWarning("C.java", 3, Priority.LOW, StringUtils.EMPTY));
+        assertFalse("File exists", file.exists());
+
+        file.write(annotations);
+        assertTrue("File not written", file.exists());
+
+        List<FileAnnotation> read = Lists.newArrayList();
+        assertEquals(WRONG_COUNT, 3, read(file, read, Integer.MAX_VALUE));
+        assertEquals(WRONG_ANNOTATIONS, annotations, read);
+        for (int i = 0; i < annotations.size(); i++) {
+            FileAnnotation expected = annotations.get(i);
+            FileAnnotation actual = read.get(i);
+            assertEquals("Wrong file name", expected.getFileName(), actual.getFileName());
+            assertEquals("Wrong line", expected.getPrimaryLineNumber(), actual.getPrimaryLineNumber());
+            assertEquals("Wrong priority", expected.getPriority(), actual.getPriority());
+            assertEquals("Wrong message", expected.getMessage(), actual.getMessage());
+            assertEquals("Wrong category", expected.getCategory(), actual.getCategory());
+            assertEquals("Wrong type", expected.getType(), actual.getType());
+        }
+    }
+
+    /**
+     * Verifies that an empty file could be written and read.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testEmptyFile() throws IOException {
+        AnnotationsFile file = createFile("empty.xml");
+
+        file.write(Collections.<FileAnnotation>emptyList());
+
+        List<FileAnnotation> read = Lists.newArrayList();
+        assertEquals(WRONG_COUNT, 0, read(file, read, Integer.MAX_VALUE));
+        assertTrue(WRONG_ANNOTATIONS, read.isEmpty());
+    }
+
+    /**
+     * Verifies that reading stops as soon as the visitor returns
+     * <code>false</code>.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testStopReading() throws IOException {
+        AnnotationsFile file = createFile("stop.xml");
+        List<FileAnnotation> annotations = Lists.<FileAnnotation>newArrayList(
+                createWarning("A.java", 1), createWarning("B.java", 2), createWarning("C.java", 3));
+        file.write(annotations);
+
+        List<FileAnnotation> read = Lists.newArrayList();
+        assertEquals(WRONG_COUNT, 2, read(file, read, 2));
+        assertEquals(WRONG_ANNOTATIONS, annotations.subList(0, 2), read);
+    }
+
+    /**
+     * Verifies that an existing file is replaced.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testOverwrite() throws IOException {
+        AnnotationsFile file = createFile("overwrite.xml");
+        file.write(Lists.<FileAnnotation>newArrayList(createWarning("A.java", 1), createWarning("B.java", 2)));
+
+        List<FileAnnotation> annotations = Lists.<FileAnnotation>newArrayList(createWarning("C.java", 3));
+        file.write(annotations);
+
+        List<FileAnnotation> read = Lists.newArrayList();
+        read(file, read, Integer.MAX_VALUE);
+        assertEquals(WRONG_ANNOTATIONS, annotations, read);
+    }
+
+    /**
+     * Verifies that a failed write keeps the previous content of the file.
+     *
+     * @throws IOException
+     *             if the file could not be written or read
+     */
+    @Test
+    public void testFailedWriteKeepsPreviousFile() throws IOException {
+        AnnotationsFile file = createFile("failed.xml");
+        List<FileAnnotation> annotations = Lists.<FileAnnotation>newArrayList(createWarning("A.java", 1));
+        file.write(annotations);
+        String previous = FileUtils.readFileToString(file.getFile(), "UTF-8");
+
+        final FileAnnotation second = createWarning("B.java", 2);
+        try {
+            file.write(new AbstractList<FileAnnotation>() {
+                @Override
+                public FileAnnotation get(final int index) {
+                    if (index == 0) {
+                        return second;
+                    }
+                    throw new IllegalStateException("Failure while writing");
+                }
+
+                @Override
+                public int size() {
+                    return 2;
+                }
+            });
+            fail("Failure not propagated");
+        }
+        catch (IllegalStateException exception) {
+            // expected
+        }
+
+        assertEquals("File changed", previous, FileUtils.readFileToString(file.getFile(), "UTF-8"));
+        List<FileAnnotation> read = Lists.newArrayList();
+        read(file, read, Integer.MAX_VALUE);
+        assertEquals(WRONG_ANNOTATIONS, annotations, read);
+    }
+
+    /**
+     * Verifies that a corrupt file is reported as an exception.
+     *
+     * @throws IOException
+     *             if the file could not be written
+     */
+    @Test(expected = IOException.class)
+    public void testCorruptFile() throws IOException {
+        AnnotationsFile file = createFile("corrupt.xml");
+        FileUtils.writeStringToFile(file.getFile(), "<annotations><annotation><message>", "UTF-8");
+
+        read(file, Lists.<FileAnnotation>newArrayList(), Integer.MAX_VALUE);
+    }
+
+    private AnnotationsFile createFile(final String fileName) {
+        return new AnnotationsFile(new AnnotationStream(), new File(folder, fileName));
+    }
+
+    private int read(final AnnotationsFile file, final List<FileAnnotation> read, final int limit) throws IOException {
+        return file.read(new AnnotationsFile.Visitor() {
+            public boolean visit(final FileAnnotation annotation) {
+                read.add(annotation);
+
+                return read.size() < limit;
+            }
+        });
+    }
+
+    private Warning createWarning(final String fileName, final int line) {
+        return createWarning(fileName, line, Priority.HIGH, "message");
+    }
+
+    private Warning createWarning(final String fileName, final int line, final Priority priority,
+            final String message) {
+        Warning warning = new Warning(priority, message, line, line, "category", "type");
+        warning.setFileName(fileName);
+        return warning;
+    }
+
+    /**
+     * A concrete warning that will be stored.
+     */
+    private static class Warning extends AbstractAnnotation {
+        private static final long serialVersionUID = -3285471382903867492L;
+
+        Warning(final Priority priority, final String message, final int start, final int end,
+                final String category, final String type) {
+            super(priority, message, start, end, category, type);
+        }
+
+        /** {@inheritDoc} */
+        public String getToolTip() {
+            return StringUtils.EMPTY;
+        }
+    }
+}